@@ -0,0 +1,150 @@
+package com.example.clpmonitor.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Configuração dos CLPs monitorados (prefixo "clp" no application.properties).
+// Exemplo:
+//   clp.plcs.estoque.ip=10.74.241.10
+//   clp.plcs.estoque.port=102
+//   clp.scan-classes.fast=100
+//   clp.tags[0].name=clp1.cores
+//   clp.tags[0].plc=estoque
+//   clp.tags[0].address=DB9.DBB68[28]
+//   clp.tags[0].scan-class=fast
+//   clp.tags[0].stream=clp1
+@ConfigurationProperties(prefix = "clp")
+public class ClpProperties {
+
+    private Map<String, Plc> plcs = new LinkedHashMap<>();
+
+    // Classes de varredura: nome -> período de leitura (ms)
+    private Map<String, Long> scanClasses = new LinkedHashMap<>();
+
+    // Tags monitoradas, com endereço simbólico (ver S7Address)
+    private List<TagConfig> tags = new ArrayList<>();
+
+    public Map<String, Plc> getPlcs() {
+        return plcs;
+    }
+
+    public void setPlcs(Map<String, Plc> plcs) {
+        this.plcs = plcs;
+    }
+
+    public Plc getPlc(String name) {
+        Plc plc = plcs.get(name);
+        if (plc == null) {
+            throw new IllegalArgumentException("CLP não configurado: " + name);
+        }
+        return plc;
+    }
+
+    public Map<String, Long> getScanClasses() {
+        return scanClasses;
+    }
+
+    public void setScanClasses(Map<String, Long> scanClasses) {
+        this.scanClasses = scanClasses;
+    }
+
+    public long getScanClassPeriodMs(String scanClass) {
+        Long periodMs = scanClasses.get(scanClass);
+        if (periodMs == null) {
+            throw new IllegalArgumentException("Classe de varredura não configurada: " + scanClass);
+        }
+        return periodMs;
+    }
+
+    public List<TagConfig> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<TagConfig> tags) {
+        this.tags = tags;
+    }
+
+    public static class Plc {
+        private String ip;
+        private int port = 102;
+
+        public String getIp() {
+            return ip;
+        }
+        public void setIp(String ip) {
+            this.ip = ip;
+        }
+        public int getPort() {
+            return port;
+        }
+        public void setPort(int port) {
+            this.port = port;
+        }
+    }
+
+    public static class TagConfig {
+        private String name;
+        private String plc;
+        private String address;
+        private String scanClass;
+        private String stream;
+        // Opcional: substitui o tipo deduzido do endereço (ex: "string")
+        private String type;
+        // Banda morta de inteiros e floats: "absolute" ou "percent"
+        private double deadband = 0;
+        private String deadbandType = "absolute";
+
+        public String getName() {
+            return name;
+        }
+        public void setName(String name) {
+            this.name = name;
+        }
+        public String getPlc() {
+            return plc;
+        }
+        public void setPlc(String plc) {
+            this.plc = plc;
+        }
+        public String getAddress() {
+            return address;
+        }
+        public void setAddress(String address) {
+            this.address = address;
+        }
+        public String getScanClass() {
+            return scanClass;
+        }
+        public void setScanClass(String scanClass) {
+            this.scanClass = scanClass;
+        }
+        public String getStream() {
+            return stream;
+        }
+        public void setStream(String stream) {
+            this.stream = stream;
+        }
+        public String getType() {
+            return type;
+        }
+        public void setType(String type) {
+            this.type = type;
+        }
+        public double getDeadband() {
+            return deadband;
+        }
+        public void setDeadband(double deadband) {
+            this.deadband = deadband;
+        }
+        public String getDeadbandType() {
+            return deadbandType;
+        }
+        public void setDeadbandType(String deadbandType) {
+            this.deadbandType = deadbandType;
+        }
+    }
+}
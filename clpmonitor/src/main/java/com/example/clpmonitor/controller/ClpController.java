@@ -1,5 +1,6 @@
 package com.example.clpmonitor.controller;
 
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -7,11 +8,20 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.example.clpmonitor.model.BroadcastStats;
+import com.example.clpmonitor.model.HistorianStats;
+import com.example.clpmonitor.model.PollStats;
+import com.example.clpmonitor.model.SseClientStats;
 import com.example.clpmonitor.model.TagWriteRequest;
 import com.example.clpmonitor.plc.PlcConnector;
 import com.example.clpmonitor.service.ClpSimulatorService;
+import com.example.clpmonitor.service.HistorianService;
+import com.example.clpmonitor.service.PlcConnectionPool;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @Controller
 public class ClpController {
@@ -22,6 +32,14 @@ public class ClpController {
     @Autowired
     private ClpSimulatorService simulatorService;
 
+    // Pool de sessões com os CLPs, reaproveitadas entre as escritas
+    @Autowired
+    private PlcConnectionPool connectionPool;
+
+    // Gravação do histórico no banco (clp.historian.*)
+    @Autowired
+    private HistorianService historian;
+
     // Mapeia a URL raiz (http://localhost:8080/) para o método index().
     // Retorna a view index.html, localizada em src/main/resources/templates/index.html (Thymeleaf).
     @GetMapping("/")
@@ -36,12 +54,16 @@ public class ClpController {
 
     // Retorna um objeto SseEmitter, que é a classe do Spring para enviar
     // dados do servidor para o cliente continuamente usando Server-Sent Events.
-    public SseEmitter streamClpData() {
+    // Parâmetro opcional topics: só os streams/tags indicados, ex:
+    //   /clp-data-stream?topics=clp1,clp4
+    //   /clp-data-stream?topics=clp4.p3
+    public SseEmitter streamClpData(@RequestParam(required = false) List<String> topics,
+            HttpServletRequest request) {
         // Esse método delega a lógica para simulatorService.subscribe() que:
         //  Cria o SseEmitter.
         //  Armazena ele numa lista de ouvintes (clientes conectados).
         //  Inicia o envio periódico dos dados simulados
-        return simulatorService.subscribe();
+        return simulatorService.subscribe(request.getRemoteAddr(), topics);
     }
 
 @PostMapping("/write-tag")
@@ -57,39 +79,30 @@ public String writeTag(
         Model model) {
 
     try {
-        PlcConnector plc = new PlcConnector(ip.trim(), port);
-        plc.connect();
-
-        boolean success = false;
-
-        switch (type.toUpperCase()) {
-            case "STRING":
-                success = plc.writeString(db, offset, size, value.trim());
-                break;
-            case "BLOCK":
-                byte[] bytes = PlcConnector.hexStringToByteArray(value.trim());
-                success = plc.writeBlock(db, offset, size, bytes);
-                break;
-            case "FLOAT":
-                success = plc.writeFloat(db, offset, Float.parseFloat(value.trim()));
-                break;
-            case "INTEGER":
-                success = plc.writeInt(db, offset, Integer.parseInt(value.trim()));
-                break;
-            case "BYTE":
-                success = plc.writeByte(db, offset, Byte.parseByte(value.trim()));
-                break;
-            case "BIT":
-                if (bitNumber == null) {
-                    throw new IllegalArgumentException("Bit Number é obrigatório para tipo BIT");
-                }
-                success = plc.writeBit(db, offset, bitNumber, Boolean.parseBoolean(value.trim()));
-                break;
-            default:
-                throw new IllegalArgumentException("Tipo não suportado: " + type);
-        }
-
-        plc.disconnect();
+        // A escrita usa uma sessão do pool: o handshake com o CLP só acontece
+        // na primeira escrita (ou após uma reconexão). Nunca é repetida.
+        boolean success = connectionPool.executeOnce(ip, port, plc -> {
+            switch (type.toUpperCase()) {
+                case "STRING":
+                    return plc.writeString(db, offset, size, value.trim());
+                case "BLOCK":
+                    byte[] bytes = PlcConnector.hexStringToByteArray(value.trim());
+                    return plc.writeBlock(db, offset, size, bytes);
+                case "FLOAT":
+                    return plc.writeFloat(db, offset, Float.parseFloat(value.trim()));
+                case "INTEGER":
+                    return plc.writeInt(db, offset, Integer.parseInt(value.trim()));
+                case "BYTE":
+                    return plc.writeByte(db, offset, Byte.parseByte(value.trim()));
+                case "BIT":
+                    if (bitNumber == null) {
+                        throw new IllegalArgumentException("Bit Number é obrigatório para tipo BIT");
+                    }
+                    return plc.writeBit(db, offset, bitNumber, Boolean.parseBoolean(value.trim()));
+                default:
+                    throw new IllegalArgumentException("Tipo não suportado: " + type);
+            }
+        });
 
         if (success) {
             model.addAttribute("mensagem", "Escrita no CLP realizada com sucesso!");
@@ -110,6 +123,34 @@ public String writeTag(
     }
 
     
+    // Tempos de serialização e de envio de cada evento SSE
+    @GetMapping("/api/stats/sse")
+    @ResponseBody
+    public List<BroadcastStats> sseStats() {
+        return simulatorService.getBroadcastStats();
+    }
+
+    // Fila de envio de cada cliente SSE (profundidade, descartes)
+    @GetMapping("/api/stats/sse/clients")
+    @ResponseBody
+    public List<SseClientStats> sseClientStats() {
+        return simulatorService.getClientStats();
+    }
+
+    // Estatísticas dos ciclos de aquisição de cada CLP
+    @GetMapping("/api/stats/poll")
+    @ResponseBody
+    public List<PollStats> pollStats() {
+        return simulatorService.getPollStats();
+    }
+
+    // Fila, lotes gravados, tempo de gravação e spill em disco do historiador
+    @GetMapping("/api/stats/historian")
+    @ResponseBody
+    public HistorianStats historianStats() {
+        return historian.getStats();
+    }
+
     @PostMapping("/updateSimulation")
     public String startSimulation() {
         simulatorService.startSimulation();
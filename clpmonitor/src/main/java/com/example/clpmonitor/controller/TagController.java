@@ -0,0 +1,175 @@
+package com.example.clpmonitor.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.clpmonitor.history.HistoryExportWriter;
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagHistory;
+import com.example.clpmonitor.model.TagSnapshot;
+import com.example.clpmonitor.model.TagValue;
+import com.example.clpmonitor.service.HistoryExportService;
+import com.example.clpmonitor.service.TagHistoryService;
+import com.example.clpmonitor.service.TagRegistry;
+import com.example.clpmonitor.service.TagValueStore;
+
+// Valores atuais das tags para integrações (MES etc.) que só consultam o
+// estado, sem abrir um stream. As respostas vêm só do TagValueStore: nenhuma
+// requisição chega ao CLP, não importa quantos clientes consultem.
+// O ETag é a versão da última mudança de valor/qualidade; enviando-o em
+// If-None-Match o cliente recebe 304 (sem corpo) enquanto nada mudar. É um
+// ETag fraco (W/) porque os horários da leitura avançam a cada ciclo mesmo
+// sem mudança de valor. As versões recomeçam do zero quando a aplicação
+// reinicia, então o ETag leva também o horário de início: W/"<início>-<versão>".
+@Controller
+public class TagController {
+
+    // Distingue as versões desta execução das de execuções anteriores
+    private static final long BOOT_MILLIS = System.currentTimeMillis();
+
+    @Autowired
+    private TagRegistry registry;
+
+    @Autowired
+    private TagValueStore store;
+
+    @Autowired
+    private TagHistoryService history;
+
+    @Autowired
+    private HistoryExportService historyExport;
+
+    // GET /api/tags – todas as tags
+    @GetMapping("/api/tags")
+    public ResponseEntity<List<TagValue>> getTags(WebRequest request) {
+        TagSnapshot snapshot = store.snapshot();
+        String etag = etag(snapshot.getLastChangeVersion());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        List<TagValue> values = new ArrayList<>(registry.size());
+        for (Tag tag : registry.getTags()) {
+            values.add(new TagValue(tag, snapshot));
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(values);
+    }
+
+    // GET /api/tags/{name} – uma tag (ex: /api/tags/clp4.p3)
+    @GetMapping("/api/tags/{name:.+}")
+    public ResponseEntity<TagValue> getTag(@PathVariable String name, WebRequest request) {
+        Tag tag;
+        try {
+            tag = registry.getTag(name);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+
+        TagSnapshot snapshot = store.snapshot();
+        String etag = etag(snapshot.getChangeVersion(tag.getId()));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(new TagValue(tag, snapshot));
+    }
+
+    // GET /api/tags/{name}/history?from=&to= – amostras guardadas em memória
+    // (ver TagHistoryService), from/to em ms desde 1970. Sem from, desde a
+    // amostra mais antiga; sem to, até agora. Lidas do disco, no máximo
+    // clp.history.max-raw-samples amostras (400 se o período tiver mais).
+    // Para períodos longos, o servidor reduz a série (só tags numéricas):
+    //   mode=buckets&bucketMs= – mínimo/máximo/média/último por intervalo
+    //                            (sem bucketMs, o período dividido em points)
+    //   mode=lttb&points=      – até points pontos que mantêm o formato da curva
+    @GetMapping("/api/tags/{name}/history")
+    public ResponseEntity<?> getTagHistory(@PathVariable String name,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "raw") String mode,
+            @RequestParam(defaultValue = "1000") int points,
+            @RequestParam(required = false) Long bucketMs) {
+        long start = from != null ? from : 0;
+        long end = to != null ? to : System.currentTimeMillis();
+        if (start > end) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from deve ser menor ou igual a to.");
+        }
+        if (points <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "points deve ser maior que zero.");
+        }
+
+        try {
+            switch (mode) {
+                case "raw":
+                    return ResponseEntity.ok(history.query(name, start, end));
+                case "buckets":
+                    long bucket = bucketMs != null ? bucketMs : Math.max(1, (end - start + points) / points);
+                    return ResponseEntity.ok(history.buckets(name, start, end, bucket));
+                case "lttb":
+                    return ResponseEntity.ok(history.lttb(name, start, end, points));
+                default:
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "mode inválido: " + mode + " (raw, buckets ou lttb).");
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    private static String etag(long version) {
+        return "W/\"" + BOOT_MILLIS + "-" + version + "\"";
+    }
+
+    // GET /api/history/export?tags=a,b&from=&to=&format=csv|binary – histórico
+    // das tags (todas, sem tags) como anexo, escrito aos poucos na resposta
+    // (ver HistoryExportService e HistoryExportWriter para os formatos).
+    // Sem from, desde o começo do histórico; sem to, até agora.
+    @GetMapping("/api/history/export")
+    public ResponseEntity<StreamingResponseBody> exportHistory(@RequestParam(required = false) String tags,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "csv") String format) {
+        long start = from != null ? from : 0;
+        long end = to != null ? to : System.currentTimeMillis();
+        if (start > end) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from deve ser menor ou igual a to.");
+        }
+        boolean csv = format.equals("csv");
+        if (!csv && !format.equals("binary")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "format inválido: " + format + " (csv ou binary).");
+        }
+
+        List<Tag> selected;
+        try {
+            selected = historyExport.resolveTags(tags);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+
+        StreamingResponseBody body = out -> historyExport.export(selected, start, end,
+                csv ? HistoryExportWriter.csv(selected, out) : HistoryExportWriter.binary(selected, out));
+        String file = "historico-" + start + "-" + end + (csv ? ".csv" : ".bin");
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file).build().toString())
+                .body(body);
+    }
+}
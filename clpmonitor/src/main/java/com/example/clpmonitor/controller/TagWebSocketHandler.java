@@ -0,0 +1,336 @@
+package com.example.clpmonitor.controller;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagSnapshot;
+import com.example.clpmonitor.service.TagAcquisitionService;
+import com.example.clpmonitor.service.TagBinaryCodec;
+import com.example.clpmonitor.service.TagRegistry;
+import com.example.clpmonitor.service.TagValueStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// WebSocket /ws/tags – atualizações de tags em frames binários compactos
+// (ver TagBinaryCodec), como alternativa ao JSON do /clp-data-stream.
+// Ao conectar, o cliente recebe o catálogo das tags (texto JSON):
+//   {"type":"catalog","tags":[{"id":0,"name":"clp1.cores","type":"block","size":28}, ...]}
+// e escolhe as tags a qualquer momento, pela mesma conexão:
+//   {"action":"subscribe","tags":["clp1.cores","clp4"]}    (tag, stream ou "*")
+//   {"action":"unsubscribe","tags":["clp4"]}
+// Ao assinar, recebe logo o valor atual das tags; depois, só as mudanças.
+// Como no SSE, cada cliente tem uma fila limitada e uma thread própria de
+// escrita: a thread de leitura do CLP só enfileira os frames e nunca espera
+// por um cliente lento. Um cliente com a fila cheia é desconectado.
+@Component
+public class TagWebSocketHandler extends AbstractWebSocketHandler {
+
+    @Autowired
+    private TagRegistry registry;
+
+    @Autowired
+    private TagAcquisitionService acquisition;
+
+    @Autowired
+    private TagValueStore store;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Limites de envio por cliente: um cliente que não acompanha é desconectado
+    // (e recebe o estado atual ao reconectar)
+    @Value("${clp.ws.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${clp.ws.buffer-size-limit:524288}")
+    private int bufferSizeLimit;
+
+    // Mensagens aguardando envio por cliente
+    @Value("${clp.ws.queue-capacity:256}")
+    private int queueCapacity;
+
+    // Fecha as sessões fora das threads de leitura e de escrita (o close
+    // envia um frame e pode travar numa conexão parada)
+    private final ExecutorService closer = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ws-close");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Cliente com a sua fila de envio e a thread que a esvazia
+    private final class Client implements Runnable {
+        final WebSocketSession session;
+        final Set<Integer> tags = ConcurrentHashMap.newKeySet();
+        // Versão do store enviada no valor inicial de cada tag assinada: frames
+        // de leituras até essa versão já estão contidos nele
+        final Map<Integer, Long> syncedVersions = new ConcurrentHashMap<>();
+        final ArrayDeque<WebSocketMessage<?>> queue = new ArrayDeque<>();
+        boolean closed;
+
+        Client(WebSocketSession session) {
+            this.session = session;
+        }
+
+        // Chamado pelas threads produtoras; nunca bloqueia
+        void offer(WebSocketMessage<?> message) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (queue.size() < queueCapacity) {
+                    queue.addLast(message);
+                    notifyAll();
+                    return;
+                }
+            }
+            System.err.println("Cliente WebSocket " + session.getId() + " desconectado: fila cheia ("
+                    + queueCapacity + " mensagens).");
+            disconnect(this);
+        }
+
+        private synchronized WebSocketMessage<?> take() throws InterruptedException {
+            while (queue.isEmpty() && !closed) {
+                wait();
+            }
+            return closed ? null : queue.pollFirst();
+        }
+
+        @Override
+        public void run() {
+            try {
+                WebSocketMessage<?> message;
+                while ((message = take()) != null) {
+                    session.sendMessage(message);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Limite de tempo/buffer excedido ou conexão perdida
+                System.err.println("Erro ao enviar para o WebSocket " + session.getId() + ": " + e.getMessage());
+                disconnect(this);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Para a thread de escrita e descarta o que estiver na fila
+        synchronized void stop() {
+            closed = true;
+            queue.clear();
+            notifyAll();
+        }
+    }
+
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+
+    // Índice: id da tag -> clientes que a assinaram
+    private final Map<Integer, Set<Client>> subscribersByTag = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        acquisition.addListener(this::onTagsUpdated);
+    }
+
+    @PreDestroy
+    public void stop() {
+        closer.shutdownNow();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        Client client = new Client(new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit));
+        clients.put(session.getId(), client);
+
+        Thread writer = new Thread(client, "ws-writer-" + session.getId());
+        writer.setDaemon(true);
+        writer.start();
+
+        List<Map<String, Object>> catalog = new ArrayList<>();
+        for (Tag tag : registry.getTags()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", tag.getId());
+            entry.put("name", tag.getName());
+            entry.put("type", tag.getAddress().getType().name().toLowerCase());
+            entry.put("size", tag.getAddress().getSize());
+            catalog.add(entry);
+        }
+        sendText(client, Map.of("type", "catalog", "tags", catalog));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        Client client = clients.get(session.getId());
+        if (client == null) {
+            return;
+        }
+
+        JsonNode request;
+        Set<Integer> ids;
+        try {
+            request = objectMapper.readTree(message.getPayload());
+            ids = resolveTags(request.path("tags"));
+        } catch (Exception e) {
+            sendText(client, Map.of("type", "error", "message", "Mensagem inválida: " + e.getMessage()));
+            return;
+        }
+
+        switch (request.path("action").asText()) {
+            case "subscribe" -> {
+                // O cliente entra no índice antes de o valor atual ser lido:
+                // uma leitura publicada nesse meio chega pelo listener ou já
+                // está no valor atual, nunca se perde
+                for (int id : ids) {
+                    if (client.tags.add(id)) {
+                        subscribersByTag.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet()).add(client);
+                    }
+                }
+
+                TagSnapshot values = store.snapshot();
+                List<byte[]> snapshot = new ArrayList<>();
+                for (int id : ids) {
+                    client.syncedVersions.put(id, values.getVersion());
+                    if (values.getReceiveTimestamp(id) != 0) {
+                        snapshot.add(TagBinaryCodec.encodeRecord(registry.getTag(id), values));
+                    }
+                }
+                sendText(client, Map.of("type", "subscribed", "tags", client.tags));
+                if (!snapshot.isEmpty()) {
+                    send(client, TagBinaryCodec.frame(snapshot).array());
+                }
+            }
+            case "unsubscribe" -> {
+                for (int id : ids) {
+                    unsubscribe(client, id);
+                }
+                sendText(client, Map.of("type", "subscribed", "tags", client.tags));
+            }
+            default -> sendText(client, Map.of("type", "error", "message",
+                    "Ação desconhecida: " + request.path("action").asText()));
+        }
+    }
+
+    // Nomes de tags, nomes de streams (todas as tags do stream) ou "*"
+    private Set<Integer> resolveTags(JsonNode names) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (JsonNode node : names) {
+            String name = node.asText().trim();
+            if (name.equals("*")) {
+                for (Tag tag : registry.getTags()) {
+                    ids.add(tag.getId());
+                }
+            } else if (registry.getStreams().containsKey(name)) {
+                for (Tag tag : registry.getTagsByStream(name)) {
+                    ids.add(tag.getId());
+                }
+            } else {
+                ids.add(registry.getTag(name).getId());
+            }
+        }
+        return ids;
+    }
+
+    private void unsubscribe(Client client, int id) {
+        client.tags.remove(id);
+        client.syncedVersions.remove(id);
+        Set<Client> subscribers = subscribersByTag.get(id);
+        if (subscribers != null) {
+            subscribers.remove(client);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Client client = clients.remove(session.getId());
+        if (client != null) {
+            client.stop();
+            for (int id : client.tags) {
+                unsubscribe(client, id);
+            }
+        }
+    }
+
+    // Remove o cliente e fecha a sessão, para o navegador perceber e reconectar
+    // (recebendo o estado atual ao assinar de novo)
+    private void disconnect(Client client) {
+        afterConnectionClosed(client.session, CloseStatus.SESSION_NOT_RELIABLE);
+        closer.execute(() -> {
+            try {
+                client.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException | RuntimeException e) {
+                // Conexão já encerrada
+            }
+        });
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        afterConnectionClosed(session, CloseStatus.SERVER_ERROR);
+    }
+
+    // Cada tag alterada é codificada uma única vez; cada cliente recebe um
+    // frame só com as tags que assinou. Roda na thread de leitura do CLP: os
+    // frames só são colocados nas filas dos clientes.
+    private void onTagsUpdated(List<Tag> changed, TagSnapshot snapshot) {
+        if (clients.isEmpty()) {
+            return;
+        }
+
+        Map<Client, List<byte[]>> frames = new LinkedHashMap<>();
+        for (Tag tag : changed) {
+            Set<Client> subscribers = subscribersByTag.get(tag.getId());
+            if (subscribers == null || subscribers.isEmpty()) {
+                continue;
+            }
+            byte[] record = null;
+            for (Client client : subscribers) {
+                Long synced = client.syncedVersions.get(tag.getId());
+                if (synced != null && snapshot.getVersion() <= synced) {
+                    // Já enviado no valor inicial da assinatura
+                    continue;
+                }
+                if (record == null) {
+                    record = TagBinaryCodec.encodeRecord(tag, snapshot);
+                }
+                frames.computeIfAbsent(client, c -> new ArrayList<>()).add(record);
+            }
+        }
+
+        for (Map.Entry<Client, List<byte[]>> entry : frames.entrySet()) {
+            send(entry.getKey(), TagBinaryCodec.frame(entry.getValue()).array());
+        }
+    }
+
+    private void send(Client client, byte[] frame) {
+        client.offer(new BinaryMessage(frame));
+    }
+
+    private void sendText(Client client, Object message) {
+        try {
+            client.offer(new TextMessage(objectMapper.writeValueAsString(message)));
+        } catch (IOException e) {
+            System.err.println("Erro ao serializar a mensagem do WebSocket: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.clpmonitor.history;
+
+// Redução de séries para gráficos.
+//   Buckets: divide [from, to] em intervalos fixos e guarda mínimo, máximo,
+//            média e último valor de cada um (aceita amostras ou agregados).
+//   lttb:    Largest-Triangle-Three-Buckets, escolhe os pontos que mantêm o
+//            formato visual da curva.
+public final class Downsampler {
+
+    private Downsampler() {
+    }
+
+    // Acumula amostras ou agregados nos intervalos [from + i*bucketMs, from + (i+1)*bucketMs)
+    public static final class Buckets {
+        private final long from;
+        private final long bucketMs;
+        private final double[] min;
+        private final double[] max;
+        private final double[] sum;
+        private final long[] count;
+        private final double[] last;
+
+        public Buckets(long from, long to, long bucketMs) {
+            this.from = from;
+            this.bucketMs = bucketMs;
+            int n = (int) ((to - from) / bucketMs) + 1;
+            this.min = new double[n];
+            this.max = new double[n];
+            this.sum = new double[n];
+            this.count = new long[n];
+            this.last = new double[n];
+        }
+
+        public void add(long timestamp, double value) {
+            addAggregate(timestamp, value, value, value, 1, value);
+        }
+
+        public void addAggregate(long start, double bucketMin, double bucketMax, double bucketSum, long bucketCount,
+                double bucketLast) {
+            int i = (int) ((start - from) / bucketMs);
+            if (start < from || i >= count.length) {
+                return;
+            }
+            if (count[i] == 0) {
+                min[i] = bucketMin;
+                max[i] = bucketMax;
+            } else {
+                min[i] = Math.min(min[i], bucketMin);
+                max[i] = Math.max(max[i], bucketMax);
+            }
+            sum[i] += bucketSum;
+            count[i] += bucketCount;
+            last[i] = bucketLast;
+        }
+
+        public long getFrom() {
+            return from;
+        }
+
+        public long getBucketMs() {
+            return bucketMs;
+        }
+
+        // Quantidade de intervalos com pelo menos uma amostra
+        public int filled() {
+            int n = 0;
+            for (long c : count) {
+                if (c > 0) {
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        // Copia os intervalos com amostras para arrays do tamanho de filled()
+        public void export(long[] starts, double[] mins, double[] maxs, double[] avgs, double[] lasts, long[] counts) {
+            int j = 0;
+            for (int i = 0; i < count.length; i++) {
+                if (count[i] == 0) {
+                    continue;
+                }
+                starts[j] = from + i * bucketMs;
+                mins[j] = min[i];
+                maxs[j] = max[i];
+                avgs[j] = sum[i] / count[i];
+                lasts[j] = last[i];
+                counts[j] = count[i];
+                j++;
+            }
+        }
+    }
+
+    // Índices dos pontos escolhidos pelo LTTB (sempre o primeiro e o último)
+    public static int[] lttb(long[] x, double[] y, int points) {
+        int n = x.length;
+        if (points >= n || points < 3) {
+            int[] all = new int[n];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] selected = new int[points];
+        double every = (double) (n - 2) / (points - 2);
+        int a = 0;
+        selected[0] = 0;
+
+        for (int i = 0; i < points - 2; i++) {
+            // Média do próximo bucket (terceiro vértice do triângulo)
+            int nextStart = (int) Math.floor((i + 1) * every) + 1;
+            int nextEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                avgX += x[j];
+                avgY += y[j];
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            // Ponto do bucket atual que forma o maior triângulo com a e a média
+            int start = (int) Math.floor(i * every) + 1;
+            int end = (int) Math.floor((i + 1) * every) + 1;
+            double maxArea = -1;
+            int chosen = start;
+            for (int j = start; j < end; j++) {
+                double area = Math.abs((x[a] - avgX) * (y[j] - y[a]) - (x[a] - x[j]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = j;
+                }
+            }
+            selected[i + 1] = chosen;
+            a = chosen;
+        }
+        selected[points - 1] = n - 1;
+        return selected;
+    }
+}
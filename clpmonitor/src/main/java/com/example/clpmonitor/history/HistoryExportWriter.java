@@ -0,0 +1,236 @@
+package com.example.clpmonitor.history;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.plc.S7DataType;
+import com.example.clpmonitor.service.TagBinaryCodec;
+
+// Escrita do histórico exportado direto no stream da resposta, tag por tag,
+// sem montar o resultado em memória: cada amostra é escrita (CSV) ou entra
+// em um bloco de tamanho fixo (binário) assim que é lida.
+// O valor de cada amostra chega já no formato do TagBinaryCodec (o mesmo dos
+// segmentos em disco); vazio quando a tag nunca teve leitura boa.
+public abstract class HistoryExportWriter {
+
+    protected final List<Tag> tags;
+
+    protected HistoryExportWriter(List<Tag> tags) {
+        this.tags = tags;
+    }
+
+    public static HistoryExportWriter csv(List<Tag> tags, OutputStream out) {
+        return new Csv(tags, out);
+    }
+
+    public static HistoryExportWriter binary(List<Tag> tags, OutputStream out) {
+        return new Binary(tags, out);
+    }
+
+    public abstract void begin() throws IOException;
+
+    // Amostras da tags.get(index) vêm em seguida, em ordem de horário
+    public abstract void startTag(int index) throws IOException;
+
+    public abstract void sample(long timestamp, boolean good, ByteBuffer value) throws IOException;
+
+    public abstract void endTag() throws IOException;
+
+    // Encerra o arquivo e descarrega o que estiver no buffer
+    public abstract void finish() throws IOException;
+
+    // CSV com cabeçalho: tag,timestamp,time,good,value
+    //   timestamp em ms desde 1970, time em ISO-8601 (UTC)
+    //   block em base64, string entre aspas
+    private static final class Csv extends HistoryExportWriter {
+        private final Writer writer;
+        private final StringBuilder line = new StringBuilder(128);
+        private String name;
+        private S7DataType type;
+
+        Csv(List<Tag> tags, OutputStream out) {
+            super(tags);
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void begin() throws IOException {
+            writer.write("tag,timestamp,time,good,value\n");
+        }
+
+        @Override
+        public void startTag(int index) throws IOException {
+            Tag tag = tags.get(index);
+            name = quote(tag.getName());
+            type = tag.getAddress().getType();
+        }
+
+        @Override
+        public void sample(long timestamp, boolean good, ByteBuffer value) throws IOException {
+            line.setLength(0);
+            line.append(name).append(',').append(timestamp).append(',').append(Instant.ofEpochMilli(timestamp))
+                    .append(',').append(good).append(',');
+            if (value.hasRemaining()) {
+                int p = value.position();
+                switch (type) {
+                    case BOOLEAN -> line.append(value.get(p) != 0);
+                    case BYTE -> line.append(value.get(p));
+                    case INTEGER -> line.append(value.getShort(p));
+                    case FLOAT -> line.append(value.getFloat(p));
+                    case STRING -> line.append(quote(text(value)));
+                    case BLOCK -> line.append(Base64.getEncoder().encodeToString(bytes(value)));
+                }
+            }
+            line.append('\n');
+            writer.append(line);
+        }
+
+        @Override
+        public void endTag() {
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String text(ByteBuffer value) {
+            return new String(bytes(value), StandardCharsets.UTF_8);
+        }
+
+        private static byte[] bytes(ByteBuffer value) {
+            byte[] bytes = new byte[value.remaining()];
+            value.get(value.position(), bytes);
+            return bytes;
+        }
+
+        private static String quote(String text) {
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    // Formato binário colunar, big-endian:
+    //   "CLPH", u8 versão (1), u16 quantidade de tags
+    //   para cada tag: u16 tamanho do nome, nome UTF-8, u8 tipo (TagBinaryCodec.TYPE_*)
+    //   blocos de até CHUNK amostras de uma tag:
+    //     u16 índice da tag, u32 quantidade n
+    //     n x i64 timestamps, n x u8 qualidade
+    //     n valores: bool/byte 1 byte, integer int16, float float32 (zeros se vazio);
+    //                string/block u16 tamanho + bytes
+    //   u16 0xFFFF no fim do arquivo
+    private static final class Binary extends HistoryExportWriter {
+        private static final int CHUNK = 4096;
+        private static final int END = 0xFFFF;
+
+        private final DataOutputStream out;
+        private final long[] timestamps = new long[CHUNK];
+        private final boolean[] good = new boolean[CHUNK];
+        private ByteBuffer values = ByteBuffer.allocate(CHUNK * 4);
+        private int count;
+        private int index;
+        private int width;
+
+        Binary(List<Tag> tags, OutputStream out) {
+            super(tags);
+            this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        }
+
+        @Override
+        public void begin() throws IOException {
+            if (tags.size() >= END) {
+                throw new IllegalArgumentException("Tags demais para a exportação binária: " + tags.size());
+            }
+            out.writeBytes("CLPH");
+            out.writeByte(1);
+            out.writeShort(tags.size());
+            for (Tag tag : tags) {
+                byte[] name = tag.getName().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeByte(TagBinaryCodec.typeCode(tag.getAddress().getType()));
+            }
+        }
+
+        @Override
+        public void startTag(int index) {
+            this.index = index;
+            this.count = 0;
+            this.width = switch (tags.get(index).getAddress().getType()) {
+                case BOOLEAN, BYTE -> 1;
+                case INTEGER -> 2;
+                case FLOAT -> 4;
+                case STRING, BLOCK -> -1;
+            };
+            values.clear();
+        }
+
+        @Override
+        public void sample(long timestamp, boolean valueGood, ByteBuffer value) throws IOException {
+            int needed = width > 0 ? width : 2 + value.remaining();
+            if (values.remaining() < needed) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(values.capacity() * 2, values.position() + needed));
+                values.flip();
+                values = larger.put(values);
+            }
+
+            timestamps[count] = timestamp;
+            good[count] = valueGood;
+            if (width > 0) {
+                // Valor de tamanho fixo: completa com zeros se vazio
+                int length = Math.min(width, value.remaining());
+                values.put(value.duplicate().limit(value.position() + length));
+                for (int i = length; i < width; i++) {
+                    values.put((byte) 0);
+                }
+            } else {
+                values.putShort((short) value.remaining());
+                values.put(value.duplicate());
+            }
+
+            if (++count == CHUNK) {
+                flushChunk();
+            }
+        }
+
+        @Override
+        public void endTag() throws IOException {
+            if (count > 0) {
+                flushChunk();
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            out.writeShort(index);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                out.writeLong(timestamps[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                out.writeByte(good[i] ? 1 : 0);
+            }
+            out.write(values.array(), 0, values.position());
+            count = 0;
+            values.clear();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.writeShort(END);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,568 @@
+package com.example.clpmonitor.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.clpmonitor.model.HistorianStats;
+
+// Grava amostras de tags em um banco via JDBC, em lotes.
+// As amostras entram em uma fila limitada (offer() não bloqueia quem lê o
+// CLP) e uma thread própria as grava com INSERT em lote (executeBatch) quando
+// o lote atinge batchSize ou quando a amostra mais antiga do lote passa de
+// flushIntervalMs. No MySQL, rewriteBatchedStatements=true (acrescentado à
+// URL se faltar) faz o driver enviar o lote como um único INSERT com várias
+// linhas em VALUES.
+// Se o banco falha, o lote vai para um arquivo em disco (spill) e, por
+// retryDelayMs, os lotes seguintes também, sem nova tentativa. Se o banco só
+// está lento e a fila enche, as amostras que não cabem são juntadas e vão
+// para o disco em lote. Com o banco de volta, o arquivo é regravado aos
+// poucos, nos intervalos sem amostras novas.
+// Um lote recusado por erro nos dados (ex: valor maior que a coluna) não é
+// falha do banco: as linhas são regravadas uma a uma e só as recusadas vão
+// para o arquivo <tabela>.rejected, sem atrasar os lotes seguintes.
+// Tabela (criada se não existir):
+//   tag VARCHAR(tagLength), ts BIGINT (ms desde 1970), good BOOLEAN,
+//   num_value DOUBLE (bool/byte/integer/float), text_value VARCHAR(textLength) (string; block em hexa)
+public class JdbcHistorian {
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String table;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long retryDelayMs;
+    private final String insertSql;
+    private final int tagLength;
+    private final int textLength;
+
+    private final BlockingQueue<Sample> queue;
+    private final int queueCapacity;
+
+    // Arquivo de spill (recebe as amostras) e o que está sendo regravado
+    private final Path spillFile;
+    private final Path replayFile;
+    private final Path rejectedFile;
+    private final Object spillLock = new Object();
+    private DataInputStream replayIn;
+
+    // Amostras que não couberam na fila (banco lento), gravadas no spill em
+    // lote pela thread do historiador (ou por quem lê o CLP, se encherem)
+    private final List<Sample> overflow = new ArrayList<>();
+
+    private volatile boolean running;
+    private Thread writer;
+    private Connection connection;
+    private boolean tableReady;
+    private long retryAt;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+    private volatile long totalFlushNanos;
+    private volatile String lastError;
+
+    private static final class Sample {
+        final String tag;
+        final long timestamp;
+        final boolean good;
+        final Object value;
+
+        Sample(String tag, long timestamp, boolean good, Object value) {
+            this.tag = tag;
+            this.timestamp = timestamp;
+            this.good = good;
+            this.value = value;
+        }
+    }
+
+    public JdbcHistorian(String url, String username, String password, String table, int batchSize,
+            long flushIntervalMs, long retryDelayMs, int queueCapacity, Path spillDir) {
+        this(url, username, password, table, batchSize, flushIntervalMs, retryDelayMs, queueCapacity, spillDir,
+                100, 1024);
+    }
+
+    // tagLength/textLength: tamanho das colunas tag e text_value ao criar a tabela
+    public JdbcHistorian(String url, String username, String password, String table, int batchSize,
+            long flushIntervalMs, long retryDelayMs, int queueCapacity, Path spillDir, int tagLength,
+            int textLength) {
+        if (!table.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Nome de tabela inválido para o historiador: " + table);
+        }
+        if (batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("batchSize e queueCapacity do historiador devem ser maiores que zero.");
+        }
+        this.url = withBatchRewrite(url);
+        this.username = username;
+        this.password = password;
+        this.table = table;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.retryDelayMs = retryDelayMs;
+        this.queueCapacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.insertSql = "INSERT INTO " + table + " (tag, ts, good, num_value, text_value) VALUES (?, ?, ?, ?, ?)";
+        this.spillFile = spillDir.resolve(table + ".spill");
+        this.replayFile = spillDir.resolve(table + ".spill.replay");
+        this.rejectedFile = spillDir.resolve(table + ".rejected");
+        this.tagLength = tagLength;
+        this.textLength = textLength;
+    }
+
+    // No MySQL o lote só vira um INSERT multi-linha com rewriteBatchedStatements
+    static String withBatchRewrite(String url) {
+        if (!url.startsWith("jdbc:mysql:") || url.contains("rewriteBatchedStatements")) {
+            return url;
+        }
+        return url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+    }
+
+    public synchronized void start() throws IOException {
+        Files.createDirectories(spillFile.getParent());
+        try {
+            connection();
+        } catch (SQLException e) {
+            // O banco pode subir depois da aplicação: as amostras vão para o disco até lá
+            fail(e);
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "historiador-" + table);
+        writer.setDaemon(true);
+        writer.start();
+        System.out.println("Historiador iniciado: " + table + " (lote " + batchSize + ", " + flushIntervalMs + " ms)");
+    }
+
+    // Para a thread depois de gravar (ou desviar para o disco) o que está na fila
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = writer;
+        }
+        if (thread != null) {
+            try {
+                thread.join(flushIntervalMs + 10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeReplay();
+        closeConnection();
+    }
+
+    // Chamado por quem lê o CLP; não bloqueia. Se a fila está cheia (banco
+    // lento), a amostra é guardada para ir ao disco junto com as demais.
+    public void offer(String tag, long timestamp, boolean good, Object value) {
+        Sample sample = new Sample(tag, timestamp, good, value);
+        if (queue.offer(sample)) {
+            return;
+        }
+        List<Sample> full = null;
+        synchronized (overflow) {
+            overflow.add(sample);
+            if (overflow.size() >= queueCapacity) {
+                full = new ArrayList<>(overflow);
+                overflow.clear();
+            }
+        }
+        if (full != null) {
+            // Thread do historiador presa no banco: um único arquivo aberto
+            // para queueCapacity amostras
+            spill(full);
+        }
+    }
+
+    private void spillOverflow() {
+        List<Sample> pending;
+        synchronized (overflow) {
+            if (overflow.isEmpty()) {
+                return;
+            }
+            pending = new ArrayList<>(overflow);
+            overflow.clear();
+        }
+        spill(pending);
+    }
+
+    private void writeLoop() {
+        List<Sample> batch = new ArrayList<>(batchSize);
+        long firstAt = 0;
+
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            long now = System.currentTimeMillis();
+            long waitMs = batch.isEmpty() ? flushIntervalMs : Math.max(0, firstAt + flushIntervalMs - now);
+
+            Sample sample = null;
+            try {
+                sample = running ? queue.poll(waitMs, TimeUnit.MILLISECONDS) : queue.poll();
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (sample != null) {
+                if (batch.isEmpty()) {
+                    firstAt = System.currentTimeMillis();
+                }
+                batch.add(sample);
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+
+            boolean due = !batch.isEmpty()
+                    && (batch.size() >= batchSize
+                            || System.currentTimeMillis() - firstAt >= flushIntervalMs
+                            || !running);
+            if (due) {
+                flush(batch);
+                batch.clear();
+            } else if (batch.isEmpty() && running) {
+                replayNextBatch();
+            }
+            spillOverflow();
+        }
+        spillOverflow();
+    }
+
+    private void flush(List<Sample> batch) {
+        if (System.currentTimeMillis() < retryAt) {
+            spill(batch);
+            return;
+        }
+        try {
+            write(batch);
+        } catch (SQLException e) {
+            fail(e);
+            spill(batch);
+        }
+    }
+
+    // Grava o lote e devolve quantas linhas o banco aceitou; se ele recusar os
+    // dados, separa as linhas recusadas. Só falhas do banco/conexão chegam a
+    // quem chamou.
+    private int write(List<Sample> batch) throws SQLException {
+        try {
+            insert(batch);
+            return batch.size();
+        } catch (SQLException e) {
+            if (!isDataError(e)) {
+                throw e;
+            }
+            System.err.println("Historiador: lote recusado pelo banco (" + e.getMessage()
+                    + "), gravando linha a linha.");
+            List<Sample> refused = new ArrayList<>();
+            for (Sample sample : batch) {
+                try {
+                    insert(List.of(sample));
+                } catch (SQLException rowError) {
+                    if (!isDataError(rowError)) {
+                        throw rowError;
+                    }
+                    lastError = rowError.getMessage();
+                    refused.add(sample);
+                }
+            }
+            reject(refused);
+            return batch.size() - refused.size();
+        }
+    }
+
+    // Erro nos dados (SQLState 22/23: valor grande demais, restrição violada)
+    // e não no banco ou na conexão
+    static boolean isDataError(SQLException error) {
+        for (SQLException e = error; e != null; e = e.getNextException()) {
+            String state = e.getSQLState();
+            if (e instanceof SQLDataException || e instanceof SQLIntegrityConstraintViolationException
+                    || (state != null && (state.startsWith("22") || state.startsWith("23")))) {
+                return true;
+            }
+            if (e.getCause() instanceof SQLException cause && isDataError(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void insert(List<Sample> batch) throws SQLException {
+        long start = System.nanoTime();
+        Connection conn = connection();
+        try (PreparedStatement statement = conn.prepareStatement(insertSql)) {
+            for (Sample sample : batch) {
+                statement.setString(1, sample.tag);
+                statement.setLong(2, sample.timestamp);
+                statement.setBoolean(3, sample.good);
+                Double number = numeric(sample.value);
+                if (number != null) {
+                    statement.setDouble(4, number);
+                } else {
+                    statement.setNull(4, Types.DOUBLE);
+                }
+                String text = text(sample.value);
+                if (text != null) {
+                    statement.setString(5, text);
+                } else {
+                    statement.setNull(5, Types.VARCHAR);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) {
+                // a conexão é descartada em fail()
+            }
+            throw e;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        written.addAndGet(batch.size());
+        flushes.incrementAndGet();
+        lastBatchSize = batch.size();
+        lastFlushNanos = elapsed;
+        maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        totalFlushNanos += elapsed;
+        lastError = null;
+    }
+
+    private void fail(SQLException e) {
+        failedFlushes.incrementAndGet();
+        lastError = e.getMessage();
+        retryAt = System.currentTimeMillis() + retryDelayMs;
+        closeConnection();
+        System.err.println("Historiador: falha ao gravar no banco: " + e.getMessage());
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DriverManager.getConnection(url, username, password);
+            connection.setAutoCommit(false);
+            if (!tableReady) {
+                createTable(connection);
+                tableReady = true;
+            }
+        }
+        return connection;
+    }
+
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // já estava fechada ou inacessível
+            }
+            connection = null;
+        }
+    }
+
+    private void createTable(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                    + "tag VARCHAR(" + tagLength + ") NOT NULL, "
+                    + "ts BIGINT NOT NULL, "
+                    + "good BOOLEAN NOT NULL, "
+                    + "num_value DOUBLE NULL, "
+                    + "text_value VARCHAR(" + textLength + ") NULL)");
+            conn.commit();
+        }
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("CREATE INDEX idx_" + table + "_tag_ts ON " + table + " (tag, ts)");
+            conn.commit();
+        } catch (SQLException e) {
+            // índice já existe
+            conn.rollback();
+        }
+    }
+
+    private static Double numeric(Object value) {
+        if (value instanceof Boolean bit) {
+            return bit ? 1.0 : 0.0;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        return null;
+    }
+
+    private static String text(Object value) {
+        if (value instanceof byte[] block) {
+            return HexFormat.of().formatHex(block);
+        }
+        if (value instanceof String s) {
+            return s;
+        }
+        return null;
+    }
+
+    // Grava as amostras no fim do arquivo de spill (formato binário próprio)
+    private void spill(List<Sample> samples) {
+        synchronized (spillLock) {
+            try {
+                append(spillFile, samples);
+                spilled.addAndGet(samples.size());
+            } catch (IOException e) {
+                lastError = "Falha ao gravar o spill em disco: " + e.getMessage();
+                System.err.println("Historiador: " + lastError + " (" + samples.size() + " amostras perdidas)");
+            }
+        }
+    }
+
+    // Linhas recusadas pelo banco: guardadas à parte (mesmo formato do spill)
+    // para análise, sem voltar para a regravação
+    private void reject(List<Sample> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+        rejected.addAndGet(samples.size());
+        System.err.println("Historiador: " + samples.size() + " amostras recusadas pelo banco, gravadas em "
+                + rejectedFile);
+        synchronized (spillLock) {
+            try {
+                append(rejectedFile, samples);
+            } catch (IOException e) {
+                System.err.println("Historiador: falha ao gravar as amostras recusadas: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void append(Path file, List<Sample> samples) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            for (Sample sample : samples) {
+                out.writeUTF(sample.tag);
+                out.writeLong(sample.timestamp);
+                out.writeBoolean(sample.good);
+                Double number = numeric(sample.value);
+                out.writeBoolean(number != null);
+                if (number != null) {
+                    out.writeDouble(number);
+                }
+                String text = text(sample.value);
+                out.writeBoolean(text != null);
+                if (text != null) {
+                    out.writeUTF(text);
+                }
+            }
+        }
+    }
+
+    private static Sample readSample(DataInputStream in) throws IOException {
+        String tag;
+        try {
+            tag = in.readUTF();
+        } catch (EOFException e) {
+            return null;
+        }
+        long timestamp = in.readLong();
+        boolean good = in.readBoolean();
+        Object value = null;
+        if (in.readBoolean()) {
+            value = in.readDouble();
+        }
+        if (in.readBoolean()) {
+            value = in.readUTF();
+        }
+        return new Sample(tag, timestamp, good, value);
+    }
+
+    // Regrava um lote do disco no banco. O arquivo de spill é renomeado antes
+    // da leitura, para que novas amostras desviadas vão para um arquivo novo.
+    // Um lote que falha volta para o spill.
+    private void replayNextBatch() {
+        if (System.currentTimeMillis() < retryAt) {
+            return;
+        }
+        try {
+            if (replayIn == null) {
+                synchronized (spillLock) {
+                    if (!Files.exists(replayFile)) {
+                        if (!Files.exists(spillFile)) {
+                            return;
+                        }
+                        Files.move(spillFile, replayFile);
+                    }
+                }
+                replayIn = new DataInputStream(new BufferedInputStream(Files.newInputStream(replayFile)));
+            }
+
+            List<Sample> batch = new ArrayList<>(batchSize);
+            Sample sample;
+            while (batch.size() < batchSize && (sample = readSample(replayIn)) != null) {
+                batch.add(sample);
+            }
+            if (batch.size() < batchSize) {
+                closeReplay();
+                Files.deleteIfExists(replayFile);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                replayed.addAndGet(write(batch));
+            } catch (SQLException e) {
+                fail(e);
+                spill(batch);
+            }
+        } catch (IOException e) {
+            lastError = "Falha ao ler o spill em disco: " + e.getMessage();
+            System.err.println("Historiador: " + lastError);
+            closeReplay();
+        }
+    }
+
+    private void closeReplay() {
+        if (replayIn != null) {
+            try {
+                replayIn.close();
+            } catch (IOException ignored) {
+                // nada a fazer
+            }
+            replayIn = null;
+        }
+    }
+
+    public HistorianStats getStats() {
+        long count = flushes.get();
+        long spillBytes = 0;
+        try {
+            spillBytes = (Files.exists(spillFile) ? Files.size(spillFile) : 0)
+                    + (Files.exists(replayFile) ? Files.size(replayFile) : 0);
+        } catch (IOException ignored) {
+            // arquivo trocado durante a consulta
+        }
+        return new HistorianStats(true, queue.size(), queueCapacity, written.get(), count,
+                failedFlushes.get(), spilled.get(), replayed.get(), rejected.get(), spillBytes, lastBatchSize,
+                lastFlushNanos / 1_000_000.0,
+                count > 0 ? totalFlushNanos / 1_000_000.0 / count : 0,
+                maxFlushNanos / 1_000_000.0,
+                lastError);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.clpmonitor.history;
+
+// Agregados de uma tag numérica em intervalos fixos (ex: 1 min): mínimo,
+// máximo, soma, quantidade e último valor de cada intervalo, em arrays
+// primitivos de tamanho fixo (os intervalos mais antigos são sobrescritos).
+// Atualizado a cada amostra, sem alocar: uma consulta de uma semana em
+// intervalos de 1 h lê 168 agregados em vez de milhões de amostras.
+// Só intervalos com amostras são guardados.
+public final class RollupTier {
+
+    // Recebe os agregados de uma consulta, do mais antigo para o mais novo
+    @FunctionalInterface
+    public interface BucketVisitor {
+        void visit(long start, double min, double max, double sum, long count, double last);
+    }
+
+    private final long resolutionMs;
+    private final int capacity;
+
+    private final long[] starts;
+    private final float[] min;
+    private final float[] max;
+    private final double[] sum;
+    private final int[] count;
+    private final float[] last;
+
+    private int head;
+    private int size;
+    private boolean wrapped;
+
+    public RollupTier(long resolutionMs, int capacity) {
+        this.resolutionMs = resolutionMs;
+        this.capacity = capacity;
+        this.starts = new long[capacity];
+        this.min = new float[capacity];
+        this.max = new float[capacity];
+        this.sum = new double[capacity];
+        this.count = new int[capacity];
+        this.last = new float[capacity];
+    }
+
+    public long getResolutionMs() {
+        return resolutionMs;
+    }
+
+    public synchronized void add(long timestamp, float value) {
+        long start = timestamp - Math.floorMod(timestamp, resolutionMs);
+        int current = (head - 1 + capacity) % capacity;
+
+        // Amostra atrasada (outra thread) entra no intervalo atual
+        if (size > 0 && start <= starts[current]) {
+            min[current] = Math.min(min[current], value);
+            max[current] = Math.max(max[current], value);
+            sum[current] += value;
+            count[current]++;
+            last[current] = value;
+            return;
+        }
+
+        starts[head] = start;
+        min[head] = value;
+        max[head] = value;
+        sum[head] = value;
+        count[head] = 1;
+        last[head] = value;
+        head = (head + 1) % capacity;
+        if (size < capacity) {
+            size++;
+        } else {
+            wrapped = true;
+        }
+    }
+
+    // true se o tier tem os agregados desde o instante from: ou o intervalo
+    // mais antigo guardado começa antes dele, ou nada foi descartado ainda
+    public synchronized boolean covers(long from) {
+        return !wrapped || (size > 0 && starts[physical(0)] <= from);
+    }
+
+    // Início do intervalo mais antigo guardado (Long.MAX_VALUE se vazio)
+    public synchronized long oldestStart() {
+        return size == 0 ? Long.MAX_VALUE : starts[physical(0)];
+    }
+
+    // Agregados dos intervalos que têm alguma parte em [from, to]
+    public synchronized void query(long from, long to, BucketVisitor visitor) {
+        int low = 0;
+        int high = size;
+        long firstStart = from - Math.floorMod(from, resolutionMs);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[physical(mid)] < firstStart) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < size; i++) {
+            int p = physical(i);
+            if (starts[p] > to) {
+                break;
+            }
+            visitor.visit(starts[p], min[p], max[p], sum[p], count[p], last[p]);
+        }
+    }
+
+    private int physical(int logical) {
+        return (head - size + logical + capacity) % capacity;
+    }
+}
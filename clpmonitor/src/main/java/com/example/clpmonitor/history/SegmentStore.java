@@ -0,0 +1,400 @@
+package com.example.clpmonitor.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.example.clpmonitor.plc.S7DataType;
+import com.example.clpmonitor.service.TagBinaryCodec;
+
+// Histórico em disco sem servidor de banco: as amostras são gravadas em
+// arquivos de segmento mapeados em memória (FileChannel.map), com registros
+// de tamanho fixo. Cada segmento tem um tamanho máximo e uma duração
+// máxima; ao atingir um deles, um novo segmento é aberto. Segmentos mais
+// antigos que retentionMs, ou além de maxTotalBytes, são apagados.
+//
+// Segmento (seg-<número>.dat):
+//   cabeçalho (64 bytes): magic, recordSize, capacity, count, minTs, maxTs, createdAt
+//   índice de tempo: para cada bloco de INDEX_BLOCK registros, menor e maior timestamp
+//   registros: i64 timestamp, u16 id da tag, u8 qualidade, u8 tipo (códigos do
+//              TagBinaryCodec), u16 tamanho,
+//              4 bytes livres, valor (até valueWidth bytes)
+// count é gravado por último em cada append, então um segmento reaberto
+// depois de reiniciar a aplicação tem só registros completos.
+//
+// As consultas percorrem as páginas mapeadas direto (scan): o valor de cada
+// registro é entregue como uma visão do próprio segmento, sem cópia para o heap.
+public class SegmentStore {
+
+    static final long MAGIC = 0x434C505345473031L; // "CLPSEG01"
+    static final int HEADER_SIZE = 64;
+    static final int INDEX_BLOCK = 1024;
+    static final int INDEX_ENTRY = 16;
+    static final int RECORD_HEADER = 16;
+
+    private static final int H_RECORD_SIZE = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_COUNT = 16;
+    private static final int H_MIN_TS = 24;
+    private static final int H_MAX_TS = 32;
+    private static final int H_CREATED_AT = 40;
+
+    // Recebe cada registro de uma consulta. value é uma visão somente leitura
+    // dos bytes do valor no segmento, válida só durante a chamada.
+    @FunctionalInterface
+    public interface SampleVisitor {
+        void visit(long timestamp, boolean good, S7DataType type, ByteBuffer value);
+    }
+
+    private static final class Segment {
+        final Path path;
+        final long number;
+        final MappedByteBuffer buffer;
+        final int recordSize;
+        final int capacity;
+        final long createdAt;
+        final long fileSize;
+        int count;
+        long minTs;
+        long maxTs;
+
+        Segment(Path path, long number, MappedByteBuffer buffer, long fileSize) {
+            this.path = path;
+            this.number = number;
+            this.buffer = buffer;
+            this.fileSize = fileSize;
+            this.recordSize = buffer.getInt(H_RECORD_SIZE);
+            this.capacity = buffer.getInt(H_CAPACITY);
+            this.count = buffer.getInt(H_COUNT);
+            this.minTs = buffer.getLong(H_MIN_TS);
+            this.maxTs = buffer.getLong(H_MAX_TS);
+            this.createdAt = buffer.getLong(H_CREATED_AT);
+        }
+
+        int indexBlocks() {
+            return (capacity + INDEX_BLOCK - 1) / INDEX_BLOCK;
+        }
+
+        int dataStart() {
+            return HEADER_SIZE + indexBlocks() * INDEX_ENTRY;
+        }
+    }
+
+    private final Path dir;
+    private final int valueWidth;
+    private final int recordSize;
+    private final long segmentBytes;
+    private final long segmentDurationMs;
+    private final long retentionMs;
+    private final long maxTotalBytes;
+
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private boolean closed;
+
+    public SegmentStore(Path dir, int valueWidth, long segmentBytes, long segmentDurationMs, long retentionMs,
+            long maxTotalBytes) {
+        this.dir = dir;
+        this.valueWidth = valueWidth;
+        this.recordSize = RECORD_HEADER + ((valueWidth + 7) / 8) * 8;
+        this.segmentBytes = segmentBytes;
+        this.segmentDurationMs = segmentDurationMs;
+        this.retentionMs = retentionMs;
+        this.maxTotalBytes = maxTotalBytes;
+        if (segmentBytes < HEADER_SIZE + INDEX_ENTRY + recordSize || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tamanho de segmento inválido: " + segmentBytes + " bytes");
+        }
+    }
+
+    // Reabre os segmentos existentes; o último continua recebendo amostras
+    // se tiver espaço e o mesmo formato de registro
+    public synchronized void open() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(p -> p.getFileName().toString().matches("seg-\\d+\\.dat")).sorted().toList();
+        }
+        for (Path file : files) {
+            if (Files.size(file) < HEADER_SIZE) {
+                System.err.println("Segmento inválido ignorado: " + file);
+                continue;
+            }
+            Segment segment = map(file, segmentNumber(file), false);
+            if (segment.buffer.getLong(0) != MAGIC) {
+                System.err.println("Segmento inválido ignorado: " + file);
+                continue;
+            }
+            segments.add(segment);
+        }
+        if (!segments.isEmpty()) {
+            Segment last = segments.get(segments.size() - 1);
+            if (last.recordSize == recordSize && last.count < last.capacity) {
+                // reabre para escrita
+                segments.set(segments.size() - 1, map(last.path, last.number, true));
+                active = segments.get(segments.size() - 1);
+            }
+        }
+        applyRetention(System.currentTimeMillis());
+        System.out.println("Histórico em disco: " + segments.size() + " segmentos em " + dir.toAbsolutePath());
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(4, name.length() - 4));
+    }
+
+    private static Segment map(Path file, long number, boolean writable) throws IOException {
+        StandardOpenOption[] options = writable
+                ? new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE }
+                : new StandardOpenOption[] { StandardOpenOption.READ };
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            // O mapeamento continua válido depois de fechar o canal
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE
+                    : FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Segment(file, number, buffer, channel.size());
+        }
+    }
+
+    private Segment create(long now) throws IOException {
+        long number = segments.isEmpty() ? 1 : segments.get(segments.size() - 1).number + 1;
+        Path file = dir.resolve(String.format("seg-%012d.dat", number));
+
+        int capacity = (int) ((segmentBytes - HEADER_SIZE) / recordSize);
+        while (HEADER_SIZE + (long) ((capacity + INDEX_BLOCK - 1) / INDEX_BLOCK) * INDEX_ENTRY
+                + (long) capacity * recordSize > segmentBytes) {
+            capacity--;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            buffer.putInt(H_RECORD_SIZE, recordSize);
+            buffer.putInt(H_CAPACITY, capacity);
+            buffer.putInt(H_COUNT, 0);
+            buffer.putLong(H_MIN_TS, Long.MAX_VALUE);
+            buffer.putLong(H_MAX_TS, Long.MIN_VALUE);
+            buffer.putLong(H_CREATED_AT, now);
+            buffer.putLong(0, MAGIC);
+            return new Segment(file, number, buffer, segmentBytes);
+        }
+    }
+
+    // Grava uma amostra. value: Boolean, Byte, Integer, Float, String ou byte[];
+    // textos e blocos maiores que valueWidth são truncados.
+    public synchronized void append(int tagId, long timestamp, boolean good, S7DataType type, Object value)
+            throws IOException {
+        if (closed) {
+            return;
+        }
+        if (active == null || active.count >= active.capacity || timestamp - active.createdAt >= segmentDurationMs) {
+            rollover(timestamp);
+        }
+        Segment s = active;
+        MappedByteBuffer buffer = s.buffer;
+        int index = s.count;
+        int pos = s.dataStart() + index * s.recordSize;
+
+        buffer.putLong(pos, timestamp);
+        buffer.putShort(pos + 8, (short) tagId);
+        buffer.put(pos + 10, (byte) (good ? 1 : 0));
+        buffer.put(pos + 11, TagBinaryCodec.typeCode(type));
+        buffer.putShort(pos + 12, (short) putValue(buffer, pos + RECORD_HEADER, type, value));
+
+        int entry = HEADER_SIZE + (index / INDEX_BLOCK) * INDEX_ENTRY;
+        if (index % INDEX_BLOCK == 0) {
+            buffer.putLong(entry, timestamp);
+            buffer.putLong(entry + 8, timestamp);
+        } else {
+            buffer.putLong(entry, Math.min(buffer.getLong(entry), timestamp));
+            buffer.putLong(entry + 8, Math.max(buffer.getLong(entry + 8), timestamp));
+        }
+        s.minTs = Math.min(s.minTs, timestamp);
+        s.maxTs = Math.max(s.maxTs, timestamp);
+        buffer.putLong(H_MIN_TS, s.minTs);
+        buffer.putLong(H_MAX_TS, s.maxTs);
+
+        // Por último: o registro só passa a existir quando count o inclui
+        s.count = index + 1;
+        buffer.putInt(H_COUNT, s.count);
+    }
+
+    private int putValue(MappedByteBuffer buffer, int pos, S7DataType type, Object value) {
+        if (value == null) {
+            return 0;
+        }
+        switch (type) {
+            case BOOLEAN -> {
+                buffer.put(pos, (byte) (Boolean.TRUE.equals(value) ? 1 : 0));
+                return 1;
+            }
+            case BYTE -> {
+                buffer.put(pos, ((Number) value).byteValue());
+                return 1;
+            }
+            case INTEGER -> {
+                buffer.putShort(pos, ((Number) value).shortValue());
+                return 2;
+            }
+            case FLOAT -> {
+                buffer.putFloat(pos, ((Number) value).floatValue());
+                return 4;
+            }
+            default -> {
+                byte[] bytes = value instanceof byte[] block ? block : value.toString().getBytes(StandardCharsets.UTF_8);
+                int length = Math.min(bytes.length, valueWidth);
+                buffer.put(pos, bytes, 0, length);
+                return length;
+            }
+        }
+    }
+
+    private void rollover(long now) throws IOException {
+        if (active != null) {
+            active.buffer.force();
+        }
+        active = create(now);
+        segments.add(active);
+        applyRetention(now);
+    }
+
+    // Apaga os segmentos (nunca o ativo) vencidos ou além do tamanho máximo
+    private void applyRetention(long now) {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.fileSize;
+        }
+        while (!segments.isEmpty() && segments.get(0) != active) {
+            Segment oldest = segments.get(0);
+            boolean expired = oldest.count == 0 || oldest.maxTs < now - retentionMs;
+            if (!expired && total <= maxTotalBytes) {
+                break;
+            }
+            try {
+                // As consultas em andamento continuam lendo o mapeamento
+                Files.deleteIfExists(oldest.path);
+            } catch (IOException e) {
+                System.err.println("Erro ao apagar o segmento " + oldest.path + ": " + e.getMessage());
+                break;
+            }
+            total -= oldest.fileSize;
+            segments.remove(0);
+        }
+    }
+
+    // Grava as páginas alteradas do segmento ativo no disco
+    public synchronized void force() {
+        if (active != null) {
+            active.buffer.force();
+        }
+    }
+
+    public synchronized void close() {
+        force();
+        active = null;
+        closed = true;
+    }
+
+    // Segmentos e quantidade de registros completos em um instante; o que for
+    // gravado depois não entra na consulta
+    private record View(List<Segment> segments, int[] counts) {
+    }
+
+    private synchronized View view() {
+        int[] counts = new int[segments.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = segments.get(i).count;
+        }
+        return new View(new ArrayList<>(segments), counts);
+    }
+
+    // Percorre, em ordem de gravação, os registros da tag com from <= timestamp <= to
+    public void scan(int tagId, long from, long to, SampleVisitor visitor) {
+        scan(view(), tagId, from, to, visitor);
+    }
+
+    private static void scan(View view, int tagId, long from, long to, SampleVisitor visitor) {
+        for (int i = 0; i < view.segments().size(); i++) {
+            Segment segment = view.segments().get(i);
+            int count = view.counts()[i];
+            if (count == 0 || segment.maxTs < from || segment.minTs > to) {
+                continue;
+            }
+            ByteBuffer buffer = segment.buffer.duplicate();
+            ByteBuffer value = segment.buffer.asReadOnlyBuffer();
+            int dataStart = segment.dataStart();
+
+            for (int block = 0; block * INDEX_BLOCK < count; block++) {
+                int entry = HEADER_SIZE + block * INDEX_ENTRY;
+                if (buffer.getLong(entry + 8) < from || buffer.getLong(entry) > to) {
+                    continue;
+                }
+                int end = Math.min(count, (block + 1) * INDEX_BLOCK);
+                for (int r = block * INDEX_BLOCK; r < end; r++) {
+                    int pos = dataStart + r * segment.recordSize;
+                    long timestamp = buffer.getLong(pos);
+                    if (timestamp < from || timestamp > to || (buffer.getShort(pos + 8) & 0xFFFF) != tagId) {
+                        continue;
+                    }
+                    int length = buffer.getShort(pos + 12) & 0xFFFF;
+                    value.limit(pos + RECORD_HEADER + length).position(pos + RECORD_HEADER);
+                    visitor.visit(timestamp, buffer.get(pos + 10) == 1, TagBinaryCodec.typeOf(buffer.get(pos + 11)), value);
+                }
+            }
+        }
+    }
+
+    // Amostras da tag no intervalo, nos mesmos arrays tipados do TagRingBuffer
+    public TagRingBuffer.Samples read(int tagId, S7DataType type, long from, long to) {
+        return read(tagId, type, from, to, Integer.MAX_VALUE);
+    }
+
+    // Como read(), mas devolve null sem copiar nada se o intervalo tiver mais
+    // de limit amostras (a contagem percorre as páginas mapeadas, sem alocar)
+    public TagRingBuffer.Samples read(int tagId, S7DataType type, long from, long to, int limit) {
+        View view = view();
+        long[] total = new long[1];
+        scan(view, tagId, from, to, (timestamp, good, t, value) -> total[0]++);
+        if (total[0] > limit) {
+            return null;
+        }
+
+        TagRingBuffer.Samples samples = new TagRingBuffer.Samples(type, (int) total[0]);
+        int[] i = new int[1];
+        scan(view, tagId, from, to, (timestamp, good, t, value) -> {
+            int n = i[0]++;
+            samples.timestamps[n] = timestamp;
+            samples.good[n] = good;
+            boolean empty = !value.hasRemaining();
+            if (samples.ints != null) {
+                samples.ints[n] = empty ? 0 : t == S7DataType.INTEGER ? value.getShort(value.position()) : value.get(value.position());
+            } else if (samples.floats != null) {
+                samples.floats[n] = empty ? 0f : value.getFloat(value.position());
+            } else if (!empty) {
+                byte[] bytes = new byte[value.remaining()];
+                value.get(value.position(), bytes);
+                samples.objects[n] = t == S7DataType.STRING ? new String(bytes, StandardCharsets.UTF_8) : bytes;
+            }
+        });
+        return samples;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.fileSize;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.clpmonitor.history;
+
+import com.example.clpmonitor.plc.S7DataType;
+
+// Histórico recente de uma tag em arrays primitivos de tamanho fixo: quando
+// enche, a amostra mais antiga é sobrescrita. add() não aloca nada, então
+// pode ser chamado a cada ciclo de leitura.
+//   boolean, byte e integer -> int[] (boolean como 0/1)
+//   float                   -> float[]
+//   string e block          -> Object[] (referência ao valor lido, que não é alterado)
+// As amostras são gravadas em ordem de horário (uma única thread grava cada
+// tag: a do seu CLP), o que permite buscar o intervalo por busca binária.
+public final class TagRingBuffer {
+
+    private final S7DataType type;
+    private final int capacity;
+
+    private final long[] timestamps;
+    private final boolean[] good;
+    private final int[] ints;
+    private final float[] floats;
+    private final Object[] objects;
+
+    // Posição da próxima escrita e quantidade de amostras guardadas
+    private int head;
+    private int count;
+
+    public TagRingBuffer(S7DataType type, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacidade do histórico deve ser maior que zero: " + capacity);
+        }
+        this.type = type;
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.good = new boolean[capacity];
+        this.ints = isInt(type) ? new int[capacity] : null;
+        this.floats = type == S7DataType.FLOAT ? new float[capacity] : null;
+        this.objects = ints == null && floats == null ? new Object[capacity] : null;
+    }
+
+    private static boolean isInt(S7DataType type) {
+        return type == S7DataType.BOOLEAN || type == S7DataType.BYTE || type == S7DataType.INTEGER;
+    }
+
+    public synchronized void add(long timestamp, Object value, boolean valueGood) {
+        timestamps[head] = timestamp;
+        good[head] = valueGood;
+        if (ints != null) {
+            if (value instanceof Boolean bit) {
+                ints[head] = bit ? 1 : 0;
+            } else {
+                ints[head] = value instanceof Number n ? n.intValue() : 0;
+            }
+        } else if (floats != null) {
+            floats[head] = value instanceof Number n ? n.floatValue() : 0f;
+        } else {
+            objects[head] = value;
+        }
+
+        head = (head + 1) % capacity;
+        if (count < capacity) {
+            count++;
+        }
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    // Timestamp da amostra mais antiga guardada (Long.MAX_VALUE se vazio)
+    public synchronized long oldestTimestamp() {
+        return count == 0 ? Long.MAX_VALUE : timestamps[physical(0)];
+    }
+
+    // Amostras com from <= timestamp <= to, da mais antiga para a mais nova
+    public synchronized Samples query(long from, long to) {
+        int first = lowerBound(from);
+        int last = lowerBound(to == Long.MAX_VALUE ? to : to + 1);
+        int n = Math.max(0, last - first);
+
+        Samples samples = new Samples(type, n);
+        for (int i = 0; i < n; i++) {
+            int p = physical(first + i);
+            samples.timestamps[i] = timestamps[p];
+            samples.good[i] = good[p];
+            if (ints != null) {
+                samples.ints[i] = ints[p];
+            } else if (floats != null) {
+                samples.floats[i] = floats[p];
+            } else {
+                samples.objects[i] = objects[p];
+            }
+        }
+        return samples;
+    }
+
+    // Posição lógica (0 = mais antiga) da primeira amostra com timestamp >= t
+    private int lowerBound(long t) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[physical(mid)] < t) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int physical(int logical) {
+        return (head - count + logical + capacity) % capacity;
+    }
+
+    // Cópia de um trecho do histórico, nos mesmos arrays tipados
+    public static final class Samples {
+        final S7DataType type;
+        final long[] timestamps;
+        final boolean[] good;
+        final int[] ints;
+        final float[] floats;
+        final Object[] objects;
+
+        Samples(S7DataType type, int size) {
+            this.type = type;
+            this.timestamps = new long[size];
+            this.good = new boolean[size];
+            this.ints = isInt(type) ? new int[size] : null;
+            this.floats = type == S7DataType.FLOAT ? new float[size] : null;
+            this.objects = ints == null && floats == null ? new Object[size] : null;
+        }
+
+        public S7DataType getType() {
+            return type;
+        }
+
+        public int size() {
+            return timestamps.length;
+        }
+
+        public long[] getTimestamps() {
+            return timestamps;
+        }
+
+        public boolean[] getGood() {
+            return good;
+        }
+
+        // Só um dos três é preenchido, conforme o tipo
+        public int[] getInts() {
+            return ints;
+        }
+
+        public float[] getFloats() {
+            return floats;
+        }
+
+        public Object[] getObjects() {
+            return objects;
+        }
+    }
+}
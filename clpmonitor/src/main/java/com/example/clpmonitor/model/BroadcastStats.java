@@ -0,0 +1,78 @@
+package com.example.clpmonitor.model;
+
+// Estatísticas de envio de um evento SSE (ex: clp1-data).
+//   serialize: tempo para converter o evento em JSON (uma vez por envio)
+//   fanout:    tempo para colocar o mesmo frame na fila de todos os clientes
+//              (a escrita na rede é feita pela thread de cada cliente)
+public class BroadcastStats {
+
+    private final String event;
+
+    private long events;
+    private long failures;
+    private int lastSubscribers;
+    private int lastFrameBytes;
+    private long totalBytes;
+    private long lastSerializeMicros;
+    private long maxSerializeMicros;
+    private long totalSerializeMicros;
+    private long lastFanoutMicros;
+    private long maxFanoutMicros;
+    private long totalFanoutMicros;
+
+    public BroadcastStats(String event) {
+        this.event = event;
+    }
+
+    public synchronized void record(int subscribers, int frameBytes, long serializeMicros, long fanoutMicros,
+            int failed) {
+        events++;
+        failures += failed;
+        lastSubscribers = subscribers;
+        lastFrameBytes = frameBytes;
+        totalBytes += (long) frameBytes * subscribers;
+        lastSerializeMicros = serializeMicros;
+        maxSerializeMicros = Math.max(maxSerializeMicros, serializeMicros);
+        totalSerializeMicros += serializeMicros;
+        lastFanoutMicros = fanoutMicros;
+        maxFanoutMicros = Math.max(maxFanoutMicros, fanoutMicros);
+        totalFanoutMicros += fanoutMicros;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+    public synchronized long getEvents() {
+        return events;
+    }
+    public synchronized long getFailures() {
+        return failures;
+    }
+    public synchronized int getLastSubscribers() {
+        return lastSubscribers;
+    }
+    public synchronized int getLastFrameBytes() {
+        return lastFrameBytes;
+    }
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+    public synchronized long getLastSerializeMicros() {
+        return lastSerializeMicros;
+    }
+    public synchronized long getMaxSerializeMicros() {
+        return maxSerializeMicros;
+    }
+    public synchronized long getAvgSerializeMicros() {
+        return events > 0 ? totalSerializeMicros / events : 0;
+    }
+    public synchronized long getLastFanoutMicros() {
+        return lastFanoutMicros;
+    }
+    public synchronized long getMaxFanoutMicros() {
+        return maxFanoutMicros;
+    }
+    public synchronized long getAvgFanoutMicros() {
+        return events > 0 ? totalFanoutMicros / events : 0;
+    }
+}
@@ -2,9 +2,9 @@ package com.example.clpmonitor.model;
 
 public class ClpData {
     private int clpId;
-    private Object value;
+    private ClpValues value;
 
-    public ClpData(int clpId, Object value) {
+    public ClpData(int clpId, ClpValues value) {
         this.clpId = clpId;
         this.value = value;
     }
@@ -13,11 +13,11 @@ public class ClpData {
         return clpId;
     }
 
-    public Object getValue() {
+    public ClpValues getValue() {
         return value;
     }
 
-    public void setValue(Object value) {
+    public void setValue(ClpValues value) {
         this.value = value;
     }
 }
@@ -0,0 +1,42 @@
+package com.example.clpmonitor.model;
+
+// Atualização de um stream de tags (ex: clp1-data) enviada por SSE.
+//   keyframe = true:  values traz o estado completo do stream
+//   keyframe = false: só as posições que mudaram; indexes[i] recebe values[i]
+// seq é incrementado a cada envio do stream; o cliente ignora deltas até
+// receber o primeiro keyframe.
+public class ClpDelta {
+    private int clpId;
+    private boolean keyframe;
+    private long seq;
+    private int[] indexes;
+    private ClpValues values;
+
+    public ClpDelta(int clpId, boolean keyframe, long seq, int[] indexes, ClpValues values) {
+        this.clpId = clpId;
+        this.keyframe = keyframe;
+        this.seq = seq;
+        this.indexes = indexes;
+        this.values = values;
+    }
+
+    public int getClpId() {
+        return clpId;
+    }
+
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int[] getIndexes() {
+        return indexes;
+    }
+
+    public ClpValues getValues() {
+        return values;
+    }
+}
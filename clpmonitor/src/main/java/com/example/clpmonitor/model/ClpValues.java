@@ -0,0 +1,291 @@
+package com.example.clpmonitor.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+// Valores enviados nos eventos SSE (campo "value" de ClpData e "values" de
+// ClpDelta), guardados em arrays primitivos. O JSON é escrito direto do
+// array, sem criar um Integer/List por posição a cada ciclo de leitura.
+//   bytes:  [0, 1, 2, ...] ou, com base64, "AAECAw..."
+//   shorts: [12, -3, ...]   (tags integer, 16 bits)
+//   floats: [1.5, 20.25, ...]   (NaN e infinito viram null: não existem em JSON)
+//   escalares: 42 / 1.5
+@JsonSerialize(using = ClpValues.Serializer.class)
+public abstract class ClpValues {
+
+    // Quantidade de posições (1 para os escalares)
+    public abstract int size();
+
+    // true se a posição i tem o mesmo valor nos dois conjuntos (do mesmo tipo)
+    public abstract boolean sameAt(ClpValues other, int i);
+
+    // Novo conjunto, do mesmo tipo, só com as posições indexes[0..count-1]
+    public abstract ClpValues select(int[] indexes, int count);
+
+    protected abstract void write(JsonGenerator gen, SerializerProvider provider) throws IOException;
+
+    // O array não é copiado: quem chama não deve alterá-lo depois
+    public static ClpValues ofBytes(byte[] values, boolean base64) {
+        return new Bytes(values, base64);
+    }
+
+    public static ClpValues ofShorts(short[] values) {
+        return new Shorts(values);
+    }
+
+    public static ClpValues ofFloats(float[] values) {
+        return new Floats(values);
+    }
+
+    public static ClpValues ofInt(int value) {
+        return new IntScalar(value);
+    }
+
+    public static ClpValues ofFloat(float value) {
+        return new FloatScalar(value);
+    }
+
+    // Streams com tags de tipos diferentes (sem representação primitiva comum)
+    public static ClpValues ofObjects(List<Object> values) {
+        return new Objs(values);
+    }
+
+    private static final class Bytes extends ClpValues {
+        private final byte[] values;
+        private final boolean base64;
+
+        Bytes(byte[] values, boolean base64) {
+            this.values = values;
+            this.base64 = base64;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public boolean sameAt(ClpValues other, int i) {
+            return values[i] == ((Bytes) other).values[i];
+        }
+
+        @Override
+        public ClpValues select(int[] indexes, int count) {
+            byte[] selected = new byte[count];
+            for (int i = 0; i < count; i++) {
+                selected[i] = values[indexes[i]];
+            }
+            return new Bytes(selected, base64);
+        }
+
+        @Override
+        protected void write(JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (base64) {
+                gen.writeBinary(values);
+                return;
+            }
+            gen.writeStartArray(values, values.length);
+            for (byte b : values) {
+                gen.writeNumber(b);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    private static final class Shorts extends ClpValues {
+        private final short[] values;
+
+        Shorts(short[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public boolean sameAt(ClpValues other, int i) {
+            return values[i] == ((Shorts) other).values[i];
+        }
+
+        @Override
+        public ClpValues select(int[] indexes, int count) {
+            short[] selected = new short[count];
+            for (int i = 0; i < count; i++) {
+                selected[i] = values[indexes[i]];
+            }
+            return new Shorts(selected);
+        }
+
+        @Override
+        protected void write(JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(values, values.length);
+            for (short s : values) {
+                gen.writeNumber(s);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    private static final class Floats extends ClpValues {
+        private final float[] values;
+
+        Floats(float[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public boolean sameAt(ClpValues other, int i) {
+            return Float.compare(values[i], ((Floats) other).values[i]) == 0;
+        }
+
+        @Override
+        public ClpValues select(int[] indexes, int count) {
+            float[] selected = new float[count];
+            for (int i = 0; i < count; i++) {
+                selected[i] = values[indexes[i]];
+            }
+            return new Floats(selected);
+        }
+
+        @Override
+        protected void write(JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(values, values.length);
+            for (float f : values) {
+                writeFloat(gen, f);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    private static final class IntScalar extends ClpValues {
+        private final int value;
+
+        IntScalar(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public boolean sameAt(ClpValues other, int i) {
+            return value == ((IntScalar) other).value;
+        }
+
+        @Override
+        public ClpValues select(int[] indexes, int count) {
+            return this;
+        }
+
+        @Override
+        protected void write(JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static final class FloatScalar extends ClpValues {
+        private final float value;
+
+        FloatScalar(float value) {
+            this.value = value;
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public boolean sameAt(ClpValues other, int i) {
+            return Float.compare(value, ((FloatScalar) other).value) == 0;
+        }
+
+        @Override
+        public ClpValues select(int[] indexes, int count) {
+            return this;
+        }
+
+        @Override
+        protected void write(JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeFloat(gen, value);
+        }
+    }
+
+    private static final class Objs extends ClpValues {
+        private final List<Object> values;
+
+        Objs(List<Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+        @Override
+        public boolean sameAt(ClpValues other, int i) {
+            return Objects.equals(values.get(i), ((Objs) other).values.get(i));
+        }
+
+        @Override
+        public ClpValues select(int[] indexes, int count) {
+            List<Object> selected = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                selected.add(values.get(indexes[i]));
+            }
+            return new Objs(selected);
+        }
+
+        @Override
+        protected void write(JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(values, values.size());
+            for (Object value : values) {
+                if (value instanceof Float f) {
+                    writeFloat(gen, f);
+                } else {
+                    provider.defaultSerializeValue(value, gen);
+                }
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    private static void writeFloat(JsonGenerator gen, float value) throws IOException {
+        if (Float.isFinite(value)) {
+            gen.writeNumber(value);
+        } else {
+            gen.writeNull();
+        }
+    }
+
+    public static class Serializer extends StdSerializer<ClpValues> {
+
+        private static final long serialVersionUID = 1L;
+
+        public Serializer() {
+            super(ClpValues.class);
+        }
+
+        @Override
+        public void serialize(ClpValues value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            value.write(gen, provider);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.clpmonitor.model;
+
+// Situação do historiador (gravação das amostras no banco).
+//   queued:   amostras aguardando gravação, de queueCapacity
+//   written:  amostras gravadas no banco (inclusive as reenviadas do disco)
+//   spilled:  amostras desviadas para o arquivo em disco (banco lento ou fora)
+//   replayed: amostras do arquivo em disco já gravadas no banco
+//   rejected: amostras recusadas pelo banco (erro nos dados), guardadas à parte
+//   flush*:   tempo de cada gravação em lote (ms)
+public class HistorianStats {
+    private boolean enabled;
+    private int queued;
+    private int queueCapacity;
+    private long written;
+    private long flushes;
+    private long failedFlushes;
+    private long spilled;
+    private long replayed;
+    private long rejected;
+    private long spillBytes;
+    private int lastBatchSize;
+    private double lastFlushMs;
+    private double avgFlushMs;
+    private double maxFlushMs;
+    private String lastError;
+
+    public HistorianStats(boolean enabled, int queued, int queueCapacity, long written, long flushes,
+            long failedFlushes, long spilled, long replayed, long rejected, long spillBytes, int lastBatchSize,
+            double lastFlushMs, double avgFlushMs, double maxFlushMs, String lastError) {
+        this.enabled = enabled;
+        this.queued = queued;
+        this.queueCapacity = queueCapacity;
+        this.written = written;
+        this.flushes = flushes;
+        this.failedFlushes = failedFlushes;
+        this.spilled = spilled;
+        this.replayed = replayed;
+        this.rejected = rejected;
+        this.spillBytes = spillBytes;
+        this.lastBatchSize = lastBatchSize;
+        this.lastFlushMs = lastFlushMs;
+        this.avgFlushMs = avgFlushMs;
+        this.maxFlushMs = maxFlushMs;
+        this.lastError = lastError;
+    }
+
+    public static HistorianStats disabled() {
+        return new HistorianStats(false, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, null);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public long getFlushes() {
+        return flushes;
+    }
+
+    public long getFailedFlushes() {
+        return failedFlushes;
+    }
+
+    public long getSpilled() {
+        return spilled;
+    }
+
+    public long getReplayed() {
+        return replayed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getSpillBytes() {
+        return spillBytes;
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public double getLastFlushMs() {
+        return lastFlushMs;
+    }
+
+    public double getAvgFlushMs() {
+        return avgFlushMs;
+    }
+
+    public double getMaxFlushMs() {
+        return maxFlushMs;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
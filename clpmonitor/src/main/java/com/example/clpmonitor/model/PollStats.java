@@ -0,0 +1,80 @@
+package com.example.clpmonitor.model;
+
+// Estatísticas de um ciclo de aquisição (um CLP / grupo de leitura).
+//   overruns: ciclos que levaram mais que o período configurado
+//   skipped:  ciclos descartados porque o anterior atrasou mais de um período
+//   drift:    atraso do início do ciclo em relação ao horário previsto
+public class PollStats {
+
+    private final String name;
+    private final long periodMs;
+
+    private volatile long cycles;
+    private volatile long failures;
+    private volatile long overruns;
+    private volatile long skipped;
+    private volatile long lastDurationMs;
+    private volatile long maxDurationMs;
+    private volatile long lastDriftMs;
+    private volatile long maxDriftMs;
+    private volatile String lastError;
+
+    public PollStats(String name, long periodMs) {
+        this.name = name;
+        this.periodMs = periodMs;
+    }
+
+    // Chamado apenas pela thread do próprio ciclo
+    public void recordCycle(long driftMs, long durationMs, Exception error) {
+        cycles++;
+        lastDriftMs = driftMs;
+        maxDriftMs = Math.max(maxDriftMs, driftMs);
+        lastDurationMs = durationMs;
+        maxDurationMs = Math.max(maxDurationMs, durationMs);
+        if (durationMs > periodMs) {
+            overruns++;
+        }
+        if (error != null) {
+            failures++;
+            lastError = error.getMessage();
+        }
+    }
+
+    public void recordSkipped() {
+        skipped++;
+    }
+
+    public String getName() {
+        return name;
+    }
+    public long getPeriodMs() {
+        return periodMs;
+    }
+    public long getCycles() {
+        return cycles;
+    }
+    public long getFailures() {
+        return failures;
+    }
+    public long getOverruns() {
+        return overruns;
+    }
+    public long getSkipped() {
+        return skipped;
+    }
+    public long getLastDurationMs() {
+        return lastDurationMs;
+    }
+    public long getMaxDurationMs() {
+        return maxDurationMs;
+    }
+    public long getLastDriftMs() {
+        return lastDriftMs;
+    }
+    public long getMaxDriftMs() {
+        return maxDriftMs;
+    }
+    public String getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.clpmonitor.model;
+
+// Estado da fila de envio de um cliente SSE.
+//   dropped:   frames descartados porque a fila estava cheia
+//   coalesced: frames substituídos por um mais recente do mesmo evento
+public class SseClientStats {
+
+    private final long id;
+    private final int queueDepth;
+    private final int maxQueueDepth;
+    private final long sent;
+    private final long dropped;
+    private final long coalesced;
+
+    public SseClientStats(long id, int queueDepth, int maxQueueDepth, long sent, long dropped, long coalesced) {
+        this.id = id;
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.sent = sent;
+        this.dropped = dropped;
+        this.coalesced = coalesced;
+    }
+
+    public long getId() {
+        return id;
+    }
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+    public long getSent() {
+        return sent;
+    }
+    public long getDropped() {
+        return dropped;
+    }
+    public long getCoalesced() {
+        return coalesced;
+    }
+}
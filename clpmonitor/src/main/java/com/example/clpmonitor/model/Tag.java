@@ -0,0 +1,116 @@
+package com.example.clpmonitor.model;
+
+import java.util.Arrays;
+
+import com.example.clpmonitor.plc.S7Address;
+
+// Variável lida de um CLP. Os valores lidos ficam no TagValueStore.
+//   id:        número sequencial da tag no cadastro (usado nos frames binários)
+//   plc:       nome do CLP (clp.plcs.<nome>)
+//   stream:    evento SSE que publica a variável (ex: "clp1" -> clp1-data)
+//   scanClass: classe de varredura que define o período de leitura
+//   address:   endereço já interpretado (ex: DB9.DBW6)
+//   deadband:  variação mínima para publicar um inteiro/float; absoluta ou,
+//              com deadbandPercent, em % do último valor publicado
+public class Tag {
+
+    private final int id;
+    private final String name;
+    private final String plc;
+    private final String stream;
+    private final String scanClass;
+
+    private final S7Address address;
+    private final double deadband;
+    private final boolean deadbandPercent;
+
+    // Último valor enviado aos clientes (detecção de mudança)
+    private Object publishedValue;
+    private boolean publishedGood;
+    private boolean published;
+
+    public Tag(int id, String name, String plc, String stream, String scanClass, S7Address address) {
+        this(id, name, plc, stream, scanClass, address, 0, false);
+    }
+
+    public Tag(int id, String name, String plc, String stream, String scanClass, S7Address address,
+            double deadband, boolean deadbandPercent) {
+        this.id = id;
+        this.name = name;
+        this.plc = plc;
+        this.stream = stream;
+        this.scanClass = scanClass;
+        this.address = address;
+        this.deadband = deadband;
+        this.deadbandPercent = deadbandPercent;
+    }
+
+    // Verifica se o valor atual deve ser publicado: bytes, bits e blocos por
+    // comparação exata; inteiros e floats só quando saem da banda morta. Se
+    // mudou, o valor atual passa a ser a referência da próxima comparação.
+    public synchronized boolean checkChanged(Object current, boolean good) {
+        boolean changed = !published
+                || good != publishedGood
+                || differs(publishedValue, current);
+
+        if (changed) {
+            publishedValue = current;
+            publishedGood = good;
+            published = true;
+        }
+        return changed;
+    }
+
+    // Faz a próxima checkChanged() publicar o valor mesmo sem mudança
+    public synchronized void invalidatePublished() {
+        published = false;
+    }
+
+    private boolean differs(Object previous, Object current) {
+        if (previous == null || current == null) {
+            return previous != current;
+        }
+        if (previous instanceof byte[] a && current instanceof byte[] b) {
+            return !Arrays.equals(a, b);
+        }
+        if ((previous instanceof Integer || previous instanceof Float)
+                && (current instanceof Integer || current instanceof Float)) {
+            double last = ((Number) previous).doubleValue();
+            double value = ((Number) current).doubleValue();
+            // NaN e infinito não têm distância: publicados só quando o valor
+            // muda (NaN -> NaN não é mudança, NaN -> número é)
+            if (!Double.isFinite(last) || !Double.isFinite(value)) {
+                return Double.compare(last, value) != 0;
+            }
+            double delta = Math.abs(value - last);
+            double limit = deadbandPercent ? Math.abs(last) * deadband / 100.0 : deadband;
+            return delta > limit;
+        }
+        return !previous.equals(current);
+    }
+
+    public int getId() {
+        return id;
+    }
+    public String getName() {
+        return name;
+    }
+    public String getPlc() {
+        return plc;
+    }
+    public String getStream() {
+        return stream;
+    }
+    public String getScanClass() {
+        return scanClass;
+    }
+    public S7Address getAddress() {
+        return address;
+    }
+    public double getDeadband() {
+        return deadband;
+    }
+    public boolean isDeadbandPercent() {
+        return deadbandPercent;
+    }
+}
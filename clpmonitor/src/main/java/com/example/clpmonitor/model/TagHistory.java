@@ -0,0 +1,54 @@
+package com.example.clpmonitor.model;
+
+// Histórico de uma tag, como devolvido por GET /api/tags/{name}/history.
+// Arrays paralelos: a amostra i tem timestamps[i], values[i] e good[i].
+//   values: números (integer, byte, float), true/false (boolean), textos
+//           (string) ou listas de bytes (block)
+public class TagHistory {
+    private String name;
+    private String type;
+    private long from;
+    private long to;
+    private long[] timestamps;
+    private Object values;
+    private boolean[] good;
+
+    public TagHistory(String name, String type, long from, long to, long[] timestamps, Object values,
+            boolean[] good) {
+        this.name = name;
+        this.type = type;
+        this.from = from;
+        this.to = to;
+        this.timestamps = timestamps;
+        this.values = values;
+        this.good = good;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public Object getValues() {
+        return values;
+    }
+
+    public boolean[] getGood() {
+        return good;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.clpmonitor.model;
+
+// Histórico agregado de uma tag numérica (GET /api/tags/{name}/history?mode=buckets).
+// Um elemento por intervalo com amostras: starts[i] é o início do intervalo
+// (duração bucketMs) e min/max/avg/last/count os agregados das amostras nele.
+//   source: de onde vieram os dados ("rollup-60000" = agregados de 1 min, "raw" = amostras)
+public class TagHistoryBuckets {
+    private String name;
+    private String type;
+    private long from;
+    private long to;
+    private long bucketMs;
+    private String source;
+    private long[] starts;
+    private double[] min;
+    private double[] max;
+    private double[] avg;
+    private double[] last;
+    private long[] count;
+
+    public TagHistoryBuckets(String name, String type, long from, long to, long bucketMs, String source,
+            long[] starts, double[] min, double[] max, double[] avg, double[] last, long[] count) {
+        this.name = name;
+        this.type = type;
+        this.from = from;
+        this.to = to;
+        this.bucketMs = bucketMs;
+        this.source = source;
+        this.starts = starts;
+        this.min = min;
+        this.max = max;
+        this.avg = avg;
+        this.last = last;
+        this.count = count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public long getBucketMs() {
+        return bucketMs;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long[] getStarts() {
+        return starts;
+    }
+
+    public double[] getMin() {
+        return min;
+    }
+
+    public double[] getMax() {
+        return max;
+    }
+
+    public double[] getAvg() {
+        return avg;
+    }
+
+    public double[] getLast() {
+        return last;
+    }
+
+    public long[] getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.clpmonitor.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// Últimos valores de todas as tags em um instante, indexados pelo id da tag.
+// É imutável: cada leitura de grupo gera um novo snapshot (ver TagValueStore),
+// então quem o obtém vê valores, qualidades e horários coerentes entre si,
+// sem travas e sem copiar nada.
+//   sourceTimestamp:  quando a leitura foi pedida ao CLP (o protocolo S7 não
+//                     informa o horário da amostra, então é a melhor referência)
+//   receiveTimestamp: quando a resposta chegou; 0 = tag ainda não lida
+//   changeVersion:    versão do snapshot em que o valor ou a qualidade da tag
+//                     mudou pela última vez (base do ETag da API REST)
+// Os valores (inclusive os byte[] dos blocos) não devem ser alterados por quem lê.
+public final class TagSnapshot {
+
+    private final long version;
+    private final long lastChangeVersion;
+    private final Object[] values;
+    private final boolean[] good;
+    private final long[] sourceTimestamps;
+    private final long[] receiveTimestamps;
+    private final long[] changeVersions;
+
+    public TagSnapshot(int size) {
+        this(0, 0, new Object[size], new boolean[size], new long[size], new long[size], new long[size]);
+    }
+
+    private TagSnapshot(long version, long lastChangeVersion, Object[] values, boolean[] good,
+            long[] sourceTimestamps, long[] receiveTimestamps, long[] changeVersions) {
+        this.version = version;
+        this.lastChangeVersion = lastChangeVersion;
+        this.values = values;
+        this.good = good;
+        this.sourceTimestamps = sourceTimestamps;
+        this.receiveTimestamps = receiveTimestamps;
+        this.changeVersions = changeVersions;
+    }
+
+    // Novo snapshot com o resultado da leitura das tags ids[i]. Uma leitura
+    // com falha (readGood[i] = false) mantém o último valor bom.
+    public TagSnapshot with(int[] ids, Object[] readValues, boolean[] readGood, long sourceTimestamp,
+            long receiveTimestamp) {
+        Object[] newValues = values.clone();
+        boolean[] newGood = good.clone();
+        long[] newSource = sourceTimestamps.clone();
+        long[] newReceive = receiveTimestamps.clone();
+        long[] newChange = changeVersions.clone();
+        long newVersion = version + 1;
+        long newLastChange = lastChangeVersion;
+
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            if (readGood[i] != good[id] || (readGood[i] && !sameValue(values[id], readValues[i]))) {
+                newChange[id] = newVersion;
+                newLastChange = newVersion;
+            }
+            if (readGood[i]) {
+                newValues[id] = readValues[i];
+            }
+            newGood[id] = readGood[i];
+            newSource[id] = sourceTimestamp;
+            newReceive[id] = receiveTimestamp;
+        }
+        return new TagSnapshot(newVersion, newLastChange, newValues, newGood, newSource, newReceive, newChange);
+    }
+
+    // Novo snapshot com as tags ids[i] marcadas como ruins (falha de
+    // comunicação com o CLP): mantém os últimos valores e horários
+    public TagSnapshot withFailure(int[] ids) {
+        boolean[] newGood = good.clone();
+        long[] newChange = changeVersions.clone();
+        long newVersion = version + 1;
+        long newLastChange = lastChangeVersion;
+
+        for (int id : ids) {
+            if (good[id]) {
+                newGood[id] = false;
+                newChange[id] = newVersion;
+                newLastChange = newVersion;
+            }
+        }
+        return new TagSnapshot(newVersion, newLastChange, values, newGood, sourceTimestamps, receiveTimestamps,
+                newChange);
+    }
+
+    private static boolean sameValue(Object a, Object b) {
+        if (a instanceof byte[] x && b instanceof byte[] y) {
+            return Arrays.equals(x, y);
+        }
+        return Objects.equals(a, b);
+    }
+
+    // Incrementado a cada leitura publicada
+    public long getVersion() {
+        return version;
+    }
+
+    // Versão da última mudança de valor ou qualidade de qualquer tag
+    public long getLastChangeVersion() {
+        return lastChangeVersion;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public Object getValue(int id) {
+        return values[id];
+    }
+
+    public boolean isGood(int id) {
+        return good[id];
+    }
+
+    public long getSourceTimestamp(int id) {
+        return sourceTimestamps[id];
+    }
+
+    public long getReceiveTimestamp(int id) {
+        return receiveTimestamps[id];
+    }
+
+    public long getChangeVersion(int id) {
+        return changeVersions[id];
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.clpmonitor.model;
+
+// Valor atual de uma tag, como devolvido por GET /api/tags.
+//   value: número, booleano ou texto; blocos como lista de bytes; null se a
+//          tag ainda não foi lida com sucesso
+//   good:  false se a última leitura falhou (value é o último valor bom)
+public class TagValue {
+    private int id;
+    private String name;
+    private String plc;
+    private String type;
+    private Object value;
+    private boolean good;
+    private long sourceTimestamp;
+    private long receiveTimestamp;
+
+    public TagValue(Tag tag, TagSnapshot snapshot) {
+        this.id = tag.getId();
+        this.name = tag.getName();
+        this.plc = tag.getPlc();
+        this.type = tag.getAddress().getType().name().toLowerCase();
+        Object current = snapshot.getValue(id);
+        this.value = current instanceof byte[] block ? ClpValues.ofBytes(block, false) : current;
+        this.good = snapshot.isGood(id);
+        this.sourceTimestamp = snapshot.getSourceTimestamp(id);
+        this.receiveTimestamp = snapshot.getReceiveTimestamp(id);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPlc() {
+        return plc;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public boolean isGood() {
+        return good;
+    }
+
+    public long getSourceTimestamp() {
+        return sourceTimestamp;
+    }
+
+    public long getReceiveTimestamp() {
+        return receiveTimestamp;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.clpmonitor.plc;
+
+import java.io.IOException;
+
+// Falha na conexão com o CLP (resposta fora de sequência, telegrama
+// inválido, conexão perdida): a sessão não pode mais ser usada. Erros de
+// item ou jobs recusados pelo CLP não são falhas de conexão.
+public class PlcConnectionException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PlcConnectionException(String message) {
+        super(message);
+    }
+
+    public PlcConnectionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
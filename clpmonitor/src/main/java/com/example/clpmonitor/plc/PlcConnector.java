@@ -1,10 +1,15 @@
 package com.example.clpmonitor.plc;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public class PlcConnector {
     private String ipAddress;
     private int port;
     S7Client client;
-    boolean connected = false;
+    volatile boolean connected = false;
 
     public PlcConnector(String ipAddress, int port) {
         this.ipAddress = ipAddress;
@@ -14,6 +19,16 @@ public class PlcConnector {
 
     }
 
+    // Usa o transporte não bloqueante (NIO): a conexão é multiplexada pelas
+    // threads de seletor do transporte, sem uma thread bloqueada por CLP.
+    public PlcConnector(String ipAddress, int port, S7NioTransport transport) {
+        this.ipAddress = ipAddress;
+        this.port = port;
+
+        client = new S7NioClient(this.ipAddress, this.port, transport);
+
+    }
+
     // --------------------------------------------------------------------------------------------
     // Funções para iniciar e encerrar conexão com o CLP
     // --------------------------------------------------------------------------------------------
@@ -37,14 +52,56 @@ public class PlcConnector {
         }
     }
 
+    public CompletableFuture<Void> connectAsync() {
+        return client.connectAsync().thenRun(() -> connected = true);
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    // Verifica se a sessão com o CLP continua respondendo (keepalive)
+    public boolean ping() {
+        return connected && client.sendPing();
+    }
+
     public void disconnect() throws Exception {
         try {
+            connected = false;
             client.disconnect();
         } catch (Exception e) {
             throw new Exception("Erro ao tentar desconectar do CLP" + e.getMessage(), e);
         }
     }
 
+    // Tamanho de PDU e quantidade de jobs simultâneos negociados no connect()
+    public int getPduLength() {
+        return client.getPduLength();
+    }
+
+    public int getMaxAmqCalling() {
+        return client.getMaxAmqCalling();
+    }
+
+    // Ativa o envio de vários jobs simultâneos na mesma conexão TCP (até o
+    // Max AmQ negociado). Indicado para CLPs remotos com latência alta.
+    public void enablePipelining() throws Exception {
+
+        if (!connected) {
+            throw new Exception("Conexão não estabelecida. Chame o método connect() primeiro.");
+        }
+
+        client.startPipelining();
+    }
+
     // --------------------------------------------------------------------------------------------
     // Funções para leituras de TAGs
     // --------------------------------------------------------------------------------------------
@@ -60,16 +117,46 @@ public class PlcConnector {
 
     }
 
+    // Blocos maiores que a área útil da PDU negociada são lidos em partes e
+    // remontados em um único array.
     public byte[] readBlock(int db, int startAdd, int size) throws Exception {
 
         if (!connected) {
             throw new Exception("Conexão não estabelecida. Chame o método connect() primeiro.");
         }
 
-        byte[] data = (byte[]) client.sendReadRequest(db, startAdd, 0, size, "block");
+        return S7Client.await(readBlockAsync(db, startAdd, size));
 
-        return data;
+    }
+
+    // No modo pipeline todas as partes do bloco são enviadas de uma vez, até o
+    // limite de jobs simultâneos negociado com o CLP.
+    public CompletableFuture<byte[]> readBlockAsync(int db, int startAdd, int size) {
+
+        if (!connected) {
+            return CompletableFuture.failedFuture(
+                    new Exception("Conexão não estabelecida. Chame o método connect() primeiro."));
+        }
+
+        int maxChunk = client.getMaxReadSize();
+        if (size <= maxChunk) {
+            return client.sendReadRequestAsync(db, startAdd, 0, size, "block").thenApply(part -> (byte[]) part);
+        }
+
+        byte[] data = new byte[size];
+        List<CompletableFuture<Object>> parts = new ArrayList<>();
+        for (int pos = 0; pos < size; pos += maxChunk) {
+            int offset = pos;
+            int chunk = Math.min(maxChunk, size - pos);
+            parts.add(client.sendReadRequestAsync(db, startAdd + pos, 0, chunk, "block")
+                    .whenComplete((part, error) -> {
+                        if (part != null) {
+                            System.arraycopy((byte[]) part, 0, data, offset, chunk);
+                        }
+                    }));
+        }
 
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(done -> data);
     }
 
     public float readFloat(int db, int startAdd) throws Exception {
@@ -116,6 +203,51 @@ public class PlcConnector {
         return data;
     }
 
+    // Lê vários endereços com o menor número possível de requisições ao CLP.
+    // Os valores e códigos de retorno ficam disponíveis em cada item.
+    public List<S7ReadItem> readMulti(List<S7ReadItem> items) throws Exception {
+
+        if (!connected) {
+            throw new Exception("Conexão não estabelecida. Chame o método connect() primeiro.");
+        }
+
+        return client.sendMultiReadRequest(items);
+    }
+
+    public CompletableFuture<List<S7ReadItem>> readMultiAsync(List<S7ReadItem> items) {
+
+        if (!connected) {
+            return CompletableFuture.failedFuture(
+                    new Exception("Conexão não estabelecida. Chame o método connect() primeiro."));
+        }
+
+        return client.sendMultiReadRequestAsync(items);
+    }
+
+    // Executa um plano de leitura pré-compilado (ver S7ReadPlan)
+    public S7ReadPlan readPlan(S7ReadPlan plan) throws Exception {
+
+        if (!connected) {
+            throw new Exception("Conexão não estabelecida. Chame o método connect() primeiro.");
+        }
+
+        try {
+            return S7Client.await(plan.executeAsync(client));
+        } catch (Exception e) {
+            throw new Exception("Erro ao executar o plano de leitura: " + e.getMessage(), e);
+        }
+    }
+
+    public CompletableFuture<S7ReadPlan> readPlanAsync(S7ReadPlan plan) {
+
+        if (!connected) {
+            return CompletableFuture.failedFuture(
+                    new Exception("Conexão não estabelecida. Chame o método connect() primeiro."));
+        }
+
+        return plan.executeAsync(client);
+    }
+
     // --------------------------------------------------------------------------------------------
     // Funções para escritas de TAGs
     // --------------------------------------------------------------------------------------------
@@ -125,9 +257,29 @@ public class PlcConnector {
 
     }
 
+    // Blocos maiores que a área útil da PDU negociada são escritos em partes.
+    // Retorna false se alguma das partes for recusada pelo CLP.
     public boolean writeBlock(int db, int startAdd, int size, byte[] block) throws Exception {
 
-        return client.sendWriteRequest(db, startAdd, 0, size, "block", block);
+        return S7Client.await(writeBlockAsync(db, startAdd, size, block));
+    }
+
+    public CompletableFuture<Boolean> writeBlockAsync(int db, int startAdd, int size, byte[] block) {
+
+        int maxChunk = client.getMaxWriteSize();
+        if (size <= maxChunk) {
+            return client.sendWriteRequestAsync(db, startAdd, 0, size, "block", block);
+        }
+
+        List<CompletableFuture<Boolean>> parts = new ArrayList<>();
+        for (int pos = 0; pos < size; pos += maxChunk) {
+            int chunk = Math.min(maxChunk, size - pos);
+            byte[] part = Arrays.copyOfRange(block, pos, pos + chunk);
+            parts.add(client.sendWriteRequestAsync(db, startAdd + pos, 0, chunk, "block", part));
+        }
+
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> parts.stream().allMatch(CompletableFuture::join));
     }
 
     public boolean writeFloat(int db, int startAdd, float value) throws Exception {
@@ -0,0 +1,131 @@
+package com.example.clpmonitor.plc;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Endereço de uma variável em um DB, no formato simbólico do STEP 7:
+//   DB9.DBX10.3    bit 3 do byte 10          -> BOOLEAN
+//   DB9.DBB68      byte 68                   -> BYTE
+//   DB9.DBB68[28]  28 bytes a partir do 68   -> BLOCK
+//   DB9.DBW6       word (inteiro) no byte 6  -> INTEGER
+//   DB9.DBD12      double word no byte 12    -> FLOAT
+// O tipo pode ser trocado na configuração (ex: DBB68[20] como "string").
+public final class S7Address {
+
+    private static final Pattern PATTERN = Pattern
+            .compile("DB(\\d+)\\.DB([XBWD])(\\d+)(?:\\.([0-7]))?(?:\\[(\\d+)\\])?", Pattern.CASE_INSENSITIVE);
+
+    private final int db;
+    private final int offset;
+    private final int bit;
+    private final int size;
+    private final S7DataType type;
+
+    public S7Address(int db, int offset, int bit, int size, S7DataType type) {
+        this.db = db;
+        this.offset = offset;
+        this.bit = bit;
+        this.size = size;
+        this.type = type;
+    }
+
+    public static S7Address parse(String address) {
+        return parse(address, null);
+    }
+
+    // typeName (opcional) substitui o tipo deduzido do endereço
+    public static S7Address parse(String address, String typeName) {
+        Matcher matcher = PATTERN.matcher(address.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Endereço inválido: " + address
+                    + " (esperado ex: DB9.DBW6, DB9.DBX10.3, DB9.DBB68[28])");
+        }
+
+        int db = Integer.parseInt(matcher.group(1));
+        char kind = Character.toUpperCase(matcher.group(2).charAt(0));
+        int offset = Integer.parseInt(matcher.group(3));
+        String bitText = matcher.group(4);
+        String countText = matcher.group(5);
+
+        if ((kind == 'X') != (bitText != null)) {
+            throw new IllegalArgumentException("Endereço inválido: " + address
+                    + " (o número do bit só é usado com DBX, ex: DB9.DBX10.3)");
+        }
+        if (countText != null && kind != 'B') {
+            throw new IllegalArgumentException("Endereço inválido: " + address
+                    + " (a quantidade [n] só é usada com DBB, ex: DB9.DBB68[28])");
+        }
+
+        int bit = bitText != null ? Integer.parseInt(bitText) : 0;
+        int size;
+        S7DataType type;
+        switch (kind) {
+            case 'X' -> {
+                size = 1;
+                type = S7DataType.BOOLEAN;
+            }
+            case 'B' -> {
+                size = countText != null ? Integer.parseInt(countText) : 1;
+                type = countText != null ? S7DataType.BLOCK : S7DataType.BYTE;
+            }
+            case 'W' -> {
+                size = 2;
+                type = S7DataType.INTEGER;
+            }
+            default -> {
+                size = 4;
+                type = S7DataType.FLOAT;
+            }
+        }
+
+        if (size < 1) {
+            throw new IllegalArgumentException("Endereço inválido: " + address + " (quantidade deve ser maior que zero)");
+        }
+        if (typeName != null && !typeName.isBlank()) {
+            type = S7DataType.fromName(typeName);
+        }
+
+        return new S7Address(db, offset, bit, size, type);
+    }
+
+    // Transport size do item: BIT (0x01) para booleanos, BYTE (0x02) para o resto
+    public byte getTransportSize() {
+        return type == S7DataType.BOOLEAN ? (byte) 0x01 : (byte) 0x02;
+    }
+
+    // Endereço em bits: byte << 3 | bit
+    public int getStartAddress() {
+        return type == S7DataType.BOOLEAN ? (offset << 3) | (bit & 0x07) : offset << 3;
+    }
+
+    public int getDb() {
+        return db;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getBit() {
+        return bit;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public S7DataType getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case BOOLEAN -> "DB" + db + ".DBX" + offset + "." + bit;
+            case INTEGER -> "DB" + db + ".DBW" + offset;
+            case FLOAT -> "DB" + db + ".DBD" + offset;
+            case BYTE -> "DB" + db + ".DBB" + offset;
+            default -> "DB" + db + ".DBB" + offset + "[" + size + "]";
+        };
+    }
+}
@@ -4,11 +4,22 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class S7Client {
 
@@ -17,18 +28,68 @@ public class S7Client {
     private Socket socket;
     private OutputStream outputStream;
     private InputStream inputStream;
+    private TpktFrameReader frameReader;
+
+    // Tempo máximo de espera por uma resposta do CLP
+    protected static final int READ_TIMEOUT_MS = 3000;
+
+    // Tempo máximo para abrir a conexão TCP (CLP desligado ou fora da rede)
+    protected static final int CONNECT_TIMEOUT_MS = 3000;
+
+    // Quantidade máxima de itens aceita pelo CLP em uma única requisição Read Var
+    private static final int MAX_ITEMS_PER_REQUEST = 20;
+
+    // Tamanho de PDU solicitado no Setup Communication
+    private static final int REQUESTED_PDU_LENGTH = 960;
+
+    // Cabeçalhos de uma leitura (resposta) e de uma escrita (requisição) de um
+    // único item; o que sobra da PDU é a área útil de dados de cada job
+    static final int READ_OVERHEAD = 18;
+    private static final int WRITE_OVERHEAD = 35;
+
+    // Valores negociados com o CLP na resposta do Setup Communication.
+    // Até a negociação vale o tamanho de PDU solicitado.
+    private int pduLength = REQUESTED_PDU_LENGTH;
+    private int maxAmqCalling = 1;
+    private int maxAmqCalled = 1;
+
+    // Quantidade de jobs simultâneos solicitada no Setup Communication
+    private static final int REQUESTED_MAX_AMQ = 8;
+
+    // Referência de PDU: cada job recebe um número próprio, devolvido pelo CLP
+    // na resposta, para que as respostas possam ser associadas às requisições
+    private final AtomicInteger pduReferenceSequence = new AtomicInteger();
+
+    // Modo pipeline: jobs em andamento indexados pela referência de PDU
+    private volatile boolean pipelined = false;
+    private Semaphore inFlight;
+    private final Map<Integer, CompletableFuture<byte[]>> pendingJobs = new ConcurrentHashMap<>();
+    private Thread responseReader;
 
     public S7Client(String plcIpAddress, int port) {
         this.plcIpAddress = plcIpAddress;
         this.port = port;
     }
 
+    public String getPlcIpAddress() {
+        return plcIpAddress;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
     public boolean connect() throws Exception {
         try {
             InetAddress address = InetAddress.getByName(plcIpAddress);
-            socket = new Socket(address, port);
+            socket = new Socket();
+            socket.connect(new InetSocketAddress(address, port), CONNECT_TIMEOUT_MS);
+            // Os telegramas são pequenos: envia sem esperar o algoritmo de Nagle
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(READ_TIMEOUT_MS);
             outputStream = socket.getOutputStream();
             inputStream = socket.getInputStream();
+            frameReader = new TpktFrameReader(inputStream);
             System.out.println("Conexão estabelecida com o CLP: " + plcIpAddress + ":" + port);
             return true;
         } catch (IOException e) {
@@ -36,7 +97,7 @@ public class S7Client {
         }
     }
 
-    private byte[] createConnectionRequest() {
+    protected byte[] createConnectionRequest() {
         return new byte[] {
                 // TPKT Header
                 0x03, 0x00, 0x00, 0x16,
@@ -47,7 +108,7 @@ public class S7Client {
         };
     }
 
-    private byte[] createSetupCommunication() {
+    protected byte[] createSetupCommunication() {
         return new byte[] {
                 // TPKT Header
                 0x03, 0x00, 0x00, 0x19,
@@ -57,11 +118,45 @@ public class S7Client {
 
                 // S7 Header
                 0x32, 0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x08, 0x00, 0x00,
-                // Parameters
-                (byte) 0xF0, 0x00, 0x00, 0x01, 0x00, 0x01, (byte) 0x03, (byte) 0xC0
+                // Parameters: Function, Reserved, Max AmQ (calling), Max AmQ (called), PDU length
+                (byte) 0xF0, 0x00, 0x00, REQUESTED_MAX_AMQ, 0x00, REQUESTED_MAX_AMQ,
+                (byte) ((REQUESTED_PDU_LENGTH >> 8) & 0xFF), (byte) (REQUESTED_PDU_LENGTH & 0xFF)
         };
     }
 
+    // Leitura de 1 byte da área de memória M (MB0), usada apenas para verificar
+    // se a sessão continua viva
+    protected byte[] createPingRequest() {
+        return new byte[] {
+                // TPKT + ISO 873/X.224 COTP Header
+                0x03, 0x00, 0x00, (byte) (31), 0x02, (byte) 0xF0, (byte) 0x80,
+                // S7 Header
+                0x32, 0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x0E, 0x00, 0x00,
+                // Parameter: Function Code, Item Count
+                0x04, 0x01,
+                // Item Header: Variable Specification, Length of Following, Syntax ID
+                0x12, 0x0A, 0x10,
+                // Transport Size (BYTE), Length (1), DB Number (0), Area Type (Flags - M)
+                0x02, 0x00, 0x01, 0x00, 0x00, (byte) 0x83,
+                // Address: MB0
+                0x00, 0x00, 0x00
+        };
+    }
+
+    // Keepalive: qualquer resposta S7 válida indica sessão ativa, mesmo que o
+    // CLP recuse o item ou o job (ex.: área M protegida). Só falhas de conexão
+    // (E/S, telegrama inválido, tempo esgotado) indicam sessão perdida.
+    public boolean sendPing() {
+        try {
+            exchange(createPingRequest());
+            return true;
+        } catch (IOException | TimeoutException e) {
+            return false;
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
     public byte[] createReadRequest(int db, int offset, int bit, int size, String type) {
 
         byte tpSize = 0x00;
@@ -70,7 +165,7 @@ public class S7Client {
         if ((size == 1) & (type.toLowerCase().equals("boolean"))) {
 
             tpSize = 0x01;
-            startAddress = (offset << 3) & 0xFFF8 | (bit & 0x07);
+            startAddress = (offset << 3) | (bit & 0x07);
         } else {
 
             tpSize = 0x02;
@@ -89,11 +184,80 @@ public class S7Client {
                 // Transport Size, Parameter length, DB Number (6), Area Type (DB)
                 tpSize, (byte) ((size >> 8) & 0xFF), (byte) (size & 0xFF),
                 (byte) ((db >> 8) & 0xFF), (byte) (db & 0xFF), (byte) 0x84,
-                // Address: Bit Address, Byte Offset (16), Reserved
-                0x00, (byte) ((startAddress >> 8) & 0xFF), (byte) (startAddress & 0xFF)
+                // Address: endereço em bits (3 bytes), offsets acima de 8191 usam o byte alto
+                (byte) ((startAddress >> 16) & 0xFF), (byte) ((startAddress >> 8) & 0xFF), (byte) (startAddress & 0xFF)
         };
     }
 
+    // Monta uma requisição Read Var com vários itens (endereços) em um único job.
+    // Cada item ocupa 12 bytes no campo de parâmetros.
+    public byte[] createMultiReadRequest(List<S7ReadItem> items) {
+
+        List<S7Address> addresses = new ArrayList<>(items.size());
+        for (S7ReadItem item : items) {
+            addresses.add(item.getAddress());
+        }
+        return createReadVarRequest(addresses, 0, addresses.size());
+    }
+
+    // Requisição Read Var com os endereços de from (inclusive) até to (exclusive).
+    // Só depende dos endereços, por isso pode ser montada uma vez e reaproveitada
+    // (ver S7ReadPlan); a referência de PDU é gravada no envio.
+    public static byte[] createReadVarRequest(List<S7Address> addresses, int from, int to) {
+
+        int count = to - from;
+        int paramLength = 2 + (12 * count);
+        int lengthPacket = 17 + paramLength;
+
+        ByteBuffer buffer = ByteBuffer.allocate(lengthPacket);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        // TPKT Header
+        buffer.put((byte) 0x03); // Version
+        buffer.put((byte) 0x00); // Reserved
+        buffer.putShort((short) lengthPacket); // Length
+
+        // ISO 873/X.224 COTP Header
+        buffer.put((byte) 0x02); // Length
+        buffer.put((byte) 0xF0); // PDU Type: DT Data
+        buffer.put((byte) 0x80); // Destination reference
+
+        // S7 Header
+        buffer.put((byte) 0x32); // Protocol ID
+        buffer.put((byte) 0x01); // ROSCTR: Job (1)
+        buffer.putShort((short) 0x0000); // Redundancy Indentification (Reserved): 0x0000
+        buffer.putShort((short) 0x0000); // Protocol Data Unit Reference: 0
+        buffer.putShort((short) paramLength); // Parameter length
+        buffer.putShort((short) 0x0000); // Data length
+
+        // Parameter: Function Code, Item Count
+        buffer.put((byte) 0x04); // Function: Read Var (0x04)
+        buffer.put((byte) count); // Item count
+
+        for (int i = from; i < to; i++) {
+            S7Address address = addresses.get(i);
+            int startAddress = address.getStartAddress();
+
+            // Item Header: Variable Specification, Length of Following, Syntax ID
+            buffer.put((byte) 0x12);
+            buffer.put((byte) 0x0A);
+            buffer.put((byte) 0x10);
+
+            // Transport Size, Length, DB Number, Area Type (DB)
+            buffer.put(address.getTransportSize());
+            buffer.putShort((short) address.getSize());
+            buffer.putShort((short) address.getDb());
+            buffer.put((byte) 0x84);
+
+            // Address: Bit Address, Byte Offset
+            buffer.put((byte) ((startAddress >> 16) & 0xFF));
+            buffer.put((byte) ((startAddress >> 8) & 0xFF));
+            buffer.put((byte) (startAddress & 0xFF));
+        }
+
+        return buffer.array();
+    }
+
     public byte[] createWriteRequest(int db, int offset, int bit, int size, String type, Object value) {
 
         int lenghtTag;
@@ -111,7 +275,7 @@ public class S7Client {
 
         if ((size == 1) & (type.toLowerCase().equals("boolean"))) {
             tpSize = 0x01;
-            startAddress = (offset << 3) & 0xFFF8 | (bit & 0x07);
+            startAddress = (offset << 3) | (bit & 0x07);
         } else {
             tpSize = 0x02;
             startAddress = offset << 3;
@@ -245,9 +409,11 @@ public class S7Client {
             outputStream.write(packet);
             outputStream.flush();
 
-            // Leitura da resposta
-            byte[] response = new byte[1024];
-            int length = inputStream.read(response);
+            // Leitura da resposta: espera um COTP Connection Confirm (0xD0)
+            byte[] response = frameReader.readFrame();
+            if ((response[5] & 0xFF) != 0xD0) {
+                throw new Exception(String.format("Conexão COTP recusada (PDU type 0x%02X).", response[5]));
+            }
 
         } catch (Exception e) {
             throw new Exception("Erro ao enviar a solicitação de conexão: " + e.getMessage(), e);
@@ -255,140 +421,456 @@ public class S7Client {
     }
 
     public void sendSetupCommunication() throws Exception {
-        if (outputStream == null) {
-            throw new Exception("Conexão não estabelecida. Chame o método connect() primeiro.");
-        }
 
         byte[] packet = createSetupCommunication();
 
         try {
-            outputStream.flush();
-            outputStream.write(packet);
-            outputStream.flush();
+            applySetupResponse(exchange(packet));
+        } catch (Exception e) {
+            throw new Exception("Erro ao enviar o pacote de configuração: " + e.getMessage(), e);
+        }
+    }
+
+    // Guarda os parâmetros negociados: Max AmQ (calling), Max AmQ (called) e PDU length
+    protected void applySetupResponse(byte[] response) throws Exception {
+
+        if (response.length < 27 || response[19] != (byte) 0xF0) {
+            throw new Exception("Resposta inválida do Setup Communication.");
+        }
+        maxAmqCalling = ((response[21] & 0xFF) << 8) | (response[22] & 0xFF);
+        maxAmqCalled = ((response[23] & 0xFF) << 8) | (response[24] & 0xFF);
+        pduLength = ((response[25] & 0xFF) << 8) | (response[26] & 0xFF);
 
-            // Leitura da resposta
-            byte[] response = new byte[1024];
-            int length = inputStream.read(response);
+        System.out.println("PDU negociada: " + pduLength + " bytes (AmQ " + maxAmqCalling + "/" + maxAmqCalled + ")");
+    }
 
+    // Conexão TCP + COTP + Setup Communication. No cliente bloqueante as etapas
+    // são executadas na própria thread e o future já retorna completo.
+    public CompletableFuture<Void> connectAsync() {
+        try {
+            connect();
+            sendConnectionRequest();
+            sendSetupCommunication();
+            return CompletableFuture.completedFuture(null);
         } catch (Exception e) {
-            throw new Exception("Erro ao enviar o pacote de configuração: " + e.getMessage(), e);
+            return CompletableFuture.failedFuture(e);
         }
     }
 
     private String lastReadValue;
-    private Object value;
 
     public String getValueFromLastRead() {
         return lastReadValue;
     }
 
-    byte[] response = new byte[1024];
-    int length = 0;
-
     public Object sendReadRequest(int db, int offset, int bit, int size, String type) throws Exception {
-
-        if (outputStream == null) {
-            throw new Exception("Conexão não estabelecida. Chame o método connect() primeiro.");
+        try {
+            Object value = await(sendReadRequestAsync(db, offset, bit, size, type));
+            System.out.println("Retorno de Leitura: " + value);
+            return value;
+        } catch (Exception e) {
+            throw new Exception("Erro ao enviar o pacote de leitura: " + e.getMessage(), e);
         }
+    }
+
+    public CompletableFuture<Object> sendReadRequestAsync(int db, int offset, int bit, int size, String type) {
 
         byte[] packet = createReadRequest(db, offset, bit, size, type);
 
+        return submit(packet, response -> {
+            checkItemReturnCode(response[21]);
+
+            // Interpretação do valor lido
+            return decodeValue(response, 25, size, type);
+        });
+    }
+
+    // Lê vários itens agrupando o máximo possível em cada job, respeitando o
+    // tamanho da PDU tanto na requisição quanto na resposta do CLP.
+    public List<S7ReadItem> sendMultiReadRequest(List<S7ReadItem> items) throws Exception {
         try {
+            return await(sendMultiReadRequestAsync(items));
+        } catch (Exception e) {
+            throw new Exception("Erro ao enviar o pacote de leitura múltipla: " + e.getMessage(), e);
+        }
+    }
 
-            outputStream.flush();
-            outputStream.write(packet);
-            outputStream.flush();
+    // Versão assíncrona: no modo pipeline todos os jobs são enviados de uma vez.
+    // Itens maiores que a resposta de um job são lidos em partes (ver S7ReadOptimizer).
+    public CompletableFuture<List<S7ReadItem>> sendMultiReadRequestAsync(List<S7ReadItem> items) {
 
-            Thread.sleep(50);
-            // Leitura da resposta
-            response = new byte[1024];
-            length = inputStream.read(response);
+        List<S7Address> addresses = new ArrayList<>(items.size());
+        for (S7ReadItem item : items) {
+            addresses.add(item.getAddress());
+        }
 
-            // Interpretação do valor lido
-            switch (type.toLowerCase()) {
-                case "string" -> value = extractStringFromResponse(response, size);
-                case "block" -> value = extractBlockFromResponse(response, size);
-                case "integer" -> value = extractIntegerFromResponse(response);
-                case "float" -> value = extractFloatFromResponse(response);
-                case "byte" -> value = extractByteFromResponse(response);
-                case "boolean" -> value = extractBooleanFromResponse(response);
-                default -> throw new IllegalArgumentException("Tipo de variável não suportado.");
+        return new S7ReadPlan(addresses).executeAsync(this).thenApply(plan -> {
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).setReturnCode(plan.getReturnCode(i));
+                items.get(i).setValue(plan.getValue(i));
+            }
+            return items;
+        });
+    }
+
+    // Divide os endereços em jobs Read Var, agrupando o máximo possível em cada
+    // um sem ultrapassar o tamanho da PDU na requisição nem na resposta do CLP.
+    // Cada elemento devolvido é o intervalo {from, to} de um job. Os itens
+    // precisam caber sozinhos em um job (o S7ReadOptimizer divide os maiores).
+    public static List<int[]> planReadJobs(List<S7Address> addresses, int pduLength) {
+
+        List<int[]> ranges = new ArrayList<>();
+        int from = 0;
+        // Cabeçalho S7 (10) + função e quantidade de itens (2)
+        int requestLength = 12;
+        // Cabeçalho S7 de resposta (12) + função e quantidade de itens (2)
+        int responseLength = 14;
+
+        for (int i = 0; i < addresses.size(); i++) {
+
+            int size = addresses.get(i).getSize();
+            int itemResponse = 4 + size + (size % 2);
+
+            if (14 + itemResponse > pduLength) {
+                throw new IllegalArgumentException("Item com " + size
+                        + " bytes não cabe na PDU negociada (" + pduLength + " bytes).");
             }
 
-            System.out.println("Retorno de Leitura: " + value);
-            return value;
+            if (i - from == MAX_ITEMS_PER_REQUEST
+                    || requestLength + 12 > pduLength
+                    || responseLength + itemResponse > pduLength) {
+                ranges.add(new int[] { from, i });
+                from = i;
+                requestLength = 12;
+                responseLength = 14;
+            }
 
-        } catch (Exception e) {
-            throw new Exception("Erro ao enviar o pacote de leitura: " + e.getMessage(), e);
+            requestLength += 12;
+            responseLength += itemResponse;
+        }
+
+        if (from < addresses.size()) {
+            ranges.add(new int[] { from, addresses.size() });
+        }
+        return ranges;
+    }
+
+    // Percorre a resposta de um job Read Var com os endereços de from até to e
+    // grava o código de retorno e o valor convertido de cada item nas posições
+    // correspondentes de returnCodes e values.
+    public static void parseReadVarResponse(byte[] response, List<S7Address> addresses, int from, int to,
+            int[] returnCodes, Object[] values) throws Exception {
+
+        int count = to - from;
+        if (response[19] != 0x04 || (response[20] & 0xFF) != count) {
+            throw new Exception("Resposta Read Var não corresponde à requisição.");
+        }
+
+        // Os dados dos itens começam logo após o cabeçalho S7 de resposta e
+        // os parâmetros (função + quantidade de itens)
+        int pos = 21;
+        for (int i = from; i < to; i++) {
+            S7Address address = addresses.get(i);
+
+            if (pos + 4 > response.length) {
+                throw new Exception("Resposta Read Var truncada.");
+            }
+
+            int returnCode = response[pos] & 0xFF;
+            int transportSize = response[pos + 1] & 0xFF;
+            int length = ((response[pos + 2] & 0xFF) << 8) | (response[pos + 3] & 0xFF);
+
+            // Transport size 0x03 (BIT), 0x04 (BYTE/WORD/DWORD) e 0x05 (INTEGER)
+            // informam o comprimento em bits; os demais, em bytes
+            int byteLength;
+            if (transportSize == 0x03) {
+                byteLength = (length + 7) / 8;
+            } else if (transportSize == 0x04 || transportSize == 0x05) {
+                byteLength = length / 8;
+            } else {
+                byteLength = length;
+            }
+
+            returnCodes[i] = returnCode;
+            if (returnCode == S7ReadItem.RETURN_CODE_SUCCESS) {
+                if (pos + 4 + address.getSize() > response.length) {
+                    throw new Exception("Resposta Read Var truncada.");
+                }
+                values[i] = address.getType().decode(response, pos + 4, address.getSize());
+            } else {
+                values[i] = null;
+            }
+
+            pos += 4 + byteLength;
+            // Itens com tamanho ímpar recebem um byte de preenchimento,
+            // exceto o último
+            if ((byteLength % 2 == 1) && (i < to - 1)) {
+                pos++;
+            }
         }
     }
 
     public boolean sendWriteRequest(int db, int offset, int bit, int size, String type, Object value) throws Exception {
+        try {
+            return await(sendWriteRequestAsync(db, offset, bit, size, type, value));
+        } catch (Exception e) {
+            throw new Exception("Erro ao enviar o pacote de escrita: " + e.getMessage(), e);
+        }
+    }
+
+    public CompletableFuture<Boolean> sendWriteRequestAsync(int db, int offset, int bit, int size, String type,
+            Object value) {
+
+        byte[] packet = createWriteRequest(db, offset, bit, size, type, value);
+
+        return submit(packet, response -> response[21] == (byte) 0xFF);
+    }
+
+    // --------------------------------------------------------------------------------------------
+    // Envio dos jobs e recebimento das respostas
+    // --------------------------------------------------------------------------------------------
+
+    // Decodifica o telegrama de resposta de um job
+    private interface ResponseDecoder<T> {
+        T decode(byte[] response) throws Exception;
+    }
+
+    private <T> CompletableFuture<T> submit(byte[] packet, ResponseDecoder<T> decoder) {
+        return exchangeAsync(packet).thenApply(response -> {
+            try {
+                return decoder.decode(response);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    // Envia um job S7 e aguarda a resposta correspondente. No modo pipeline o
+    // job divide a conexão com os demais que estiverem em andamento.
+    protected byte[] exchange(byte[] packet) throws Exception {
 
         if (outputStream == null) {
             throw new Exception("Conexão não estabelecida. Chame o método connect() primeiro.");
         }
 
-        System.out.println("Tamanho BOOLEAN: " + size);
+        if (!pipelined) {
+            synchronized (this) {
+                if (!pipelined) {
+                    int pduReference = stampPduReference(packet);
 
-        byte[] packet = createWriteRequest(db, offset, bit, size, type, value);
+                    outputStream.write(packet);
+                    outputStream.flush();
+
+                    byte[] response = readResponse();
+                    if (getPduReference(response) != pduReference) {
+                        throw new PlcConnectionException("Resposta com referência de PDU inesperada: " + getPduReference(response));
+                    }
+                    return response;
+                }
+            }
+        }
+
+        return await(exchangeAsync(packet));
+    }
+
+    // Fora do modo pipeline o job é executado na própria thread e o future já
+    // retorna completo.
+    public CompletableFuture<byte[]> exchangeAsync(byte[] packet) {
 
+        if (!pipelined) {
+            try {
+                return CompletableFuture.completedFuture(exchange(packet));
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        // Respeita a quantidade de jobs simultâneos negociada com o CLP
         try {
-            outputStream.write(packet);
-            outputStream.flush();
+            if (!inFlight.tryAcquire(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(
+                        new PlcConnectionException("Tempo esgotado aguardando vaga no pipeline de jobs."));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
 
-            // Leitura da resposta
-            response = new byte[50];
-            length = inputStream.read(response);
+        int pduReference = stampPduReference(packet);
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        pendingJobs.put(pduReference, future);
 
-            return response[21] == (byte) 0xFF;
+        // Quem remover o job da lista (resposta, timeout ou falha) libera a vaga
+        future.orTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS).whenComplete((response, error) -> {
+            if (pendingJobs.remove(pduReference, future)) {
+                inFlight.release();
+            }
+        });
 
-        } catch (
+        try {
+            synchronized (outputStream) {
+                outputStream.write(packet);
+                outputStream.flush();
+            }
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+        }
 
-        IOException e) {
-            throw new Exception("Erro ao enviar o pacote de leitura: " + e.getMessage(), e);
+        return future;
+    }
+
+    // Ativa o modo pipeline: até Max AmQ (calling) jobs ficam em andamento ao
+    // mesmo tempo e uma thread dedicada associa cada resposta ao seu job pela
+    // referência de PDU.
+    public synchronized void startPipelining() throws Exception {
+
+        if (outputStream == null) {
+            throw new Exception("Conexão não estabelecida. Chame o método connect() primeiro.");
+        }
+        if (pipelined) {
+            return;
         }
 
+        // A thread de leitura fica bloqueada enquanto não há jobs; o tempo
+        // limite passa a ser controlado por job
+        socket.setSoTimeout(0);
+        inFlight = new Semaphore(Math.max(1, maxAmqCalling));
+        pipelined = true;
+
+        responseReader = new Thread(this::readPipelinedResponses, "s7-pipeline-" + plcIpAddress);
+        responseReader.setDaemon(true);
+        responseReader.start();
     }
 
-    // --------------------------------------------------------------------------------------------
-    // Funções para extração das variáveis (conversão de BYTES para o tipo de
-    // variável desejado
-    // --------------------------------------------------------------------------------------------
-    private int extractIntegerFromResponse(byte[] response) {
+    public boolean isPipelined() {
+        return pipelined;
+    }
 
-        return ByteBuffer.wrap(response, 25, 2).order(ByteOrder.BIG_ENDIAN).getShort();
+    private void readPipelinedResponses() {
+        try {
+            while (pipelined) {
+                byte[] response = frameReader.readFrame();
+
+                if (response.length < 19) {
+                    continue;
+                }
+
+                CompletableFuture<byte[]> future = pendingJobs.remove(getPduReference(response));
+                if (future == null) {
+                    // Resposta de um job que já expirou
+                    continue;
+                }
+                inFlight.release();
+
+                try {
+                    checkResponseHeader(response);
+                    future.complete(response);
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        } catch (IOException e) {
+            pipelined = false;
+            for (CompletableFuture<byte[]> future : pendingJobs.values()) {
+                future.completeExceptionally(new PlcConnectionException("Conexão com o CLP perdida: " + e.getMessage(), e));
+            }
+        }
+    }
+
+    // Gera uma referência de PDU única (1 a 65535) e grava no cabeçalho S7
+    protected int stampPduReference(byte[] packet) {
+        int pduReference = pduReferenceSequence.updateAndGet(ref -> ref >= 0xFFFF ? 1 : ref + 1);
+        packet[11] = (byte) ((pduReference >> 8) & 0xFF);
+        packet[12] = (byte) (pduReference & 0xFF);
+        return pduReference;
     }
 
-    private float extractFloatFromResponse(byte[] response) {
-        // System.out.println("\n\nResposta de Leitura Float recebida: " +
-        // bytesToHex(response, length));
-        // System.out.println(response.length);
-        return ByteBuffer.wrap(response, 25, 4).order(ByteOrder.BIG_ENDIAN).getFloat();
+    protected static int getPduReference(byte[] response) {
+        return ((response[11] & 0xFF) << 8) | (response[12] & 0xFF);
     }
 
-    private byte extractByteFromResponse(byte[] response) {
+    // Lê um telegrama completo e valida os cabeçalhos COTP e S7 antes que os
+    // dados sejam decodificados.
+    private byte[] readResponse() throws Exception {
 
-        return ByteBuffer.wrap(response, 25, 1).order(ByteOrder.BIG_ENDIAN).get();
+        byte[] frame = frameReader.readFrame();
+        checkResponseHeader(frame);
+
+        return frame;
     }
 
-    private byte[] extractBlockFromResponse(byte[] response, int size) {
+    protected static void checkResponseHeader(byte[] frame) throws Exception {
 
-        // int startIndex = 25;
-        return Arrays.copyOfRange(response, 25, (25 + size));
+        // COTP DT Data + cabeçalho S7 de resposta (12 bytes)
+        if (frame.length < 19 || (frame[5] & 0xFF) != 0xF0) {
+            throw new PlcConnectionException("Telegrama COTP inesperado na resposta do CLP.");
+        }
+        if (frame[7] != 0x32) {
+            throw new PlcConnectionException(String.format("Protocol ID S7 inválido: 0x%02X", frame[7]));
+        }
+        if (frame[8] != 0x03) {
+            throw new PlcConnectionException(String.format("ROSCTR inesperado na resposta: 0x%02X", frame[8]));
+        }
+
+        int errorClass = frame[17] & 0xFF;
+        int errorCode = frame[18] & 0xFF;
+        if (errorClass != 0 || errorCode != 0) {
+            throw new Exception(String.format("CLP recusou o job (classe 0x%02X, código 0x%02X).",
+                    errorClass, errorCode));
+        }
     }
 
-    private boolean extractBooleanFromResponse(byte[] response) {
-        return (response[25] & 0x01) == 1;
+    // Aguarda um future e devolve a exceção original em caso de falha
+    public static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
     }
 
-    private String extractStringFromResponse(byte[] response, int size) {
+    private void checkItemReturnCode(byte returnCode) throws Exception {
+        if (returnCode != (byte) S7ReadItem.RETURN_CODE_SUCCESS) {
+            throw new Exception(String.format("CLP retornou erro no item (código 0x%02X).", returnCode));
+        }
+    }
+
+    private Object decodeValue(byte[] response, int start, int size, String type) {
+        return S7DataType.fromName(type).decode(response, start, size);
+    }
+
+    public int getPduLength() {
+        return pduLength;
+    }
+
+    public int getMaxAmqCalling() {
+        return maxAmqCalling;
+    }
+
+    public int getMaxAmqCalled() {
+        return maxAmqCalled;
+    }
+
+    // Quantidade máxima de bytes de dados que cabe em um único job de leitura
+    public int getMaxReadSize() {
+        return pduLength - READ_OVERHEAD;
+    }
 
-        // int startIndex = 25;
-        return new String(response, 25, size).trim();
+    // Quantidade máxima de bytes de dados que cabe em um único job de escrita
+    public int getMaxWriteSize() {
+        return pduLength - WRITE_OVERHEAD;
     }
 
     public void disconnect() {
+        pipelined = false;
         try {
             if (outputStream != null)
                 outputStream.close();
@@ -0,0 +1,63 @@
+package com.example.clpmonitor.plc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Tipos de variável suportados e a conversão dos bytes recebidos do CLP.
+// O nome em texto ("integer", "block", ...) é convertido uma única vez, na
+// montagem do endereço, e não a cada leitura.
+public enum S7DataType {
+
+    BOOLEAN {
+        @Override
+        public Object decode(byte[] data, int start, int size) {
+            return (data[start] & 0x01) == 1;
+        }
+    },
+    BYTE {
+        @Override
+        public Object decode(byte[] data, int start, int size) {
+            return data[start];
+        }
+    },
+    INTEGER {
+        @Override
+        public Object decode(byte[] data, int start, int size) {
+            return (int) ByteBuffer.wrap(data, start, 2).order(ByteOrder.BIG_ENDIAN).getShort();
+        }
+    },
+    FLOAT {
+        @Override
+        public Object decode(byte[] data, int start, int size) {
+            return ByteBuffer.wrap(data, start, 4).order(ByteOrder.BIG_ENDIAN).getFloat();
+        }
+    },
+    STRING {
+        @Override
+        public Object decode(byte[] data, int start, int size) {
+            return new String(data, start, size).trim();
+        }
+    },
+    BLOCK {
+        @Override
+        public Object decode(byte[] data, int start, int size) {
+            return Arrays.copyOfRange(data, start, start + size);
+        }
+    };
+
+    // Converte os bytes de dados de um item (a partir de start) no valor do tipo
+    public abstract Object decode(byte[] data, int start, int size);
+
+    public static S7DataType fromName(String name) {
+        return switch (name.toLowerCase()) {
+            case "boolean", "bit" -> BOOLEAN;
+            case "byte" -> BYTE;
+            case "integer" -> INTEGER;
+            case "float" -> FLOAT;
+            case "string" -> STRING;
+            case "block" -> BLOCK;
+            default -> throw new IllegalArgumentException("Tipo de variável não suportado: " + name);
+        };
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.clpmonitor.plc;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+// Cliente S7 sobre SocketChannel não bloqueante. A codificação dos telegramas
+// é a mesma do S7Client; só o envio e o recebimento mudam: os jobs entram em
+// uma fila, saem respeitando o Max AmQ negociado e as respostas completam os
+// futures pela referência de PDU, tudo na thread de seletor do transporte.
+public class S7NioClient extends S7Client {
+
+    // Maior telegrama possível: PDU de 960 bytes + cabeçalhos TPKT/COTP, com folga
+    private static final int READ_BUFFER_SIZE = 2048;
+
+    private final S7NioTransport.SelectorWorker worker;
+
+    private SocketChannel channel;
+    private SelectionKey key;
+    private volatile boolean open = false;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+
+    // Jobs aguardando vaga (backlog) e jobs já enviados ao CLP (pendingJobs)
+    private final Queue<PendingJob> backlog = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, CompletableFuture<byte[]>> pendingJobs = new ConcurrentHashMap<>();
+    private final Object jobLock = new Object();
+    private int inFlight = 0;
+
+    private CompletableFuture<Void> connectFuture;
+    private CompletableFuture<byte[]> handshakeFuture;
+
+    private record PendingJob(int pduReference, byte[] packet, CompletableFuture<byte[]> future) {
+    }
+
+    public S7NioClient(String plcIpAddress, int port, S7NioTransport transport) {
+        super(plcIpAddress, port);
+        this.worker = transport.nextWorker();
+    }
+
+    // --------------------------------------------------------------------------------------------
+    // Conexão
+    // --------------------------------------------------------------------------------------------
+
+    @Override
+    public boolean connect() throws Exception {
+        try {
+            await(openChannel());
+            System.out.println("Conexão estabelecida com o CLP: " + getPlcIpAddress() + ":" + getPort());
+            return true;
+        } catch (Exception e) {
+            throw new Exception("Falha ao conectar ao CLP: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void sendConnectionRequest() throws Exception {
+        try {
+            await(cotpHandshake());
+        } catch (Exception e) {
+            throw new Exception("Erro ao enviar a solicitação de conexão: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> connectAsync() {
+        return openChannel()
+                .thenCompose(done -> cotpHandshake())
+                .thenCompose(done -> exchangeAsync(createSetupCommunication()))
+                .thenAccept(response -> {
+                    try {
+                        applySetupResponse(response);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    private CompletableFuture<Void> openChannel() {
+
+        connectFuture = new CompletableFuture<>();
+
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.connect(new InetSocketAddress(getPlcIpAddress(), getPort()));
+
+            worker.execute(() -> {
+                try {
+                    key = channel.register(worker.getSelector(), SelectionKey.OP_CONNECT, this);
+                } catch (IOException e) {
+                    close(e);
+                }
+            });
+        } catch (IOException e) {
+            close(e);
+        }
+
+        return connectFuture.orTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Envia o COTP Connection Request e aguarda o Connection Confirm (0xD0)
+    private CompletableFuture<Void> cotpHandshake() {
+
+        handshakeFuture = new CompletableFuture<>();
+        enqueueWrite(createConnectionRequest());
+
+        return handshakeFuture.orTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS).thenAccept(response -> {
+            if ((response[5] & 0xFF) != 0xD0) {
+                throw new CompletionException(new Exception(
+                        String.format("Conexão COTP recusada (PDU type 0x%02X).", response[5])));
+            }
+        });
+    }
+
+    // --------------------------------------------------------------------------------------------
+    // Envio dos jobs
+    // --------------------------------------------------------------------------------------------
+
+    @Override
+    protected byte[] exchange(byte[] packet) throws Exception {
+        return await(exchangeAsync(packet));
+    }
+
+    @Override
+    public CompletableFuture<byte[]> exchangeAsync(byte[] packet) {
+
+        if (!open) {
+            return CompletableFuture.failedFuture(
+                    new PlcConnectionException("Conexão não estabelecida. Chame o método connect() primeiro."));
+        }
+
+        int pduReference = stampPduReference(packet);
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        // Quem remover o job da lista (resposta, timeout ou falha) libera a vaga
+        future.orTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS).whenComplete((response, error) -> {
+            if (pendingJobs.remove(pduReference, future)) {
+                releaseSlot();
+            }
+        });
+
+        backlog.add(new PendingJob(pduReference, packet, future));
+        dispatch();
+
+        return future;
+    }
+
+    // Todos os jobs já saem em paralelo, limitados pelo Max AmQ negociado
+    @Override
+    public synchronized void startPipelining() {
+    }
+
+    @Override
+    public boolean isPipelined() {
+        return true;
+    }
+
+    // Envia os jobs do backlog enquanto houver vaga no CLP
+    private void dispatch() {
+        synchronized (jobLock) {
+            while (inFlight < Math.max(1, getMaxAmqCalling())) {
+                PendingJob job = backlog.poll();
+                if (job == null) {
+                    return;
+                }
+                if (job.future().isDone()) {
+                    // Expirou enquanto aguardava vaga
+                    continue;
+                }
+                if (!open) {
+                    job.future().completeExceptionally(new PlcConnectionException("Conexão com o CLP encerrada."));
+                    continue;
+                }
+                inFlight++;
+                pendingJobs.put(job.pduReference(), job.future());
+                enqueueWrite(job.packet());
+            }
+        }
+    }
+
+    private void releaseSlot() {
+        synchronized (jobLock) {
+            inFlight--;
+        }
+        dispatch();
+    }
+
+    private void enqueueWrite(byte[] packet) {
+        writeQueue.add(ByteBuffer.wrap(packet));
+        worker.execute(() -> {
+            if (key != null && key.isValid()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        });
+    }
+
+    // --------------------------------------------------------------------------------------------
+    // Eventos da thread de seletor
+    // --------------------------------------------------------------------------------------------
+
+    void handleConnect() {
+        try {
+            channel.finishConnect();
+            open = true;
+            key.interestOps(SelectionKey.OP_READ | (writeQueue.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+            connectFuture.complete(null);
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    void handleWrite() {
+        try {
+            ByteBuffer buffer;
+            while ((buffer = writeQueue.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    // Buffer do socket cheio: continua no próximo OP_WRITE
+                    return;
+                }
+                writeQueue.poll();
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    // Separa os telegramas pelo comprimento TPKT; um telegrama incompleto fica
+    // no buffer até o restante chegar
+    void handleRead() {
+        try {
+            if (channel.read(readBuffer) < 0) {
+                close(new IOException("Conexão encerrada pelo CLP."));
+                return;
+            }
+
+            readBuffer.flip();
+            while (readBuffer.remaining() >= 4) {
+                int start = readBuffer.position();
+                int length = readBuffer.getShort(start + 2) & 0xFFFF;
+
+                if (readBuffer.get(start) != 0x03 || length < 7 || length > READ_BUFFER_SIZE) {
+                    readBuffer.clear();
+                    close(new IOException("Telegrama TPKT inválido recebido do CLP."));
+                    return;
+                }
+                if (readBuffer.remaining() < length) {
+                    break;
+                }
+
+                byte[] frame = new byte[length];
+                readBuffer.get(frame);
+                onFrame(frame);
+            }
+            readBuffer.compact();
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    private void onFrame(byte[] frame) {
+
+        // Resposta do handshake COTP (Connection Confirm)
+        if ((frame[5] & 0xFF) != 0xF0) {
+            if (handshakeFuture != null) {
+                handshakeFuture.complete(frame);
+            }
+            return;
+        }
+
+        if (frame.length < 19) {
+            return;
+        }
+
+        CompletableFuture<byte[]> future = pendingJobs.remove(getPduReference(frame));
+        if (future == null) {
+            // Resposta de um job que já expirou
+            return;
+        }
+        releaseSlot();
+
+        try {
+            checkResponseHeader(frame);
+            future.complete(frame);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    // --------------------------------------------------------------------------------------------
+    // Encerramento
+    // --------------------------------------------------------------------------------------------
+
+    private void close(IOException cause) {
+        open = false;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao encerrar a conexão: " + e.getMessage());
+        }
+
+        Exception error = new PlcConnectionException("Conexão com o CLP perdida: " + cause.getMessage(), cause);
+        if (connectFuture != null) {
+            connectFuture.completeExceptionally(error);
+        }
+        if (handshakeFuture != null) {
+            handshakeFuture.completeExceptionally(error);
+        }
+        for (CompletableFuture<byte[]> future : pendingJobs.values()) {
+            future.completeExceptionally(error);
+        }
+        PendingJob job;
+        while ((job = backlog.poll()) != null) {
+            job.future().completeExceptionally(error);
+        }
+        writeQueue.clear();
+    }
+
+    @Override
+    public void disconnect() {
+        close(new IOException("Conexão encerrada pelo cliente."));
+        System.out.println("Conexão com o CLP encerrada.");
+    }
+}
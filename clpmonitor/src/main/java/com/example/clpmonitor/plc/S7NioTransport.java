@@ -0,0 +1,113 @@
+package com.example.clpmonitor.plc;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Transporte não bloqueante para muitos CLPs: um pequeno número de threads,
+// cada uma com seu Selector, atende todas as conexões (S7NioClient) abertas.
+// Cada conexão fica presa a uma única thread de seletor, que é a única a
+// mexer no SelectionKey dela.
+public class S7NioTransport implements AutoCloseable {
+
+    private final SelectorWorker[] workers;
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    public S7NioTransport(int selectorThreads) throws IOException {
+        workers = new SelectorWorker[Math.max(1, selectorThreads)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new SelectorWorker("s7-nio-selector-" + i);
+        }
+    }
+
+    // Distribui as conexões entre as threads de seletor (round-robin)
+    SelectorWorker nextWorker() {
+        return workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+    }
+
+    @Override
+    public void close() {
+        for (SelectorWorker worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    // --------------------------------------------------------------------------------------------
+    // Thread de seletor
+    // --------------------------------------------------------------------------------------------
+    static class SelectorWorker implements Runnable {
+
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        SelectorWorker(String name) throws IOException {
+            selector = Selector.open();
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        Selector getSelector() {
+            return selector;
+        }
+
+        // Executa a tarefa na thread do seletor (registro, mudança de interesse)
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+
+                    Runnable task;
+                    while ((task = tasks.poll()) != null) {
+                        task.run();
+                    }
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+
+                        S7NioClient client = (S7NioClient) key.attachment();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isConnectable()) {
+                            client.handleConnect();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            client.handleRead();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            client.handleWrite();
+                        }
+                    }
+                } catch (Exception e) {
+                    System.err.println("Erro na thread de seletor S7: " + e.getMessage());
+                }
+            }
+
+            try {
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar o seletor: " + e.getMessage());
+            }
+        }
+
+        void shutdown() {
+            running = false;
+            selector.wakeup();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.clpmonitor.plc;
+
+// Representa um item (endereço) de uma requisição Read Var com múltiplos itens.
+// Antes do envio guarda o endereço da variável; depois da leitura guarda o
+// código de retorno do item e o valor já convertido para o tipo pedido.
+public class S7ReadItem {
+
+    // Código de retorno do S7 para item lido com sucesso
+    public static final int RETURN_CODE_SUCCESS = 0xFF;
+
+    private final S7Address address;
+
+    private int returnCode;
+    private Object value;
+
+    public S7ReadItem(int db, int offset, int bit, int size, String type) {
+        this(new S7Address(db, offset, bit, size, S7DataType.fromName(type)));
+    }
+
+    public S7ReadItem(S7Address address) {
+        this.address = address;
+    }
+
+    public S7Address getAddress() {
+        return address;
+    }
+
+    public int getDb() {
+        return address.getDb();
+    }
+
+    public int getOffset() {
+        return address.getOffset();
+    }
+
+    public int getBit() {
+        return address.getBit();
+    }
+
+    public int getSize() {
+        return address.getSize();
+    }
+
+    public S7DataType getType() {
+        return address.getType();
+    }
+
+    public int getReturnCode() {
+        return returnCode;
+    }
+
+    public void setReturnCode(int returnCode) {
+        this.returnCode = returnCode;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+
+    public boolean isSuccess() {
+        return returnCode == RETURN_CODE_SUCCESS;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.clpmonitor.plc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Otimizador dos planos de leitura.
+// Tags próximas de um mesmo DB são lidas juntas como um único bloco contíguo
+// e separadas localmente depois da leitura: as 12 posições da expedição
+// (DB9.DBW6 a DB9.DBW28) viram um item de 24 bytes em vez de 12 itens de 2.
+// Dois trechos são unidos quando o intervalo entre eles não passa de
+// maxGapBytes e o bloco resultante ainda cabe em um job. No fim, o custo
+// estimado do plano unido é comparado ao da leitura item a item e o mais
+// barato é usado.
+// Itens maiores que a resposta de um job (ex: um bloco de 1 KB com PDU de 240)
+// são lidos em partes consecutivas, como no PlcConnector.readBlock, e
+// remontados depois da leitura.
+public final class S7ReadOptimizer {
+
+    // Custo estimado de um job (ida e volta ao CLP), em bytes equivalentes.
+    // A latência de um job pesa muito mais que alguns bytes a mais na PDU.
+    static final int JOB_COST_BYTES = 1000;
+
+    private S7ReadOptimizer() {
+    }
+
+    // Como as tags são lidas: reads são os endereços enviados ao CLP e, para
+    // cada tag, readIndex indica o item lido que a contém e byteOffset a posição
+    // da tag dentro desse item (-1 quando a tag é lida diretamente). Um item
+    // dividido ocupa readCount posições seguidas a partir de readIndex.
+    public static final class Layout {
+        final List<S7Address> reads;
+        final int[] readIndex;
+        final int[] readCount;
+        final int[] byteOffset;
+        final List<int[]> jobs;
+        final long cost;
+
+        Layout(List<S7Address> items, int[] itemIndex, int[] byteOffset, int pduLength) {
+            int maxPart = maxReadSize(pduLength);
+            if (maxPart <= 0) {
+                throw new IllegalArgumentException("PDU negociada pequena demais para leitura: " + pduLength + " bytes.");
+            }
+
+            List<S7Address> parts = new ArrayList<>(items.size());
+            int[] first = new int[items.size()];
+            int[] count = new int[items.size()];
+            for (int k = 0; k < items.size(); k++) {
+                S7Address item = items.get(k);
+                first[k] = parts.size();
+                if (item.getSize() <= maxPart) {
+                    parts.add(item);
+                } else {
+                    for (int pos = 0; pos < item.getSize(); pos += maxPart) {
+                        parts.add(new S7Address(item.getDb(), item.getOffset() + pos, 0,
+                                Math.min(maxPart, item.getSize() - pos), S7DataType.BLOCK));
+                    }
+                }
+                count[k] = parts.size() - first[k];
+            }
+
+            this.reads = parts;
+            this.readIndex = new int[itemIndex.length];
+            this.readCount = new int[itemIndex.length];
+            for (int i = 0; i < itemIndex.length; i++) {
+                readIndex[i] = first[itemIndex[i]];
+                readCount[i] = count[itemIndex[i]];
+            }
+            this.byteOffset = byteOffset;
+            this.jobs = S7Client.planReadJobs(parts, pduLength);
+            this.cost = estimateCost(parts, jobs);
+        }
+
+        public List<S7Address> getReads() {
+            return reads;
+        }
+
+        public int getJobCount() {
+            return jobs.size();
+        }
+
+        public long getCost() {
+            return cost;
+        }
+
+        public boolean isMerged() {
+            return byteOffset.length > 0 && byteOffset[0] >= 0;
+        }
+    }
+
+    // maxGapBytes < 0 desativa a união dos trechos
+    public static Layout optimize(List<S7Address> tags, int pduLength, int maxGapBytes) {
+
+        Layout direct = direct(tags, pduLength);
+        if (maxGapBytes < 0 || tags.isEmpty()) {
+            return direct;
+        }
+
+        Layout merged = merged(tags, pduLength, maxGapBytes);
+        return merged.cost < direct.cost ? merged : direct;
+    }
+
+    // Leitura item a item, na ordem das tags
+    private static Layout direct(List<S7Address> tags, int pduLength) {
+        int[] readIndex = new int[tags.size()];
+        int[] byteOffset = new int[tags.size()];
+        for (int i = 0; i < tags.size(); i++) {
+            readIndex[i] = i;
+            byteOffset[i] = -1;
+        }
+        return new Layout(List.copyOf(tags), readIndex, byteOffset, pduLength);
+    }
+
+    private static Layout merged(List<S7Address> tags, int pduLength, int maxGapBytes) {
+
+        // Maior item que ainda cabe sozinho na resposta de um job
+        int maxBlock = maxReadSize(pduLength);
+
+        Integer[] order = new Integer[tags.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> tags.get(i).getDb())
+                .thenComparingInt(i -> tags.get(i).getOffset()));
+
+        List<S7Address> reads = new ArrayList<>();
+        int[] readIndex = new int[tags.size()];
+        int[] byteOffset = new int[tags.size()];
+
+        int db = -1;
+        int start = 0;
+        int end = 0;
+        List<Integer> members = new ArrayList<>();
+
+        for (int i : order) {
+            S7Address tag = tags.get(i);
+            int tagEnd = tag.getOffset() + tag.getSize();
+
+            boolean joins = !members.isEmpty()
+                    && tag.getDb() == db
+                    && tag.getOffset() - end <= maxGapBytes
+                    && Math.max(end, tagEnd) - start <= maxBlock;
+
+            if (!joins) {
+                closeSegment(reads, db, start, end, members, tags, readIndex, byteOffset);
+                db = tag.getDb();
+                start = tag.getOffset();
+                end = tagEnd;
+            } else {
+                end = Math.max(end, tagEnd);
+            }
+            members.add(i);
+        }
+        closeSegment(reads, db, start, end, members, tags, readIndex, byteOffset);
+
+        return new Layout(reads, readIndex, byteOffset, pduLength);
+    }
+
+    private static void closeSegment(List<S7Address> reads, int db, int start, int end, List<Integer> members,
+            List<S7Address> tags, int[] readIndex, int[] byteOffset) {
+        if (members.isEmpty()) {
+            return;
+        }
+        int index = reads.size();
+        reads.add(new S7Address(db, start, 0, end - start, S7DataType.BLOCK));
+        for (int i : members) {
+            readIndex[i] = index;
+            byteOffset[i] = tags.get(i).getOffset() - start;
+        }
+        members.clear();
+    }
+
+    // Maior item que cabe na resposta de um job; a resposta completa itens de
+    // tamanho ímpar com um byte, então o limite é par
+    static int maxReadSize(int pduLength) {
+        return (pduLength - S7Client.READ_OVERHEAD) & ~1;
+    }
+
+    // Bytes de um item dividido, remontados a partir das partes lidas
+    static byte[] join(List<S7Address> reads, Object[] values, int first, int count) {
+        int size = 0;
+        for (int r = first; r < first + count; r++) {
+            size += reads.get(r).getSize();
+        }
+        byte[] block = new byte[size];
+        int pos = 0;
+        for (int r = first; r < first + count; r++) {
+            byte[] part = (byte[]) values[r];
+            System.arraycopy(part, 0, block, pos, part.length);
+            pos += part.length;
+        }
+        return block;
+    }
+
+    // Custo = jobs * custo fixo + bytes de requisição e de resposta
+    static long estimateCost(List<S7Address> reads, List<int[]> jobs) {
+        long cost = 0;
+        for (int[] job : jobs) {
+            cost += JOB_COST_BYTES + 12 + 14;
+            for (int i = job[0]; i < job[1]; i++) {
+                int size = reads.get(i).getSize();
+                cost += 12 + 4 + size + (size % 2);
+            }
+        }
+        return cost;
+    }
+
+    // Valor de uma tag a partir do bloco que a contém
+    static Object slice(S7Address tag, byte[] block, int byteOffset) {
+        if (tag.getType() == S7DataType.BOOLEAN) {
+            return ((block[byteOffset] >> tag.getBit()) & 0x01) == 1;
+        }
+        return tag.getType().decode(block, byteOffset, tag.getSize());
+    }
+}
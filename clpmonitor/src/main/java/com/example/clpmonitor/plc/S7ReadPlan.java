@@ -0,0 +1,155 @@
+package com.example.clpmonitor.plc;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Plano de leitura pré-compilado de um conjunto fixo de endereços.
+// A divisão em jobs e os telegramas Read Var são montados uma única vez (por
+// tamanho de PDU negociado) e reenviados a cada ciclo; a resposta é convertida
+// direto para os arrays de valores, sem criar itens nem comparar nomes de tipo.
+// Na compilação, o S7ReadOptimizer pode unir tags vizinhas em um único bloco,
+// separado localmente depois da leitura.
+// Um plano deve ser executado por uma thread de cada vez (a thread de aquisição
+// do CLP), pois os valores da última leitura ficam no próprio plano.
+public class S7ReadPlan {
+
+    // Sem união de trechos: cada tag é um item da requisição
+    public static final int NO_MERGE = -1;
+
+    private final List<S7Address> addresses;
+    private final int maxGapBytes;
+
+    // Resultado da última execução, na mesma ordem dos endereços
+    private final int[] returnCodes;
+    private final Object[] values;
+
+    // Jobs compilados para a PDU usada na última execução
+    private int compiledPduLength = -1;
+    private S7ReadOptimizer.Layout layout;
+    private byte[][] packets;
+    private int[] readReturnCodes;
+    private Object[] readValues;
+
+    public S7ReadPlan(List<S7Address> addresses) {
+        this(addresses, NO_MERGE);
+    }
+
+    // maxGapBytes: maior intervalo (bytes) entre duas tags lidas no mesmo bloco
+    public S7ReadPlan(List<S7Address> addresses, int maxGapBytes) {
+        this.addresses = List.copyOf(addresses);
+        this.maxGapBytes = maxGapBytes;
+        this.returnCodes = new int[addresses.size()];
+        this.values = new Object[addresses.size()];
+    }
+
+    // Monta os telegramas na primeira execução e sempre que a sessão tiver
+    // negociado outra PDU (ex: CLP substituído)
+    private synchronized S7ReadOptimizer.Layout compile(int pduLength) {
+        if (pduLength != compiledPduLength) {
+            S7ReadOptimizer.Layout compiled = S7ReadOptimizer.optimize(addresses, pduLength, maxGapBytes);
+
+            byte[][] requests = new byte[compiled.jobs.size()][];
+            for (int i = 0; i < requests.length; i++) {
+                int[] range = compiled.jobs.get(i);
+                requests[i] = S7Client.createReadVarRequest(compiled.reads, range[0], range[1]);
+            }
+
+            layout = compiled;
+            packets = requests;
+            readReturnCodes = new int[compiled.reads.size()];
+            readValues = new Object[compiled.reads.size()];
+            compiledPduLength = pduLength;
+
+            System.out.println("Plano de leitura: " + addresses.size() + " tag(s) em " + compiled.reads.size()
+                    + " item(ns) e " + requests.length + " job(s)" + (compiled.isMerged() ? " (blocos unidos)" : ""));
+        }
+        return layout;
+    }
+
+    public CompletableFuture<S7ReadPlan> executeAsync(S7Client client) {
+
+        S7ReadOptimizer.Layout compiled;
+        try {
+            compiled = compile(client.getPduLength());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        byte[][] requests = packets;
+        int[] codes = readReturnCodes;
+        Object[] reads = readValues;
+
+        CompletableFuture<?>[] jobs = new CompletableFuture<?>[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            int[] range = compiled.jobs.get(i);
+            // Cópia do telegrama: a referência de PDU é gravada no envio
+            jobs[i] = client.exchangeAsync(requests[i].clone()).thenAccept(response -> {
+                try {
+                    S7Client.parseReadVarResponse(response, compiled.reads, range[0], range[1], codes, reads);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            });
+        }
+
+        return CompletableFuture.allOf(jobs).thenApply(done -> {
+            distribute(compiled, codes, reads);
+            return this;
+        });
+    }
+
+    // Copia o resultado de cada item lido para as tags que ele contém
+    private void distribute(S7ReadOptimizer.Layout compiled, int[] codes, Object[] reads) {
+        for (int i = 0; i < addresses.size(); i++) {
+            int read = compiled.readIndex[i];
+            int count = compiled.readCount[i];
+
+            // Item dividido: vale o primeiro código de erro entre as partes
+            int code = codes[read];
+            for (int r = read + 1; r < read + count && code == S7ReadItem.RETURN_CODE_SUCCESS; r++) {
+                code = codes[r];
+            }
+            returnCodes[i] = code;
+
+            if (code != S7ReadItem.RETURN_CODE_SUCCESS) {
+                values[i] = null;
+            } else if (count > 1) {
+                byte[] block = S7ReadOptimizer.join(compiled.reads, reads, read, count);
+                values[i] = S7ReadOptimizer.slice(addresses.get(i), block, Math.max(0, compiled.byteOffset[i]));
+            } else if (compiled.byteOffset[i] < 0) {
+                values[i] = reads[read];
+            } else {
+                values[i] = S7ReadOptimizer.slice(addresses.get(i), (byte[]) reads[read], compiled.byteOffset[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return addresses.size();
+    }
+
+    public S7Address getAddress(int index) {
+        return addresses.get(index);
+    }
+
+    public int getJobCount() {
+        return packets != null ? packets.length : 0;
+    }
+
+    // Quantidade de itens enviados ao CLP (após a união dos blocos)
+    public int getReadCount() {
+        return layout != null ? layout.reads.size() : 0;
+    }
+
+    public int getReturnCode(int index) {
+        return returnCodes[index];
+    }
+
+    public boolean isSuccess(int index) {
+        return returnCodes[index] == S7ReadItem.RETURN_CODE_SUCCESS;
+    }
+
+    public Object getValue(int index) {
+        return values[index];
+    }
+}
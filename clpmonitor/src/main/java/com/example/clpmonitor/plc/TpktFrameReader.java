@@ -0,0 +1,44 @@
+package com.example.clpmonitor.plc;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Lê respostas do CLP respeitando o enquadramento TPKT (RFC 1006): primeiro os
+// 4 bytes do cabeçalho, depois exatamente a quantidade de bytes anunciada.
+// Assim cada chamada devolve um telegrama completo, nunca parcial nem
+// misturado com o próximo.
+public class TpktFrameReader {
+
+    // Cabeçalho TPKT (4) + menor cabeçalho COTP DT (3)
+    private static final int MIN_FRAME_LENGTH = 7;
+
+    private final DataInputStream inputStream;
+
+    public TpktFrameReader(InputStream inputStream) {
+        this.inputStream = new DataInputStream(inputStream);
+    }
+
+    // Retorna o telegrama completo, incluindo os cabeçalhos TPKT e COTP, para
+    // que os offsets usados na decodificação continuem os mesmos.
+    public byte[] readFrame() throws IOException {
+
+        byte[] header = new byte[4];
+        inputStream.readFully(header);
+
+        if (header[0] != 0x03) {
+            throw new IOException(String.format("Versão TPKT inválida: 0x%02X", header[0]));
+        }
+
+        int length = ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+        if (length < MIN_FRAME_LENGTH) {
+            throw new IOException("Comprimento TPKT inválido: " + length);
+        }
+
+        byte[] frame = new byte[length];
+        System.arraycopy(header, 0, frame, 0, 4);
+        inputStream.readFully(frame, 4, length - 4);
+
+        return frame;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.clpmonitor.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Service;
+
+import com.example.clpmonitor.model.PollStats;
+
+import jakarta.annotation.PreDestroy;
+
+// Agendador da aquisição de dados dos CLPs.
+// Cada CLP tem a sua própria thread de agendamento: um CLP lento ou fora do
+// ar só atrasa os próprios ciclos, nunca os dos outros. Os ciclos rodam em
+// taxa fixa; quando um ciclo atrasa mais de um período, os ciclos perdidos são
+// descartados (e contados) em vez de executados em sequência, para não
+// sobrecarregar o CPU quando ele voltar a responder.
+@Service
+public class AcquisitionScheduler {
+
+    // Tarefa de leitura executada a cada ciclo
+    @FunctionalInterface
+    public interface PollTask {
+        void poll() throws Exception;
+    }
+
+    private final Map<String, ScheduledExecutorService> executors = new ConcurrentHashMap<>();
+    private final Map<String, PollStats> stats = new ConcurrentHashMap<>();
+
+    // Agenda um ciclo de leitura na thread do CLP informado
+    public PollStats schedule(String plcName, String cycleName, long periodMs, PollTask task) {
+        PollStats cycleStats = new PollStats(cycleName, periodMs);
+        stats.put(cycleName, cycleStats);
+
+        Cycle cycle = new Cycle(cycleName, periodMs, task, cycleStats);
+        executor(plcName).scheduleAtFixedRate(cycle, 0, periodMs, TimeUnit.MILLISECONDS);
+
+        return cycleStats;
+    }
+
+    // Executa a tarefa uma vez, fora do ciclo, na mesma thread do CLP (não
+    // concorre com as leituras agendadas)
+    public void trigger(String plcName, PollTask task) {
+        executor(plcName).execute(() -> {
+            try {
+                task.poll();
+            } catch (Exception e) {
+                System.err.println("Falha na leitura do CLP " + plcName + ": " + e.getMessage());
+            }
+        });
+    }
+
+    public List<PollStats> getStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    private ScheduledExecutorService executor(String plcName) {
+        return executors.computeIfAbsent(plcName, name -> Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "poll-" + name);
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ScheduledExecutorService executor : executors.values()) {
+            executor.shutdownNow();
+        }
+    }
+
+    // Envolve a tarefa medindo atraso (drift), duração e falhas de cada ciclo
+    private static class Cycle implements Runnable {
+
+        private final String name;
+        private final long periodNanos;
+        private final PollTask task;
+        private final PollStats stats;
+        private long nextExpected;
+        private String lastError;
+
+        Cycle(String name, long periodMs, PollTask task, PollStats stats) {
+            this.name = name;
+            this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMs);
+            this.task = task;
+            this.stats = stats;
+            this.nextExpected = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            long drift = Math.max(0, start - nextExpected);
+            nextExpected += periodNanos;
+
+            if (drift >= periodNanos) {
+                stats.recordSkipped();
+                return;
+            }
+
+            Exception error = null;
+            try {
+                task.poll();
+            } catch (Exception e) {
+                error = e;
+            }
+
+            long duration = System.nanoTime() - start;
+            stats.recordCycle(TimeUnit.NANOSECONDS.toMillis(drift), TimeUnit.NANOSECONDS.toMillis(duration), error);
+
+            // Registra no log apenas quando o estado do ciclo muda, para um CLP
+            // fora do ar não gerar uma mensagem a cada ciclo
+            String message = error == null ? null : error.getMessage();
+            if (!Objects.equals(message, lastError)) {
+                if (message != null) {
+                    System.err.println("Falha no ciclo " + name + ": " + message);
+                } else {
+                    System.out.println("Ciclo " + name + " voltou a ler normalmente.");
+                }
+                lastError = message;
+            }
+        }
+    }
+}
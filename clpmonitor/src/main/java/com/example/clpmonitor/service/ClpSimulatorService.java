@@ -1,18 +1,29 @@
 package com.example.clpmonitor.service;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.example.clpmonitor.model.BroadcastStats;
 import com.example.clpmonitor.model.ClpData;
-import com.example.clpmonitor.plc.PlcConnector;
+import com.example.clpmonitor.model.ClpDelta;
+import com.example.clpmonitor.model.ClpValues;
+import com.example.clpmonitor.model.PollStats;
+import com.example.clpmonitor.model.SseClientStats;
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagSnapshot;
+import com.example.clpmonitor.plc.S7DataType;
 
 import jakarta.annotation.PostConstruct;
 
@@ -21,112 +32,263 @@ import jakarta.annotation.PostConstruct;
 @Service
 public class ClpSimulatorService {
 
-    public static byte[] indexColorEst = new byte[28];
-    public Integer indexExpedition;
+    // broadcaster – Clientes conectados via SSE
+    // Guarda todos os clientes que estão escutando eventos via SSE e envia a
+    // cada um o mesmo frame, serializado uma única vez por evento.
+    @Autowired
+    private SseBroadcaster broadcaster;
 
-    public PlcConnector plcEstDb9;
-    public PlcConnector plcExpDb9;
+    // scheduler – Agendamento dos ciclos de aquisição
+    // Cada CLP é lido em uma thread própria, para que um CLP lento não atrase
+    // os demais. As tags são lidas no período da sua classe de varredura.
+    @Autowired
+    private AcquisitionScheduler scheduler;
 
-    // emitters – Lista de clientes conectados via SSE
-    // Guarda todos os clientes que estão conectados e escutando eventos via SSE.
-    // CopyOnWriteArrayList é usada para permitir acesso concorrente com
-    // segurança (vários threads atualizando a lista).
-    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    @Autowired
+    private TagAcquisitionService acquisition;
 
-    // executor – Agendamento das tarefas de simulações
-    // Cria uma pool de threads agendadas (com 2 threads).
-    // É usada para executar tarefas repetidamente com um intervalo fixo (ex: a cada 1 segundo).
-    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+    // Tags lidas dos CLPs (clp.tags[...]), agrupadas pelo evento SSE que as publica
+    @Autowired
+    private TagRegistry registry;
+
+    // Últimos valores lidos das tags
+    @Autowired
+    private TagValueStore store;
+
+    // Streams simulados (sem tags), publicados por sendClp2to4Updates()
+    private static final List<String> SIMULATED_STREAMS = List.of("clp2", "clp3");
+
+    // Intervalo entre keyframes (estado completo) de cada stream; entre eles
+    // só as posições alteradas são enviadas
+    @Value("${clp.sse.keyframe-interval-ms:30000}")
+    private long keyframeIntervalMs;
+
+    // Codificação das tags do tipo bloco nos eventos: "array" ([0, 1, 2, ...])
+    // ou "base64" (texto, bem menor para blocos grandes)
+    @Value("${clp.sse.block-encoding:array}")
+    private String blockEncoding;
+
+    private boolean base64Blocks;
+
+    // Último estado publicado de cada stream, base para o cálculo dos deltas
+    private final Map<String, StreamState> streamStates = new LinkedHashMap<>();
+
+    private static class StreamState {
+        final String event;
+        final int clpId;
+        ClpValues published;
+        long seq;
+        long lastKeyframeMs;
+        boolean forceKeyframe = true;
+
+        StreamState(String stream) {
+            // Ex: stream "clp1" -> id = 1 enviado no evento "clp1-data".
+            this.event = stream + "-data";
+            this.clpId = Integer.parseInt(stream.replaceAll("\\D", ""));
+        }
+    }
 
     // @PostConstruct – Inicialização automática
     @PostConstruct
     // Esse método é chamado automaticamente após a construção do bean.
-    // Define os dois agendamentos de envio de dados simulados:
+    // Agenda a leitura das tags e o envio dos dados simulados:
+    public void start() {
+        switch (blockEncoding.toLowerCase()) {
+            case "array" -> base64Blocks = false;
+            case "base64" -> base64Blocks = true;
+            default -> throw new IllegalArgumentException("clp.sse.block-encoding inválido: " + blockEncoding);
+        }
+        for (String stream : registry.getStreams().keySet()) {
+            streamStates.put(stream, new StreamState(stream));
+        }
+        acquisition.addListener(this::onTagsUpdated);
+        acquisition.start(registry.getTags());
+        scheduler.schedule("simulado", "simulado", 1000, this::sendClp2to4Updates);
+    }
+
+    // Força uma leitura imediata de todos os CLPs, fora do ciclo (botão
+    // "Atualizar" e carregamento da página). Os valores lidos são publicados
+    // mesmo que não tenham mudado.
     public void startSimulation() {
-        // Agendamento separado para CLP 1 (800ms)
-        sendClp1Update();
-        sendClp4Update();
-        sendClp2to4Updates();
+        for (Tag tag : registry.getTags()) {
+            tag.invalidatePublished();
+        }
+        for (StreamState state : streamStates.values()) {
+            synchronized (state) {
+                state.forceKeyframe = true;
+            }
+        }
+        acquisition.pollNow();
+        scheduler.trigger("simulado", this::sendClp2to4Updates);
+    }
+
+    public List<PollStats> getPollStats() {
+        return scheduler.getStats();
     }
 
     // subscribe() – Adiciona cliente à lista de ouvintes SSE
     // Esse método é chamado quando o frontend conecta-se à URL /clp-data-stream.
-    public SseEmitter subscribe() {
-        // Cria um novo SseEmitter com timeout infinito (0L).
-        SseEmitter emitter = new SseEmitter(0L);
+    //   topics: streams (ex: clp1, clp4) ou nomes de tags (ex: clp4.p3) que o
+    //           cliente quer receber; vazio ou null = todos
+    public SseEmitter subscribe(String remoteAddress, List<String> topics) {
+        Set<String> events = resolveTopics(topics);
 
-        // Adiciona esse emitter à lista emitters.
-        emitters.add(emitter);
+        // Cria um novo SseEmitter e adiciona à lista de clientes (respeitando
+        // os limites de clientes no total e por IP).
+        SseEmitter emitter = broadcaster.register(remoteAddress, events);
 
-        // Remove o cliente se ele desconectar ou der timeout.
-        emitter.onCompletion(() -> emitters.remove(emitter));
-        emitter.onTimeout(() -> emitters.remove(emitter));
+        // Como só as mudanças são publicadas, o novo cliente recebe primeiro um
+        // keyframe de cada stream já publicado. O envio acontece com o estado do
+        // stream travado, então o próximo delta é sempre posterior ao keyframe.
+        for (StreamState state : streamStates.values()) {
+            synchronized (state) {
+                if (state.published == null || (events != null && !events.contains(state.event))) {
+                    continue;
+                }
+                if (!broadcaster.send(emitter, state.event,
+                        new ClpDelta(state.clpId, true, state.seq, null, state.published))) {
+                    break;
+                }
+            }
+        }
 
         return emitter;
     }
 
-    // sendClp1Update() – Gera 28 bytes (valores de 0 a 3) para o CLP 1
-    private void sendClp1Update() {
-        // Gera uma lista de 28 inteiros entre 0 e 3.
-        // Gera uma lista de 28 inteiros entre 0 e 3.
-
-        plcEstDb9 = new PlcConnector("10.74.241.10", 102);
-        try {
-            plcEstDb9.connect();
-        } catch (Exception ex) {
-            ex.printStackTrace();
+    // Converte os tópicos pedidos nos eventos SSE correspondentes. Uma tag é
+    // publicada dentro do evento do seu stream, então assinar uma tag equivale
+    // a assinar o stream dela.
+    private Set<String> resolveTopics(List<String> topics) {
+        if (topics == null || topics.isEmpty()) {
+            return null;
         }
 
-        try {
-            indexColorEst = plcEstDb9.readBlock(9, 68, 28);
-        } catch (Exception e1) {
-            e1.printStackTrace();
-            System.out.println("Falha");
-
+        Set<String> events = new LinkedHashSet<>();
+        for (String topic : topics) {
+            String name = topic.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (streamStates.containsKey(name) || SIMULATED_STREAMS.contains(name)) {
+                events.add(name + "-data");
+            } else {
+                try {
+                    events.add(registry.getTag(name).getStream() + "-data");
+                } catch (IllegalArgumentException e) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tópico desconhecido: " + name);
+                }
+            }
         }
+        return events.isEmpty() ? null : events;
+    }
 
-        List<Integer> byteArray = new ArrayList<>();
-        for (int i = 0; i < 28; i++) {
-            int color = (int) indexColorEst[i];
-            byteArray.add(color); // 0 a 3
+    // onTagsUpdated() – Publica os eventos dos streams em que alguma tag mudou
+    // (fora da banda morta). Se nada mudou, nada é enviado.
+    private void onTagsUpdated(List<Tag> changed, TagSnapshot snapshot) {
+        Set<String> streams = new LinkedHashSet<>();
+        for (Tag tag : changed) {
+            streams.add(tag.getStream());
+        }
+        for (String stream : streams) {
+            sendStreamUpdate(stream);
         }
-
-        // Cria um ClpData com id = 1 e envia com o evento "clp1-data".
-        ClpData clp1 = new ClpData(1, byteArray);
-        sendToEmitters("clp1-data", clp1);
     }
 
-    private void sendClp4Update() {
+    // sendStreamUpdate() – Envia o delta do stream em relação ao último estado
+    // publicado. Um keyframe é enviado no primeiro envio, quando a quantidade
+    // de posições muda, no botão "Atualizar" e a cada keyframe-interval-ms.
+    private void sendStreamUpdate(String stream) {
+        StreamState state = streamStates.get(stream);
+        long now = System.currentTimeMillis();
+
+        synchronized (state) {
+            // Lido com o stream travado: um envio nunca publica um snapshot
+            // mais antigo que o do envio anterior (tags do stream podem vir
+            // de grupos lidos em threads diferentes)
+            ClpValues values = streamValues(stream, store.snapshot());
+            boolean keyframe = state.forceKeyframe
+                    || state.published == null
+                    || state.published.getClass() != values.getClass()
+                    || state.published.size() != values.size()
+                    || now - state.lastKeyframeMs >= keyframeIntervalMs;
+
+            ClpDelta update;
+            if (keyframe) {
+                update = new ClpDelta(state.clpId, true, state.seq + 1, null, values);
+                state.lastKeyframeMs = now;
+                state.forceKeyframe = false;
+            } else {
+                int[] changed = new int[values.size()];
+                int count = 0;
+                for (int i = 0; i < values.size(); i++) {
+                    if (!values.sameAt(state.published, i)) {
+                        changed[count++] = i;
+                    }
+                }
+                if (count == 0) {
+                    return;
+                }
+                int[] indexes = new int[count];
+                System.arraycopy(changed, 0, indexes, 0, count);
+                update = new ClpDelta(state.clpId, false, state.seq + 1, indexes, values.select(changed, count));
+            }
+
+            state.published = values;
+            state.seq++;
+            if (update.isKeyframe()) {
+                sendToEmitters(state.event, update);
+            } else {
+                // Clientes que perderem algum delta (fila cheia) recebem o
+                // estado completo equivalente
+                ClpDelta fullState = new ClpDelta(state.clpId, true, state.seq, null, values);
+                broadcaster.broadcast(state.event, update, () -> fullState);
+            }
+        }
+    }
 
-        int values[] = new int[12];
+    // streamValues() – Valores atuais das tags de um stream, em array primitivo.
+    // Um stream com uma única tag do tipo bloco (ex: clp1, matriz de 28 bytes)
+    // é enviado como os bytes do bloco; streams só com tags integer (ex: clp4)
+    // ou só float, como array de short/float. Outras combinações vão como
+    // lista com o valor de cada tag.
+    private ClpValues streamValues(String stream, TagSnapshot snapshot) {
+        List<Tag> tags = registry.getTagsByStream(stream);
 
-        plcExpDb9 = new PlcConnector("10.74.241.40", 102);
-        try {
-            plcExpDb9.connect();
-        } catch (Exception ex) {
-            ex.printStackTrace();
+        S7DataType type = tags.get(0).getAddress().getType();
+        for (Tag tag : tags) {
+            if (tag.getAddress().getType() != type) {
+                type = null;
+                break;
+            }
         }
 
-        try {
-            int j = 0;
-            for (int i = 6; i <= 28; i += 2) {
-                values[j] = plcExpDb9.readInt(9, i);
-                j++;
+        if (type == S7DataType.BLOCK && tags.size() == 1) {
+            Tag tag = tags.get(0);
+            // Cada leitura gera um novo array, então o bloco pode ser enviado sem cópia
+            byte[] block = snapshot.getValue(tag.getId()) instanceof byte[] b ? b : new byte[tag.getAddress().getSize()];
+            return ClpValues.ofBytes(block, base64Blocks); // 0 a 3
+        }
+        if (type == S7DataType.INTEGER) {
+            short[] values = new short[tags.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = snapshot.getValue(tags.get(i).getId()) instanceof Integer v ? v.shortValue() : 0;
             }
-        } catch (Exception e1) {
-            e1.printStackTrace();
-            System.out.println("Falha");
+            return ClpValues.ofShorts(values);
         }
-        // Gera uma lista de 28 inteiros entre 0 e 3.
-        // Gera uma lista de 28 inteiros entre 0 e 3.;
-        List<Integer> byteArray = new ArrayList<>();
-        for (int i = 0; i < 12; i++) {
-            byteArray.add(values[i]); // 0 a 3
+        if (type == S7DataType.FLOAT) {
+            float[] values = new float[tags.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = snapshot.getValue(tags.get(i).getId()) instanceof Float v ? v : 0f;
+            }
+            return ClpValues.ofFloats(values);
         }
 
-        // Cria um ClpData com id = 1 e envia com o evento "clp1-data".
-        ClpData clp4 = new ClpData(4, byteArray);
-        sendToEmitters("clp4-data", clp4);
+        List<Object> values = new ArrayList<>();
+        for (Tag tag : tags) {
+            Object value = snapshot.getValue(tag.getId());
+            values.add(value != null ? value : 0);
+        }
+        return ClpValues.ofObjects(values);
     }
 
     // sendClp2to4Updates() – Gera valores inteiros simples
@@ -134,24 +296,22 @@ public class ClpSimulatorService {
     private void sendClp2to4Updates() {
         Random rand = new Random();
 
-        sendToEmitters("clp2-data", new ClpData(2, rand.nextInt(100)));
-        sendToEmitters("clp3-data", new ClpData(3, rand.nextInt(100)));
+        sendToEmitters("clp2-data", new ClpData(2, ClpValues.ofInt(rand.nextInt(100))));
+        sendToEmitters("clp3-data", new ClpData(3, ClpValues.ofInt(rand.nextInt(100))));
     }
 
     // sendToEmitters() – Envia um evento SSE para todos os clientes
-    private void sendToEmitters(String eventName, ClpData clpData) {
-        // Percorre todos os SseEmitters conectados.
-        for (SseEmitter emitter : emitters) {
-            try {
-                // Envia um evento com:
-                //      eventName → nome do evento no frontend (ex: clp1-data, clp2-data, etc).
-                //      data(clpData) → dados a serem enviados (convertidos para JSON automaticamente).
-                emitter.send(SseEmitter.event().name(eventName).data(clpData));
-            } catch (IOException e) {
-                // Se algum cliente tiver erro de conexão, ele é removido da lista.
-                emitters.remove(emitter);
-            }
-        }
+    //      eventName → nome do evento no frontend (ex: clp1-data, clp2-data, etc).
+    //      clpData → dados a serem enviados (convertidos para JSON uma única vez).
+    private void sendToEmitters(String eventName, Object clpData) {
+        broadcaster.broadcast(eventName, clpData);
     }
 
+    public List<BroadcastStats> getBroadcastStats() {
+        return broadcaster.getStats();
+    }
+
+    public List<SseClientStats> getClientStats() {
+        return broadcaster.getClientStats();
+    }
 }
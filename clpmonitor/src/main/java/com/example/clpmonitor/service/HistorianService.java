@@ -0,0 +1,105 @@
+package com.example.clpmonitor.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.clpmonitor.history.JdbcHistorian;
+import com.example.clpmonitor.model.HistorianStats;
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagSnapshot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Historiador: envia cada leitura das tags (taxa completa, não só as
+// mudanças) para o banco configurado em clp.historian.*, em lotes (ver
+// JdbcHistorian). Desligado por padrão.
+@Service
+public class HistorianService {
+
+    @Autowired
+    private TagRegistry registry;
+
+    @Autowired
+    private TagAcquisitionService acquisition;
+
+    @Value("${clp.historian.enabled:false}")
+    private boolean enabled;
+
+    @Value("${clp.historian.url:jdbc:mysql://localhost:3306/clpmonitor}")
+    private String url;
+
+    @Value("${clp.historian.username:root}")
+    private String username;
+
+    @Value("${clp.historian.password:}")
+    private String password;
+
+    @Value("${clp.historian.table:tag_history}")
+    private String table;
+
+    @Value("${clp.historian.batch-size:500}")
+    private int batchSize;
+
+    @Value("${clp.historian.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${clp.historian.retry-delay-ms:10000}")
+    private long retryDelayMs;
+
+    @Value("${clp.historian.queue-capacity:50000}")
+    private int queueCapacity;
+
+    @Value("${clp.historian.spill-dir:historian-spill}")
+    private String spillDir;
+
+    private JdbcHistorian historian;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // Colunas do tamanho da maior tag cadastrada (nome e valor em texto;
+        // blocos vão em hexa, 2 caracteres por byte)
+        int tagLength = 100;
+        int textLength = 1024;
+        for (Tag tag : registry.getTags()) {
+            tagLength = Math.max(tagLength, tag.getName().length());
+            switch (tag.getAddress().getType()) {
+                case BLOCK -> textLength = Math.max(textLength, 2 * tag.getAddress().getSize());
+                case STRING -> textLength = Math.max(textLength, tag.getAddress().getSize());
+                default -> {
+                }
+            }
+        }
+        historian = new JdbcHistorian(url, username, password, table, batchSize, flushIntervalMs, retryDelayMs,
+                queueCapacity, Path.of(spillDir), tagLength, textLength);
+        historian.start();
+        acquisition.addSampleListener(this::onSamples);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (historian != null) {
+            historian.stop();
+        }
+    }
+
+    private void onSamples(List<Tag> tags, TagSnapshot snapshot) {
+        for (Tag tag : tags) {
+            int id = tag.getId();
+            historian.offer(tag.getName(), snapshot.getReceiveTimestamp(id), snapshot.isGood(id),
+                    snapshot.getValue(id));
+        }
+    }
+
+    public HistorianStats getStats() {
+        return historian != null ? historian.getStats() : HistorianStats.disabled();
+    }
+}
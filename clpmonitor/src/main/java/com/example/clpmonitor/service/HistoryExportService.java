@@ -0,0 +1,103 @@
+package com.example.clpmonitor.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.example.clpmonitor.history.HistoryExportWriter;
+import com.example.clpmonitor.history.TagRingBuffer;
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.plc.S7DataType;
+
+// Exportação do histórico de um conjunto de tags (auditorias de qualidade).
+// Com o histórico em disco ligado, as amostras são percorridas direto das
+// páginas mapeadas dos segmentos (SegmentStore.scan) e escritas na saída uma
+// a uma: meses de dados passam pelo serviço sem serem carregados na memória.
+// Sem o disco, exporta o histórico em memória (limitado a clp.history.capacity
+// amostras por tag). As tags saem uma depois da outra, cada uma em ordem de horário.
+@Service
+public class HistoryExportService {
+
+    @Autowired
+    private TagRegistry registry;
+
+    @Autowired
+    private TagHistoryService history;
+
+    @Autowired
+    private SegmentHistoryService segmentHistory;
+
+    // Nomes separados por vírgula; vazio = todas as tags
+    public List<Tag> resolveTags(String names) {
+        if (names == null || names.isBlank()) {
+            return registry.getTags();
+        }
+        List<Tag> tags = new ArrayList<>();
+        for (String name : names.split(",")) {
+            if (!name.isBlank()) {
+                tags.add(registry.getTag(name.trim()));
+            }
+        }
+        return tags;
+    }
+
+    public void export(List<Tag> tags, long from, long to, HistoryExportWriter writer) throws IOException {
+        writer.begin();
+        for (int i = 0; i < tags.size(); i++) {
+            Tag tag = tags.get(i);
+            writer.startTag(i);
+            if (segmentHistory.isEnabled()) {
+                try {
+                    segmentHistory.scan(tag, from, to, (timestamp, good, type, value) -> {
+                        try {
+                            writer.sample(timestamp, good, value);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            } else {
+                exportRecent(tag, from, to, writer);
+            }
+            writer.endTag();
+        }
+        writer.finish();
+    }
+
+    // Amostras em memória convertidas para o formato do TagBinaryCodec
+    private void exportRecent(Tag tag, long from, long to, HistoryExportWriter writer) throws IOException {
+        TagRingBuffer.Samples samples = history.recent(tag, from, to);
+        S7DataType type = samples.getType();
+        ByteBuffer value = ByteBuffer.allocate(Math.max(8, tag.getAddress().getSize()));
+        for (int i = 0; i < samples.size(); i++) {
+            value.clear();
+            if (samples.getInts() != null) {
+                if (type == S7DataType.INTEGER) {
+                    value.putShort((short) samples.getInts()[i]);
+                } else {
+                    value.put((byte) samples.getInts()[i]);
+                }
+            } else if (samples.getFloats() != null) {
+                value.putFloat(samples.getFloats()[i]);
+            } else if (samples.getObjects()[i] instanceof byte[] block) {
+                value = ensure(value, block.length).put(block);
+            } else if (samples.getObjects()[i] != null) {
+                byte[] text = samples.getObjects()[i].toString().getBytes(StandardCharsets.UTF_8);
+                value = ensure(value, text.length).put(text);
+            }
+            writer.sample(samples.getTimestamps()[i], samples.getGood()[i], value.flip());
+        }
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int size) {
+        return buffer.capacity() >= size ? buffer : ByteBuffer.allocate(size);
+    }
+}
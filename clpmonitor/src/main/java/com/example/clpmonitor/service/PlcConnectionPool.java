@@ -0,0 +1,272 @@
+package com.example.clpmonitor.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.clpmonitor.plc.PlcConnector;
+import com.example.clpmonitor.plc.S7NioTransport;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Pool de sessões com os CLPs, separado por ip:porta.
+// O handshake (TCP + COTP + Setup Communication) custa mais que a própria
+// leitura/escrita, então as sessões negociadas são reaproveitadas entre as
+// chamadas. Os CPUs S7 aceitam poucas conexões simultâneas, por isso há um
+// limite de sessões por CLP.
+@Service
+public class PlcConnectionPool {
+
+    // Operação executada com uma sessão emprestada do pool
+    @FunctionalInterface
+    public interface PlcOperation<T> {
+        T apply(PlcConnector plc) throws Exception;
+    }
+
+    @Value("${clp.pool.max-sessions-per-plc:2}")
+    private int maxSessionsPerPlc;
+
+    @Value("${clp.pool.borrow-timeout-ms:5000}")
+    private long borrowTimeoutMs;
+
+    @Value("${clp.pool.idle-timeout-ms:60000}")
+    private long idleTimeoutMs;
+
+    @Value("${clp.pool.keepalive-interval-ms:15000}")
+    private long keepaliveIntervalMs;
+
+    @Value("${clp.pool.pipelining:false}")
+    private boolean pipelining;
+
+    @Value("${clp.transport.type:blocking}")
+    private String transportType;
+
+    @Value("${clp.transport.selector-threads:2}")
+    private int selectorThreads;
+
+    private S7NioTransport nioTransport;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    // Thread de manutenção: remove sessões ociosas e envia keepalives
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "plc-pool-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Sessões de um CLP (ip:porta): ociosas na fila, limite pelo semáforo
+    private class Endpoint {
+        final String ip;
+        final int port;
+        final Semaphore permits = new Semaphore(maxSessionsPerPlc, true);
+        final ConcurrentLinkedDeque<PooledSession> idle = new ConcurrentLinkedDeque<>();
+
+        Endpoint(String ip, int port) {
+            this.ip = ip;
+            this.port = port;
+        }
+    }
+
+    // lastUsed: último uso real; lastChecked: último keepalive bem-sucedido
+    private record PooledSession(PlcConnector plc, long lastUsed, long lastChecked) {
+
+        PooledSession(PlcConnector plc) {
+            this(plc, System.currentTimeMillis(), System.currentTimeMillis());
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (transportType.equalsIgnoreCase("nio")) {
+            nioTransport = new S7NioTransport(selectorThreads);
+        }
+
+        long period = Math.max(1000, keepaliveIntervalMs / 2);
+        maintenance.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Executa a operação com uma sessão do pool. Se a sessão falhar por
+    // conexão (ex.: CLP reiniciado, conexão derrubada, timeout), ela é
+    // descartada e a operação é repetida uma vez com uma sessão nova. Erros da
+    // própria operação (item com erro, job recusado, valor inválido) não
+    // derrubam a sessão. Só para operações que podem ser repetidas (leituras).
+    public <T> T execute(String ip, int port, PlcOperation<T> operation) throws Exception {
+        return execute(ip, port, operation, true);
+    }
+
+    // Como execute(), mas nunca repete a operação: para escritas, que não
+    // podem ser enviadas duas vezes ao CLP
+    public <T> T executeOnce(String ip, int port, PlcOperation<T> operation) throws Exception {
+        return execute(ip, port, operation, false);
+    }
+
+    private <T> T execute(String ip, int port, PlcOperation<T> operation, boolean retry) throws Exception {
+        Endpoint endpoint = endpoint(ip, port);
+
+        acquire(endpoint);
+        try {
+            PooledSession session = endpoint.idle.pollFirst();
+            if (session != null) {
+                try {
+                    return run(endpoint, session.plc(), operation);
+                } catch (Exception e) {
+                    if (!retry || !isConnectionFailure(e)) {
+                        throw e;
+                    }
+                    System.out.println("Sessão com o CLP " + key(ip, port) + " descartada, reconectando: " + e.getMessage());
+                }
+            }
+
+            return run(endpoint, open(endpoint), operation);
+        } finally {
+            endpoint.permits.release();
+        }
+    }
+
+    // Devolve a sessão ao pool, a menos que a conexão tenha falhado
+    private <T> T run(Endpoint endpoint, PlcConnector plc, PlcOperation<T> operation) throws Exception {
+        try {
+            T result = operation.apply(plc);
+            endpoint.idle.addFirst(new PooledSession(plc));
+            return result;
+        } catch (Exception e) {
+            if (isConnectionFailure(e)) {
+                close(plc);
+            } else {
+                endpoint.idle.addFirst(new PooledSession(plc));
+            }
+            throw e;
+        }
+    }
+
+    // Falha de E/S ou timeout em qualquer ponto da cadeia de causas
+    static boolean isConnectionFailure(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof IOException || e instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Quantidade de sessões ociosas por CLP (para diagnóstico)
+    public Map<String, Integer> getIdleSessions() {
+        Map<String, Integer> idle = new ConcurrentHashMap<>();
+        endpoints.forEach((key, endpoint) -> idle.put(key, endpoint.idle.size()));
+        return idle;
+    }
+
+    private Endpoint endpoint(String ip, int port) {
+        return endpoints.computeIfAbsent(key(ip, port), k -> new Endpoint(ip.trim(), port));
+    }
+
+    private static String key(String ip, int port) {
+        return ip.trim() + ":" + port;
+    }
+
+    private void acquire(Endpoint endpoint) throws Exception {
+        if (!endpoint.permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new Exception("Limite de " + maxSessionsPerPlc + " sessões atingido para o CLP "
+                    + key(endpoint.ip, endpoint.port));
+        }
+    }
+
+    private PlcConnector open(Endpoint endpoint) throws Exception {
+        PlcConnector plc = nioTransport != null
+                ? new PlcConnector(endpoint.ip, endpoint.port, nioTransport)
+                : new PlcConnector(endpoint.ip, endpoint.port);
+        try {
+            plc.connect();
+            if (pipelining) {
+                plc.enablePipelining();
+            }
+            return plc;
+        } catch (Exception e) {
+            close(plc);
+            throw e;
+        }
+    }
+
+    private void close(PlcConnector plc) {
+        try {
+            plc.disconnect();
+        } catch (Exception e) {
+            System.err.println("Erro ao encerrar sessão com o CLP: " + e.getMessage());
+        }
+    }
+
+    // Remove sessões ociosas há mais de idleTimeoutMs e envia keepalive às que
+    // não são usadas nem verificadas há mais de keepaliveIntervalMs. Cada
+    // sessão verificada é retirada da fila e ocupa uma vaga do CLP durante o
+    // teste, para não ser usada ao mesmo tempo por outra thread.
+    private void maintain() {
+        long now = System.currentTimeMillis();
+
+        for (Endpoint endpoint : endpoints.values()) {
+            List<PooledSession> alive = new ArrayList<>();
+
+            Iterator<PooledSession> sessions = endpoint.idle.descendingIterator();
+            while (sessions.hasNext()) {
+                PooledSession session = sessions.next();
+                boolean expired = now - session.lastUsed() >= idleTimeoutMs;
+                boolean unchecked = now - Math.max(session.lastUsed(), session.lastChecked()) >= keepaliveIntervalMs;
+
+                if (!expired && !unchecked) {
+                    continue;
+                }
+                if (!endpoint.permits.tryAcquire()) {
+                    break;
+                }
+                try {
+                    if (!endpoint.idle.remove(session)) {
+                        continue;
+                    }
+                    if (expired) {
+                        close(session.plc());
+                    } else if (session.plc().ping()) {
+                        alive.add(new PooledSession(session.plc(), session.lastUsed(), now));
+                    } else {
+                        System.out.println("Keepalive falhou, sessão descartada: " + key(endpoint.ip, endpoint.port));
+                        close(session.plc());
+                    }
+                } finally {
+                    endpoint.permits.release();
+                }
+            }
+
+            // O keepalive não conta como uso: a sessão volta para o fim da fila
+            // e continua sujeita à remoção por tempo ocioso
+            for (PooledSession session : alive) {
+                endpoint.idle.addLast(session);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintenance.shutdownNow();
+        for (Endpoint endpoint : endpoints.values()) {
+            PooledSession session;
+            while ((session = endpoint.idle.pollFirst()) != null) {
+                close(session.plc());
+            }
+        }
+        if (nioTransport != null) {
+            nioTransport.close();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.clpmonitor.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.clpmonitor.history.SegmentStore;
+import com.example.clpmonitor.history.TagRingBuffer;
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagSnapshot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Histórico embarcado em disco (SegmentStore), para células sem servidor de
+// banco: grava toda leitura das tags em segmentos mapeados em memória e
+// sobrevive a reinícios da aplicação. Desligado por padrão.
+// O id gravado em cada registro vem do catálogo tags.catalog (nome -> id) na
+// pasta do histórico, e não da ordem das tags no application.properties: assim
+// incluir ou reordenar tags não mistura o histórico já gravado.
+@Service
+public class SegmentHistoryService {
+
+    private static final String CATALOG = "tags.catalog";
+
+    @Autowired
+    private TagRegistry registry;
+
+    @Autowired
+    private TagAcquisitionService acquisition;
+
+    @Value("${clp.segment-store.enabled:false}")
+    private boolean enabled;
+
+    @Value("${clp.segment-store.dir:history-data}")
+    private String dir;
+
+    @Value("${clp.segment-store.segment-size-mb:64}")
+    private long segmentSizeMb;
+
+    @Value("${clp.segment-store.segment-hours:6}")
+    private long segmentHours;
+
+    @Value("${clp.segment-store.retention-days:30}")
+    private long retentionDays;
+
+    @Value("${clp.segment-store.max-size-mb:10240}")
+    private long maxSizeMb;
+
+    private SegmentStore store;
+
+    // id da tag no cadastro -> id no catálogo do histórico
+    private int[] storeIds;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path path = Path.of(dir);
+        Files.createDirectories(path);
+        storeIds = loadCatalog(path.resolve(CATALOG));
+
+        // Registro com espaço para o maior valor (blocos e strings); no mínimo 8 bytes
+        int valueWidth = 8;
+        for (Tag tag : registry.getTags()) {
+            valueWidth = Math.max(valueWidth, tag.getAddress().getSize());
+        }
+
+        store = new SegmentStore(path, valueWidth, segmentSizeMb * 1024 * 1024, segmentHours * 3_600_000L,
+                retentionDays * 86_400_000L, maxSizeMb * 1024 * 1024);
+        store.open();
+        acquisition.addSampleListener(this::onSamples);
+    }
+
+    private int[] loadCatalog(Path file) throws IOException {
+        Properties catalog = new Properties();
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                catalog.load(in);
+            }
+        }
+
+        int next = 0;
+        for (String name : catalog.stringPropertyNames()) {
+            next = Math.max(next, Integer.parseInt(catalog.getProperty(name)) + 1);
+        }
+
+        int[] ids = new int[registry.size()];
+        boolean changed = false;
+        for (Tag tag : registry.getTags()) {
+            String id = catalog.getProperty(tag.getName());
+            if (id == null) {
+                id = String.valueOf(next++);
+                catalog.setProperty(tag.getName(), id);
+                changed = true;
+            }
+            ids[tag.getId()] = Integer.parseInt(id);
+        }
+        if (next > 0xFFFF) {
+            throw new IllegalArgumentException("Catálogo do histórico em disco com tags demais: " + file);
+        }
+
+        if (changed) {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                catalog.store(out, "Tags do historico em disco (nome = id gravado nos segmentos)");
+            }
+        }
+        return ids;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private void onSamples(List<Tag> tags, TagSnapshot snapshot) {
+        for (Tag tag : tags) {
+            int id = tag.getId();
+            try {
+                store.append(storeIds[id], snapshot.getReceiveTimestamp(id), snapshot.isGood(id),
+                        tag.getAddress().getType(), snapshot.getValue(id));
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar o histórico em disco: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    // Amostras da tag com from <= timestamp <= to, lidas dos segmentos;
+    // null se forem mais de limit
+    public TagRingBuffer.Samples read(Tag tag, long from, long to, int limit) {
+        return store.read(storeIds[tag.getId()], tag.getAddress().getType(), from, to, limit);
+    }
+
+    // Percorre as amostras direto das páginas mapeadas, sem montar arrays
+    public void scan(Tag tag, long from, long to, SegmentStore.SampleVisitor visitor) {
+        store.scan(storeIds[tag.getId()], from, to, visitor);
+    }
+}
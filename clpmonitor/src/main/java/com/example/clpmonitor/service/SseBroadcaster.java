@@ -0,0 +1,559 @@
+package com.example.clpmonitor.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.clpmonitor.model.BroadcastStats;
+import com.example.clpmonitor.model.SseClientStats;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Envio dos eventos SSE para todos os clientes conectados.
+// Cada evento é convertido para JSON e montado como frame SSE
+// ("event:...\ndata:...\n\n") uma única vez; os mesmos bytes são colocados na
+// fila de cada cliente. Cada cliente tem uma fila limitada e uma thread própria
+// de escrita, então um navegador lento (Wi-Fi ruim) não atrasa os demais nem
+// a thread de leitura dos CLPs. Quando a fila enche vale a política
+// configurada em clp.sse.overflow-policy:
+//   drop-oldest:     descarta o frame mais antigo da fila
+//   coalesce-latest: substitui o frame pendente do mesmo evento pelo novo
+//   disconnect:      desconecta o cliente (o navegador reconecta sozinho)
+// Um comentário SSE (heartbeat) é enviado periodicamente para que conexões
+// mortas falhem na escrita mesmo em streams sem mudanças; clientes com escrita
+// travada por mais de clp.sse.stall-timeout-ms são removidos. A quantidade de
+// clientes é limitada no total e por IP.
+// Um cliente pode assinar só alguns eventos; os assinantes ficam indexados
+// por evento, então cada envio percorre apenas os clientes interessados.
+@Service
+public class SseBroadcaster {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST, COALESCE_LATEST, DISCONNECT;
+
+        public static OverflowPolicy fromName(String name) {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${clp.sse.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${clp.sse.overflow-policy:coalesce-latest}")
+    private String overflowPolicyName;
+
+    @Value("${clp.sse.heartbeat-interval-ms:15000}")
+    private long heartbeatIntervalMs;
+
+    @Value("${clp.sse.stall-timeout-ms:30000}")
+    private long stallTimeoutMs;
+
+    @Value("${clp.sse.max-subscribers:200}")
+    private int maxSubscribers;
+
+    @Value("${clp.sse.max-subscribers-per-ip:10}")
+    private int maxSubscribersPerIp;
+
+    // Comentário SSE: ignorado pelo EventSource, mas mantém a conexão "viva"
+    private static final String HEARTBEAT_EVENT = "";
+    private Frame heartbeat;
+    private ScheduledExecutorService heartbeatExecutor;
+
+    // Completa os emitters dos clientes removidos fora das threads de leitura,
+    // de escrita e do heartbeat (complete() pode esperar por uma escrita travada)
+    private final ExecutorService completer = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "sse-complete");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Clientes conectados via SSE. CopyOnWriteArrayList permite percorrer a
+    // lista enquanto outras threads adicionam ou removem clientes.
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<SseEmitter, Subscriber> byEmitter = new ConcurrentHashMap<>();
+
+    // Índice de assinaturas: clientes de todos os eventos e, para os demais,
+    // evento -> clientes que o assinaram
+    private final List<Subscriber> allEvents = new CopyOnWriteArrayList<>();
+    private final Map<String, List<Subscriber>> byEvent = new ConcurrentHashMap<>();
+
+    private final Map<String, BroadcastStats> stats = new ConcurrentHashMap<>();
+    private final AtomicLong subscriberSequence = new AtomicLong();
+    private final AtomicLong disconnectedSlow = new AtomicLong();
+    private final AtomicLong disconnectedStalled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Map<String, Integer> subscribersByIp = new ConcurrentHashMap<>();
+
+    // Frame SSE já codificado. Um delta (ex: clp1-data com só as posições que
+    // mudaram) guarda também como obter o keyframe equivalente: se o cliente
+    // perder um delta, o próximo frame desse evento é enviado como keyframe.
+    static final class Frame {
+        final String event;
+        final Set<DataWithMediaType> data;
+        final int length;
+        private final Supplier<Frame> keyframeSupplier;
+        private Frame keyframe;
+
+        Frame(String event, byte[] bytes, Supplier<Frame> keyframeSupplier) {
+            this.event = event;
+            this.data = Set.of(new DataWithMediaType(bytes, MediaType.TEXT_EVENT_STREAM));
+            this.length = bytes.length;
+            this.keyframeSupplier = keyframeSupplier;
+        }
+
+        boolean isDelta() {
+            return keyframeSupplier != null;
+        }
+
+        // Versão completa do frame, codificada na primeira vez que algum
+        // cliente precisar e compartilhada com os demais
+        synchronized Frame selfContained() {
+            if (keyframeSupplier == null) {
+                return this;
+            }
+            if (keyframe == null) {
+                keyframe = keyframeSupplier.get();
+            }
+            return keyframe != null ? keyframe : this;
+        }
+    }
+
+    // Cliente SSE com a sua fila de envio e a thread que a esvazia
+    private final class Subscriber implements Runnable {
+        final long id;
+        final String remoteAddress;
+        final SseEmitter emitter;
+        // Eventos assinados (null = todos)
+        final Set<String> events;
+        final ArrayDeque<Frame> queue = new ArrayDeque<>();
+        final OverflowPolicy policy;
+        final int capacity;
+        // Eventos com delta perdido: o próximo frame deles vai como keyframe
+        final Set<String> resync = new HashSet<>();
+        boolean closed;
+        Thread writer;
+        // Início da escrita em andamento (0 = nenhuma) e da última concluída
+        volatile long writeStartedMs;
+        volatile long lastWriteMs = System.currentTimeMillis();
+
+        int maxDepth;
+        long sent;
+        long dropped;
+        long coalesced;
+
+        Subscriber(long id, String remoteAddress, SseEmitter emitter, Set<String> events, OverflowPolicy policy,
+                int capacity) {
+            this.id = id;
+            this.remoteAddress = remoteAddress;
+            this.emitter = emitter;
+            this.events = events;
+            this.policy = policy;
+            this.capacity = capacity;
+        }
+
+        // Chamado pelas threads produtoras; nunca bloqueia
+        void offer(Frame frame) {
+            boolean disconnect = false;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (resync.remove(frame.event)) {
+                    frame = frame.selfContained();
+                }
+
+                if (queue.size() >= capacity) {
+                    switch (policy) {
+                        case DISCONNECT -> disconnect = true;
+                        case COALESCE_LATEST -> {
+                            if (!coalesce(frame)) {
+                                dropOldest(frame);
+                            }
+                        }
+                        default -> dropOldest(frame);
+                    }
+                    if (!disconnect) {
+                        notifyAll();
+                    }
+                } else {
+                    queue.addLast(frame);
+                    maxDepth = Math.max(maxDepth, queue.size());
+                    notifyAll();
+                }
+            }
+            if (disconnect) {
+                System.err.println("Cliente SSE " + id + " desconectado: fila cheia (" + capacity + " frames).");
+                disconnectedSlow.incrementAndGet();
+                close(true);
+            }
+        }
+
+        // Troca o frame pendente mais recente do mesmo evento pelo novo. O
+        // cliente deixa de receber o frame antigo, por isso o novo vai completo.
+        private boolean coalesce(Frame frame) {
+            Iterator<Frame> it = queue.descendingIterator();
+            while (it.hasNext()) {
+                if (it.next().event.equals(frame.event)) {
+                    it.remove();
+                    queue.addLast(frame.selfContained());
+                    coalesced++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void dropOldest(Frame frame) {
+            Frame lost = queue.pollFirst();
+            dropped++;
+
+            if (lost != null && (lost.isDelta() || lost.event.equals(frame.event))) {
+                // O próximo frame pendente desse evento passa a ser keyframe
+                if (!upgradeQueued(lost.event)) {
+                    if (frame.event.equals(lost.event)) {
+                        frame = frame.selfContained();
+                    } else {
+                        resync.add(lost.event);
+                    }
+                }
+            }
+            queue.addLast(frame);
+        }
+
+        private boolean upgradeQueued(String event) {
+            int size = queue.size();
+            boolean upgraded = false;
+            for (int i = 0; i < size; i++) {
+                Frame queued = queue.pollFirst();
+                if (!upgraded && queued.event.equals(event)) {
+                    queued = queued.selfContained();
+                    upgraded = true;
+                }
+                queue.addLast(queued);
+            }
+            return upgraded;
+        }
+
+        private synchronized Frame take() throws InterruptedException {
+            while (queue.isEmpty() && !closed) {
+                wait();
+            }
+            return closed ? null : queue.pollFirst();
+        }
+
+        @Override
+        public void run() {
+            try {
+                Frame frame;
+                while ((frame = take()) != null) {
+                    writeStartedMs = System.currentTimeMillis();
+                    emitter.send(frame.data);
+                    lastWriteMs = System.currentTimeMillis();
+                    writeStartedMs = 0;
+                    synchronized (this) {
+                        sent++;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Se o cliente tiver erro de conexão, ele é removido da lista.
+                close(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void close(boolean complete) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                queue.clear();
+                notifyAll();
+            }
+            if (subscribers.remove(this)) {
+                subscribersByIp.computeIfPresent(remoteAddress, (ip, count) -> count > 1 ? count - 1 : null);
+            }
+            byEmitter.remove(emitter);
+            unindex(this);
+            if (complete) {
+                completeLater(null);
+            }
+        }
+
+        // Encerra a requisição assíncrona do emitter (liberando os recursos do
+        // container) em outra thread; error != null encerra com erro
+        void completeLater(Throwable error) {
+            try {
+                completer.execute(() -> {
+                    try {
+                        if (error == null) {
+                            emitter.complete();
+                        } else {
+                            emitter.completeWithError(error);
+                        }
+                    } catch (Exception e) {
+                        // Conexão já encerrada
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Aplicação encerrando
+            }
+        }
+
+        // Escrita travada (conexão sem ACK) ou fila parada sem nenhuma escrita
+        boolean isStalled(long now) {
+            long started = writeStartedMs;
+            if (started != 0) {
+                return now - started > stallTimeoutMs;
+            }
+            synchronized (this) {
+                return !queue.isEmpty() && now - lastWriteMs > stallTimeoutMs;
+            }
+        }
+
+        synchronized SseClientStats snapshot() {
+            return new SseClientStats(id, queue.size(), maxDepth, sent, dropped, coalesced);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        heartbeat = new Frame(HEARTBEAT_EVENT, ":hb\n\n".getBytes(StandardCharsets.UTF_8), null);
+
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleAtFixedRate(this::sendHeartbeats, heartbeatIntervalMs, heartbeatIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter register(String remoteAddress) {
+        return register(remoteAddress, null);
+    }
+
+    // Cria um cliente com timeout infinito (0L), removido da lista ao
+    // desconectar, dar timeout ou erro. Recusa a conexão (503/429) se o limite
+    // total ou por IP de clientes já foi atingido.
+    //   events: nomes dos eventos assinados (ex: clp1-data); null = todos
+    public synchronized SseEmitter register(String remoteAddress, Set<String> events) {
+        if (subscribers.size() >= maxSubscribers) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Limite de clientes SSE atingido (" + maxSubscribers + ").");
+        }
+        if (subscribersByIp.getOrDefault(remoteAddress, 0) >= maxSubscribersPerIp) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Limite de clientes SSE por IP atingido (" + maxSubscribersPerIp + ").");
+        }
+
+        SseEmitter emitter = newEmitter();
+        Subscriber subscriber = new Subscriber(subscriberSequence.incrementAndGet(), remoteAddress, emitter,
+                events != null ? Set.copyOf(events) : null, OverflowPolicy.fromName(overflowPolicyName),
+                Math.max(1, queueCapacity));
+
+        emitter.onCompletion(() -> subscriber.close(false));
+        emitter.onTimeout(() -> subscriber.close(false));
+        emitter.onError(error -> subscriber.close(false));
+
+        subscribers.add(subscriber);
+        subscribersByIp.merge(remoteAddress, 1, Integer::sum);
+        byEmitter.put(emitter, subscriber);
+        index(subscriber);
+
+        subscriber.writer = new Thread(subscriber, "sse-writer-" + subscriber.id);
+        subscriber.writer.setDaemon(true);
+        subscriber.writer.start();
+
+        return emitter;
+    }
+
+    // Emitter de um novo cliente, sem timeout (substituído nos testes)
+    SseEmitter newEmitter() {
+        return new SseEmitter(0L);
+    }
+
+    private void index(Subscriber subscriber) {
+        if (subscriber.events == null) {
+            allEvents.add(subscriber);
+            return;
+        }
+        for (String event : subscriber.events) {
+            byEvent.computeIfAbsent(event, e -> new CopyOnWriteArrayList<>()).add(subscriber);
+        }
+    }
+
+    private void unindex(Subscriber subscriber) {
+        if (subscriber.events == null) {
+            allEvents.remove(subscriber);
+            return;
+        }
+        for (String event : subscriber.events) {
+            List<Subscriber> list = byEvent.get(event);
+            if (list != null) {
+                list.remove(subscriber);
+            }
+        }
+    }
+
+    // Envia o heartbeat a todos e remove os clientes travados. Uma conexão
+    // fechada pelo navegador só é percebida quando uma escrita falha.
+    private void sendHeartbeats() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.isStalled(now)) {
+                System.err.println("Cliente SSE " + subscriber.id + " (" + subscriber.remoteAddress
+                        + ") removido: escrita parada há mais de " + stallTimeoutMs + " ms.");
+                disconnectedStalled.incrementAndGet();
+                // A thread de escrita pode estar presa no send(); o emitter é
+                // completado em outra thread para não travar esta também
+                subscriber.close(false);
+                subscriber.writer.interrupt();
+                subscriber.completeLater(new IOException("Escrita parada há mais de " + stallTimeoutMs + " ms."));
+            } else {
+                subscriber.offer(heartbeat);
+            }
+        }
+    }
+
+    private Frame encode(String eventName, Object data, Supplier<Frame> keyframe) throws JsonProcessingException {
+        String json = objectMapper.writeValueAsString(data);
+        byte[] bytes = ("event:" + eventName + "\ndata:" + json + "\n\n").getBytes(StandardCharsets.UTF_8);
+        return new Frame(eventName, bytes, keyframe);
+    }
+
+    // Envia um evento para um único cliente (ex: keyframe ao conectar)
+    public boolean send(SseEmitter emitter, String eventName, Object data) {
+        Subscriber subscriber = byEmitter.get(emitter);
+        if (subscriber == null) {
+            return false;
+        }
+        try {
+            subscriber.offer(encode(eventName, data, null));
+            return true;
+        } catch (JsonProcessingException e) {
+            System.err.println("Erro ao serializar o evento " + eventName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    public void broadcast(String eventName, Object data) {
+        broadcast(eventName, data, null);
+    }
+
+    // keyframe: para eventos de delta, o estado completo equivalente, usado só
+    // pelos clientes que perderem algum frame do evento
+    public void broadcast(String eventName, Object data, Supplier<Object> keyframe) {
+        long start = System.nanoTime();
+
+        Frame frame;
+        try {
+            Supplier<Frame> keyframeFrame = null;
+            if (keyframe != null) {
+                keyframeFrame = () -> {
+                    try {
+                        return encode(eventName, keyframe.get(), null);
+                    } catch (JsonProcessingException e) {
+                        System.err.println("Erro ao serializar o keyframe " + eventName + ": " + e.getMessage());
+                        return null;
+                    }
+                };
+            }
+            frame = encode(eventName, data, keyframeFrame);
+        } catch (JsonProcessingException e) {
+            System.err.println("Erro ao serializar o evento " + eventName + ": " + e.getMessage());
+            return;
+        }
+        long encoded = System.nanoTime();
+
+        int count = 0;
+        for (Subscriber subscriber : allEvents) {
+            subscriber.offer(frame);
+            count++;
+        }
+        List<Subscriber> interested = byEvent.get(eventName);
+        if (interested != null) {
+            for (Subscriber subscriber : interested) {
+                subscriber.offer(frame);
+                count++;
+            }
+        }
+        long queued = System.nanoTime();
+
+        stats.computeIfAbsent(eventName, BroadcastStats::new).record(count, frame.length,
+                (encoded - start) / 1000, (queued - encoded) / 1000, 0);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Clientes desconectados pela política "disconnect"
+    public long getDisconnectedSlow() {
+        return disconnectedSlow.get();
+    }
+
+    // Clientes removidos por escrita travada
+    public long getDisconnectedStalled() {
+        return disconnectedStalled.get();
+    }
+
+    // Conexões recusadas pelos limites de clientes
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public List<BroadcastStats> getStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    public List<SseClientStats> getClientStats() {
+        List<SseClientStats> clients = new ArrayList<>();
+        for (Subscriber subscriber : subscribers) {
+            clients.add(subscriber.snapshot());
+        }
+        return clients;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close(true);
+        }
+        completer.shutdown();
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.clpmonitor.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.clpmonitor.config.ClpProperties;
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagSnapshot;
+import com.example.clpmonitor.plc.S7Address;
+import com.example.clpmonitor.plc.S7ReadPlan;
+
+// Leitura das tags por classe de varredura (scan class).
+// As tags de um mesmo CLP e da mesma classe formam um grupo, lido com uma
+// única leitura em lote (Read Var com vários itens) a cada ciclo da classe.
+// Assim dados de configuração, que quase não mudam, podem ficar em uma classe
+// lenta e não disputam a comunicação com os valores de processo rápidos.
+// Cada grupo tem um plano de leitura (S7ReadPlan) montado uma única vez; no
+// ciclo só os telegramas prontos são enviados. Tags vizinhas no mesmo DB são
+// unidas em leituras de bloco (ver S7ReadOptimizer).
+@Service
+public class TagAcquisitionService {
+
+    // Chamado após cada leitura de grupo, só com as tags que mudaram (fora da
+    // banda morta, ver Tag.checkChanged), e o snapshot que contém a leitura.
+    // Se nada mudou, não é chamado.
+    @FunctionalInterface
+    public interface TagListener {
+        void onTagsUpdated(List<Tag> tags, TagSnapshot snapshot);
+    }
+
+    @Autowired
+    private AcquisitionScheduler scheduler;
+
+    @Autowired
+    private PlcConnectionPool connectionPool;
+
+    @Autowired
+    private ClpProperties properties;
+
+    @Autowired
+    private TagValueStore store;
+
+    // Maior intervalo (bytes) entre tags de um mesmo DB lidas como um só bloco;
+    // -1 lê cada tag como um item separado
+    @Value("${clp.read-optimizer.max-gap-bytes:16}")
+    private int maxGapBytes;
+
+    private final List<TagListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<TagListener> sampleListeners = new CopyOnWriteArrayList<>();
+    private final List<ScanGroup> groups = new ArrayList<>();
+
+    // Tags de um CLP que compartilham a mesma classe de varredura
+    private static class ScanGroup {
+        final String plc;
+        final String scanClass;
+        final List<Tag> tags = new ArrayList<>();
+        S7ReadPlan plan;
+        int[] ids;
+
+        ScanGroup(String plc, String scanClass) {
+            this.plc = plc;
+            this.scanClass = scanClass;
+        }
+
+        String name() {
+            return plc + "/" + scanClass;
+        }
+    }
+
+    public void addListener(TagListener listener) {
+        listeners.add(listener);
+    }
+
+    // Chamado após toda leitura de grupo, com todas as tags do grupo, mudando
+    // ou não (ex: historiador com a taxa completa de leitura). Numa falha de
+    // leitura, só com as tags que deixaram de ser boas.
+    public void addSampleListener(TagListener listener) {
+        sampleListeners.add(listener);
+    }
+
+    // Agrupa as tags por CLP e classe de varredura e agenda um ciclo por grupo.
+    // Os grupos do mesmo CLP rodam na thread desse CLP.
+    public synchronized void start(List<Tag> tags) {
+        Map<String, ScanGroup> byName = new LinkedHashMap<>();
+        for (Tag tag : tags) {
+            ScanGroup group = byName.computeIfAbsent(tag.getPlc() + "/" + tag.getScanClass(),
+                    name -> new ScanGroup(tag.getPlc(), tag.getScanClass()));
+            group.tags.add(tag);
+        }
+
+        for (ScanGroup group : byName.values()) {
+            List<S7Address> addresses = new ArrayList<>(group.tags.size());
+            for (Tag tag : group.tags) {
+                addresses.add(tag.getAddress());
+            }
+            group.plan = new S7ReadPlan(addresses, maxGapBytes);
+            group.ids = new int[group.tags.size()];
+            for (int i = 0; i < group.ids.length; i++) {
+                group.ids[i] = group.tags.get(i).getId();
+            }
+
+            long periodMs = properties.getScanClassPeriodMs(group.scanClass);
+            scheduler.schedule(group.plc, group.name(), periodMs, () -> poll(group));
+            groups.add(group);
+        }
+    }
+
+    // Lê todos os grupos imediatamente, fora do ciclo
+    public synchronized void pollNow() {
+        for (ScanGroup group : groups) {
+            scheduler.trigger(group.plc, () -> poll(group));
+        }
+    }
+
+    private void poll(ScanGroup group) throws Exception {
+        ClpProperties.Plc plc = properties.getPlc(group.plc);
+
+        long requestedAt = System.currentTimeMillis();
+        S7ReadPlan plan;
+        try {
+            plan = connectionPool.execute(plc.getIp(), plc.getPort(), session -> session.readPlan(group.plan));
+        } catch (Exception e) {
+            publishFailure(group);
+            throw e;
+        }
+        long receivedAt = System.currentTimeMillis();
+
+        Object[] values = new Object[plan.size()];
+        boolean[] good = new boolean[plan.size()];
+        for (int i = 0; i < plan.size(); i++) {
+            values[i] = plan.getValue(i);
+            good[i] = plan.isSuccess(i);
+        }
+        TagSnapshot snapshot = store.publish(group.ids, values, good, requestedAt, receivedAt);
+
+        for (TagListener listener : sampleListeners) {
+            listener.onTagsUpdated(group.tags, snapshot);
+        }
+
+        List<Tag> changed = new ArrayList<>();
+        for (Tag tag : group.tags) {
+            if (tag.checkChanged(snapshot.getValue(tag.getId()), snapshot.isGood(tag.getId()))) {
+                changed.add(tag);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        for (TagListener listener : listeners) {
+            listener.onTagsUpdated(changed, snapshot);
+        }
+    }
+
+    // CLP fora do ar, timeout ou sessão perdida: as tags do grupo passam a
+    // ruins (com o último valor) para o SSE, o WebSocket, a API e os
+    // históricos não mostrarem dados velhos como bons. Só as tags que estavam
+    // boas são avisadas, então um CLP parado não gera uma amostra por ciclo.
+    private void publishFailure(ScanGroup group) {
+        TagSnapshot snapshot = store.publishFailure(group.ids);
+
+        List<Tag> changed = new ArrayList<>();
+        for (Tag tag : group.tags) {
+            if (tag.checkChanged(snapshot.getValue(tag.getId()), false)) {
+                changed.add(tag);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        for (TagListener listener : sampleListeners) {
+            listener.onTagsUpdated(changed, snapshot);
+        }
+        for (TagListener listener : listeners) {
+            listener.onTagsUpdated(changed, snapshot);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.clpmonitor.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagSnapshot;
+import com.example.clpmonitor.plc.S7DataType;
+
+// Formato binário das atualizações de tags enviadas pelo WebSocket /ws/tags.
+// Todos os campos em big-endian:
+//   u8  tipo da mensagem (0x01 = atualização de tags)
+//   u16 quantidade de tags
+//   para cada tag:
+//     u16 id da tag (ver catálogo enviado na conexão)
+//     i64 timestamp da leitura (ms desde 1970)
+//     u8  qualidade (1 = leitura boa, 0 = falha; o valor é o último bom)
+//     u8  tipo do valor (ver TYPE_*)
+//     u16 tamanho do valor em bytes
+//     ... valor: bool/byte 1 byte, integer int16, float float32 IEEE,
+//         string UTF-8, block os bytes lidos do CLP
+public final class TagBinaryCodec {
+
+    public static final byte MESSAGE_TAG_UPDATE = 0x01;
+
+    public static final byte TYPE_BOOLEAN = 1;
+    public static final byte TYPE_BYTE = 2;
+    public static final byte TYPE_INTEGER = 3;
+    public static final byte TYPE_FLOAT = 4;
+    public static final byte TYPE_STRING = 5;
+    public static final byte TYPE_BLOCK = 6;
+
+    // Cabeçalho de cada tag: id, timestamp, qualidade, tipo e tamanho
+    private static final int RECORD_HEADER = 2 + 8 + 1 + 1 + 2;
+
+    private TagBinaryCodec() {
+    }
+
+    public static byte typeCode(S7DataType type) {
+        return switch (type) {
+            case BOOLEAN -> TYPE_BOOLEAN;
+            case BYTE -> TYPE_BYTE;
+            case INTEGER -> TYPE_INTEGER;
+            case FLOAT -> TYPE_FLOAT;
+            case STRING -> TYPE_STRING;
+            case BLOCK -> TYPE_BLOCK;
+        };
+    }
+
+    public static S7DataType typeOf(byte code) {
+        return switch (code) {
+            case TYPE_BOOLEAN -> S7DataType.BOOLEAN;
+            case TYPE_BYTE -> S7DataType.BYTE;
+            case TYPE_INTEGER -> S7DataType.INTEGER;
+            case TYPE_FLOAT -> S7DataType.FLOAT;
+            case TYPE_STRING -> S7DataType.STRING;
+            case TYPE_BLOCK -> S7DataType.BLOCK;
+            default -> throw new IllegalArgumentException("Código de tipo desconhecido: " + code);
+        };
+    }
+
+    // Registro de uma tag; montado uma vez por mudança e reaproveitado em
+    // todos os clientes que assinam a tag
+    public static byte[] encodeRecord(Tag tag, TagSnapshot snapshot) {
+        byte[] value = encodeValue(snapshot.getValue(tag.getId()));
+
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER + value.length).order(ByteOrder.BIG_ENDIAN);
+        buffer.putShort((short) tag.getId());
+        buffer.putLong(snapshot.getReceiveTimestamp(tag.getId()));
+        buffer.put((byte) (snapshot.isGood(tag.getId()) ? 1 : 0));
+        buffer.put(typeCode(tag.getAddress().getType()));
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+        return buffer.array();
+    }
+
+    private static byte[] encodeValue(Object value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (value instanceof byte[] block) {
+            return block;
+        }
+        if (value instanceof Boolean bit) {
+            return new byte[] { (byte) (bit ? 1 : 0) };
+        }
+        if (value instanceof Byte b) {
+            return new byte[] { b };
+        }
+        if (value instanceof Integer i) {
+            return ByteBuffer.allocate(2).putShort(i.shortValue()).array();
+        }
+        if (value instanceof Float f) {
+            return ByteBuffer.allocate(4).putFloat(f).array();
+        }
+        return value.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Mensagem com os registros de várias tags
+    public static ByteBuffer frame(List<byte[]> records) {
+        int length = 3;
+        for (byte[] record : records) {
+            length += record.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.BIG_ENDIAN);
+        buffer.put(MESSAGE_TAG_UPDATE);
+        buffer.putShort((short) records.size());
+        for (byte[] record : records) {
+            buffer.put(record);
+        }
+        return buffer.flip();
+    }
+}
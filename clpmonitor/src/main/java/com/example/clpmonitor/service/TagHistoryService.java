@@ -0,0 +1,319 @@
+package com.example.clpmonitor.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.clpmonitor.history.Downsampler;
+import com.example.clpmonitor.history.RollupTier;
+import com.example.clpmonitor.history.TagRingBuffer;
+import com.example.clpmonitor.model.ClpValues;
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagHistory;
+import com.example.clpmonitor.model.TagHistoryBuckets;
+import com.example.clpmonitor.model.TagSnapshot;
+import com.example.clpmonitor.plc.S7DataType;
+
+import jakarta.annotation.PostConstruct;
+
+// Histórico recente de cada tag em memória (TagRingBuffer), para painéis de
+// tendência e clientes que conectam depois preencherem as últimas horas sem
+// consultar um banco. Grava uma amostra quando a tag muda (fora da banda
+// morta) ou muda de qualidade, com o horário de recebimento da leitura.
+// Com o histórico em disco ligado (SegmentHistoryService), consultas que
+// começam antes da amostra mais antiga em memória são lidas dos segmentos.
+//
+// Para gráficos de períodos longos há consultas reduzidas no servidor:
+//   buckets: mínimo/máximo/média/último por intervalo fixo
+//   lttb:    os pontos mais representativos da curva (Largest-Triangle-Three-Buckets)
+// Cada tag numérica mantém agregados em tiers (RollupTier) de 10 s, 1 min e
+// 1 h, atualizados a cada leitura (todas as leituras, não só as mudanças).
+// Uma consulta usa o tier mais grosso que ainda atende a resolução pedida e
+// cobre o período, então custa O(intervalos) e não O(amostras); se nenhum
+// tier serve, as amostras são agregadas diretamente.
+@Service
+public class TagHistoryService {
+
+    @Autowired
+    private TagRegistry registry;
+
+    @Autowired
+    private TagAcquisitionService acquisition;
+
+    @Autowired
+    private SegmentHistoryService segmentHistory;
+
+    // Amostras guardadas por tag; as mais antigas são descartadas
+    @Value("${clp.history.capacity:36000}")
+    private int capacity;
+
+    private TagRingBuffer[] buffers;
+
+    // Limite de amostras lidas do disco em uma consulta sem redução; períodos
+    // maiores devem usar buckets/lttb ou a exportação (/api/history/export)
+    @Value("${clp.history.max-raw-samples:100000}")
+    private int maxRawSamples;
+
+    // Tiers de agregação: 10 s por 1 dia, 1 min por 1 semana, 1 h por ~1 ano
+    private static final long[] TIER_RESOLUTION_MS = { 10_000, 60_000, 3_600_000 };
+    private static final int[] TIER_CAPACITY = { 8_640, 10_080, 8_784 };
+
+    // Maior quantidade de intervalos/pontos em uma consulta reduzida
+    private static final int MAX_POINTS = 10_000;
+
+    // Tiers de cada tag numérica, do mais fino ao mais grosso (null nas demais)
+    private RollupTier[][] rollups;
+
+    @PostConstruct
+    public void start() {
+        buffers = new TagRingBuffer[registry.size()];
+        for (Tag tag : registry.getTags()) {
+            buffers[tag.getId()] = new TagRingBuffer(tag.getAddress().getType(), capacity);
+        }
+        acquisition.addListener(this::onTagsUpdated);
+
+        rollups = new RollupTier[registry.size()][];
+        for (Tag tag : registry.getTags()) {
+            if (isNumeric(tag.getAddress().getType())) {
+                RollupTier[] tiers = new RollupTier[TIER_RESOLUTION_MS.length];
+                for (int i = 0; i < tiers.length; i++) {
+                    tiers[i] = new RollupTier(TIER_RESOLUTION_MS[i], TIER_CAPACITY[i]);
+                }
+                rollups[tag.getId()] = tiers;
+            }
+        }
+        acquisition.addSampleListener(this::onSamples);
+    }
+
+    private static boolean isNumeric(S7DataType type) {
+        return type == S7DataType.BOOLEAN || type == S7DataType.BYTE || type == S7DataType.INTEGER
+                || type == S7DataType.FLOAT;
+    }
+
+    // Toda leitura boa entra nos agregados
+    private void onSamples(List<Tag> tags, TagSnapshot snapshot) {
+        for (Tag tag : tags) {
+            int id = tag.getId();
+            RollupTier[] tiers = rollups[id];
+            if (tiers == null || !snapshot.isGood(id)) {
+                continue;
+            }
+            Object value = snapshot.getValue(id);
+            float number;
+            if (value instanceof Boolean bit) {
+                number = bit ? 1f : 0f;
+            } else if (value instanceof Number n) {
+                number = n.floatValue();
+            } else {
+                continue;
+            }
+            long timestamp = snapshot.getReceiveTimestamp(id);
+            for (RollupTier tier : tiers) {
+                tier.add(timestamp, number);
+            }
+        }
+    }
+
+    private void onTagsUpdated(List<Tag> changed, TagSnapshot snapshot) {
+        for (Tag tag : changed) {
+            int id = tag.getId();
+            buffers[id].add(snapshot.getReceiveTimestamp(id), snapshot.getValue(id), snapshot.isGood(id));
+        }
+    }
+
+    // Amostras da tag com from <= timestamp <= to (ms desde 1970)
+    public TagHistory query(String name, long from, long to) {
+        Tag tag = registry.getTag(name);
+        TagRingBuffer.Samples samples = samples(tag, from, to);
+
+        Object values;
+        if (samples.getType() == S7DataType.BOOLEAN) {
+            boolean[] bits = new boolean[samples.size()];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = samples.getInts()[i] != 0;
+            }
+            values = bits;
+        } else if (samples.getInts() != null) {
+            values = samples.getInts();
+        } else if (samples.getFloats() != null) {
+            values = samples.getFloats();
+        } else if (samples.getType() == S7DataType.BLOCK) {
+            ClpValues[] blocks = new ClpValues[samples.size()];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = samples.getObjects()[i] instanceof byte[] block ? ClpValues.ofBytes(block, false) : null;
+            }
+            values = blocks;
+        } else {
+            values = samples.getObjects();
+        }
+
+        return new TagHistory(tag.getName(), samples.getType().name().toLowerCase(), from, to,
+                samples.getTimestamps(), values, samples.getGood());
+    }
+
+    private TagRingBuffer.Samples samples(Tag tag, long from, long to) {
+        TagRingBuffer buffer = buffers[tag.getId()];
+        if (!readsDisk(tag, from)) {
+            return buffer.query(from, to);
+        }
+        TagRingBuffer.Samples samples = segmentHistory.read(tag, from, to, maxRawSamples);
+        if (samples == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Período com mais de " + maxRawSamples
+                    + " amostras: use mode=buckets, mode=lttb ou /api/history/export.");
+        }
+        return samples;
+    }
+
+    private boolean readsDisk(Tag tag, long from) {
+        return segmentHistory.isEnabled() && from < buffers[tag.getId()].oldestTimestamp();
+    }
+
+    // Amostras guardadas em memória, sem consultar o disco
+    TagRingBuffer.Samples recent(Tag tag, long from, long to) {
+        return buffers[tag.getId()].query(from, to);
+    }
+
+    // Tier mais grosso com resolução <= maxResolutionMs que tem os agregados
+    // desde from. Com o histórico em disco ligado, o disco pode ter dados de
+    // antes dos tiers (que começam vazios ao iniciar a aplicação), então o
+    // tier precisa ter um intervalo anterior a from.
+    private RollupTier chooseTier(Tag tag, long from, long maxResolutionMs) {
+        RollupTier[] tiers = rollups[tag.getId()];
+        for (int i = tiers.length - 1; i >= 0; i--) {
+            RollupTier tier = tiers[i];
+            if (tier.getResolutionMs() > maxResolutionMs || !tier.covers(from)) {
+                continue;
+            }
+            if (segmentHistory.isEnabled() && tier.oldestStart() > from) {
+                continue;
+            }
+            return tier;
+        }
+        return null;
+    }
+
+    private RollupTier[] numericTiers(Tag tag) {
+        RollupTier[] tiers = rollups[tag.getId()];
+        if (tiers == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Consulta reduzida só para tags numéricas: " + tag.getName());
+        }
+        return tiers;
+    }
+
+    private static double number(TagRingBuffer.Samples samples, int i) {
+        return samples.getInts() != null ? samples.getInts()[i] : samples.getFloats()[i];
+    }
+
+    // Agregados (mínimo, máximo, média, último) em intervalos de bucketMs.
+    // Vindos de um tier, os intervalos são arredondados para múltiplos da
+    // resolução do tier e alinhados a ela.
+    public TagHistoryBuckets buckets(String name, long from, long to, long bucketMs) {
+        Tag tag = registry.getTag(name);
+        numericTiers(tag);
+        if (bucketMs <= 0 || (to - from) / bucketMs + 1 > MAX_POINTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Intervalo inválido: no máximo " + MAX_POINTS + " intervalos por consulta.");
+        }
+
+        RollupTier tier = chooseTier(tag, from, bucketMs);
+        Downsampler.Buckets buckets;
+        String source;
+        if (tier != null) {
+            long resolution = tier.getResolutionMs();
+            long alignedFrom = from - Math.floorMod(from, resolution);
+            long alignedBucket = (bucketMs + resolution - 1) / resolution * resolution;
+            buckets = new Downsampler.Buckets(alignedFrom, to, alignedBucket);
+            tier.query(alignedFrom, to, buckets::addAggregate);
+            source = "rollup-" + resolution;
+        } else if (readsDisk(tag, from)) {
+            // Agrega direto das páginas mapeadas, sem copiar as amostras
+            Downsampler.Buckets raw = new Downsampler.Buckets(from, to, bucketMs);
+            segmentHistory.scan(tag, from, to, (timestamp, good, type, value) -> {
+                if (good && value.hasRemaining()) {
+                    int p = value.position();
+                    raw.add(timestamp, switch (type) {
+                        case INTEGER -> value.getShort(p);
+                        case FLOAT -> value.getFloat(p);
+                        default -> value.get(p);
+                    });
+                }
+            });
+            buckets = raw;
+            source = "raw";
+        } else {
+            TagRingBuffer.Samples samples = buffers[tag.getId()].query(from, to);
+            buckets = new Downsampler.Buckets(from, to, bucketMs);
+            for (int i = 0; i < samples.size(); i++) {
+                if (samples.getGood()[i]) {
+                    buckets.add(samples.getTimestamps()[i], number(samples, i));
+                }
+            }
+            source = "raw";
+        }
+
+        int n = buckets.filled();
+        long[] starts = new long[n];
+        double[] min = new double[n];
+        double[] max = new double[n];
+        double[] avg = new double[n];
+        double[] last = new double[n];
+        long[] count = new long[n];
+        buckets.export(starts, min, max, avg, last, count);
+        return new TagHistoryBuckets(tag.getName(), tag.getAddress().getType().name().toLowerCase(), from, to,
+                buckets.getBucketMs(), source, starts, min, max, avg, last, count);
+    }
+
+    // Até points pontos escolhidos por LTTB. Em períodos longos a entrada é a
+    // média de um tier com pelo menos 4 intervalos por ponto pedido.
+    public TagHistory lttb(String name, long from, long to, int points) {
+        Tag tag = registry.getTag(name);
+        numericTiers(tag);
+        if (points < 3 || points > MAX_POINTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "points deve estar entre 3 e " + MAX_POINTS + ".");
+        }
+
+        long[] x;
+        double[] y;
+        boolean[] good;
+        RollupTier tier = chooseTier(tag, from, (to - from) / (points * 4L));
+        if (tier != null) {
+            long resolution = tier.getResolutionMs();
+            long alignedFrom = from - Math.floorMod(from, resolution);
+            Downsampler.Buckets buckets = new Downsampler.Buckets(alignedFrom, to, resolution);
+            tier.query(alignedFrom, to, buckets::addAggregate);
+            int n = buckets.filled();
+            x = new long[n];
+            y = new double[n];
+            buckets.export(x, new double[n], new double[n], y, new double[n], new long[n]);
+            good = new boolean[n];
+            Arrays.fill(good, true);
+        } else {
+            TagRingBuffer.Samples samples = samples(tag, from, to);
+            x = samples.getTimestamps();
+            y = new double[samples.size()];
+            for (int i = 0; i < y.length; i++) {
+                y[i] = number(samples, i);
+            }
+            good = samples.getGood();
+        }
+
+        int[] selected = Downsampler.lttb(x, y, points);
+        long[] timestamps = new long[selected.length];
+        double[] values = new double[selected.length];
+        boolean[] selectedGood = new boolean[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            timestamps[i] = x[selected[i]];
+            values[i] = y[selected[i]];
+            selectedGood[i] = good[selected[i]];
+        }
+        return new TagHistory(tag.getName(), tag.getAddress().getType().name().toLowerCase(), from, to,
+                timestamps, values, selectedGood);
+    }
+}
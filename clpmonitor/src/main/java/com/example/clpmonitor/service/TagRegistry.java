@@ -0,0 +1,119 @@
+package com.example.clpmonitor.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.example.clpmonitor.config.ClpProperties;
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.plc.S7Address;
+
+import jakarta.annotation.PostConstruct;
+
+// Cadastro das tags monitoradas, carregado de clp.tags[...] no
+// application.properties. Os endereços simbólicos são interpretados e
+// validados uma única vez na inicialização: um endereço, CLP ou classe de
+// varredura inválido impede a aplicação de subir, em vez de falhar a cada ciclo.
+@Service
+public class TagRegistry {
+
+    @Autowired
+    private ClpProperties properties;
+
+    private final Map<String, Tag> tagsByName = new LinkedHashMap<>();
+    private final List<Tag> tagsById = new ArrayList<>();
+    private final Map<String, List<Tag>> tagsByStream = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        for (ClpProperties.TagConfig config : properties.getTags()) {
+            register(config);
+        }
+        System.out.println("Tags cadastradas: " + tagsByName.size());
+    }
+
+    private void register(ClpProperties.TagConfig config) {
+        String name = config.getName();
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Tag sem nome em clp.tags.");
+        }
+        if (tagsByName.containsKey(name)) {
+            throw new IllegalArgumentException("Tag duplicada: " + name);
+        }
+        if (config.getAddress() == null) {
+            throw new IllegalArgumentException("Tag sem endereço: " + name);
+        }
+
+        // Falham aqui se o CLP ou a classe de varredura não estiverem configurados
+        properties.getPlc(config.getPlc());
+        properties.getScanClassPeriodMs(config.getScanClass());
+
+        S7Address address;
+        try {
+            address = S7Address.parse(config.getAddress(), config.getType());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tag " + name + ": " + e.getMessage(), e);
+        }
+
+        boolean deadbandPercent = switch (config.getDeadbandType().toLowerCase()) {
+            case "absolute" -> false;
+            case "percent" -> true;
+            default -> throw new IllegalArgumentException("Tag " + name + ": tipo de banda morta inválido: "
+                    + config.getDeadbandType() + " (use absolute ou percent)");
+        };
+        if (config.getDeadband() < 0) {
+            throw new IllegalArgumentException("Tag " + name + ": banda morta não pode ser negativa.");
+        }
+
+        // O stream vira o evento SSE "<stream>-data" e o número no fim do nome é o
+        // id do CLP enviado nos eventos (ex: clp1 -> 1), então é obrigatório
+        String stream = config.getStream();
+        if (stream == null || !stream.matches("[A-Za-z_-]*\\d+")) {
+            throw new IllegalArgumentException("Tag " + name + ": stream obrigatório, no formato nome + número"
+                    + " (ex: clp1), recebido: " + stream);
+        }
+        Tag tag = new Tag(tagsById.size(), name, config.getPlc(), stream, config.getScanClass(), address, config.getDeadband(),
+                deadbandPercent);
+
+        tagsByName.put(name, tag);
+        tagsById.add(tag);
+        tagsByStream.computeIfAbsent(stream, s -> new ArrayList<>()).add(tag);
+    }
+
+    public List<Tag> getTags() {
+        return Collections.unmodifiableList(tagsById);
+    }
+
+    // Tags por id (posição no cadastro)
+    public Tag getTag(int id) {
+        if (id < 0 || id >= tagsById.size()) {
+            throw new IllegalArgumentException("Tag não cadastrada: #" + id);
+        }
+        return tagsById.get(id);
+    }
+
+    public int size() {
+        return tagsById.size();
+    }
+
+    public Tag getTag(String name) {
+        Tag tag = tagsByName.get(name);
+        if (tag == null) {
+            throw new IllegalArgumentException("Tag não cadastrada: " + name);
+        }
+        return tag;
+    }
+
+    public List<Tag> getTagsByStream(String stream) {
+        return tagsByStream.getOrDefault(stream, Collections.emptyList());
+    }
+
+    public Map<String, List<Tag>> getStreams() {
+        return Collections.unmodifiableMap(tagsByStream);
+    }
+}
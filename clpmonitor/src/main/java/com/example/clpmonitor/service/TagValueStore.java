@@ -0,0 +1,47 @@
+package com.example.clpmonitor.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.example.clpmonitor.model.TagSnapshot;
+
+import jakarta.annotation.PostConstruct;
+
+// Repositório central dos últimos valores das tags (valor, qualidade e
+// horários), lido pelo SSE, pelo WebSocket e por quem mais precisar.
+// Cada leitura de grupo monta um novo TagSnapshot e o publica com uma única
+// escrita volatile: os leitores só pegam a referência atual, sem travas, e
+// nunca veem um snapshot pela metade. As escritas (uma thread por CLP) são
+// serializadas entre si.
+@Service
+public class TagValueStore {
+
+    @Autowired
+    private TagRegistry registry;
+
+    private volatile TagSnapshot current;
+
+    @PostConstruct
+    public void init() {
+        current = new TagSnapshot(registry.size());
+    }
+
+    public TagSnapshot snapshot() {
+        return current;
+    }
+
+    // Publica o resultado da leitura das tags ids[i] e devolve o novo snapshot
+    public synchronized TagSnapshot publish(int[] ids, Object[] values, boolean[] good, long sourceTimestamp,
+            long receiveTimestamp) {
+        TagSnapshot next = current.with(ids, values, good, sourceTimestamp, receiveTimestamp);
+        current = next;
+        return next;
+    }
+
+    // Marca as tags ids como ruins quando o grupo não pôde ser lido
+    public synchronized TagSnapshot publishFailure(int[] ids) {
+        TagSnapshot next = current.withFailure(ids);
+        current = next;
+        return next;
+    }
+}
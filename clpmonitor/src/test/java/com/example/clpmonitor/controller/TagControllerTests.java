@@ -0,0 +1,85 @@
+package com.example.clpmonitor.controller;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockReset;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.clpmonitor.service.AcquisitionScheduler;
+import com.example.clpmonitor.service.TagAcquisitionService;
+import com.example.clpmonitor.service.TagRegistry;
+import com.example.clpmonitor.service.TagValueStore;
+
+// Sem leitura dos CLPs: os valores são publicados direto no TagValueStore
+// (mesma configuração de TagWebSocketHandlerTests, que reaproveita o contexto)
+@SpringBootTest
+@AutoConfigureMockMvc
+class TagControllerTests {
+
+	@MockitoBean(reset = MockReset.NONE)
+	private TagAcquisitionService acquisition;
+
+	@MockitoBean
+	private AcquisitionScheduler scheduler;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private TagRegistry registry;
+
+	@Autowired
+	private TagValueStore store;
+
+	@Test
+	void unchangedTagsAnswerNotModified() throws Exception {
+		publish("clp4.p3", 7);
+
+		String all = mvc.perform(get("/api/tags"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String one = mvc.perform(get("/api/tags/clp4.p3"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.value").value(7))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertTrue(all.startsWith("W/\""));
+		assertTrue(one.startsWith("W/\""));
+
+		mvc.perform(get("/api/tags").header(HttpHeaders.IF_NONE_MATCH, all))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		mvc.perform(get("/api/tags/clp4.p3").header(HttpHeaders.IF_NONE_MATCH, one))
+				.andExpect(status().isNotModified());
+
+		// Mudança em outra tag: a lista muda, a tag consultada não
+		publish("clp4.p4", 8);
+		mvc.perform(get("/api/tags").header(HttpHeaders.IF_NONE_MATCH, all))
+				.andExpect(status().isOk());
+		mvc.perform(get("/api/tags/clp4.p3").header(HttpHeaders.IF_NONE_MATCH, one))
+				.andExpect(status().isNotModified());
+
+		publish("clp4.p3", 9);
+		String changed = mvc.perform(get("/api/tags/clp4.p3").header(HttpHeaders.IF_NONE_MATCH, one))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.value").value(9))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotEquals(one, changed);
+	}
+
+	private void publish(String name, int value) {
+		long now = System.currentTimeMillis();
+		store.publish(new int[] { registry.getTag(name).getId() }, new Object[] { value }, new boolean[] { true },
+				now, now);
+	}
+}
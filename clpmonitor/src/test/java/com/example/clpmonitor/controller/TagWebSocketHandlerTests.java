@@ -0,0 +1,184 @@
+package com.example.clpmonitor.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockReset;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagSnapshot;
+import com.example.clpmonitor.service.AcquisitionScheduler;
+import com.example.clpmonitor.service.TagAcquisitionService;
+import com.example.clpmonitor.service.TagBinaryCodec;
+import com.example.clpmonitor.service.TagRegistry;
+import com.example.clpmonitor.service.TagValueStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Sessão WebSocket simulada; as leituras são publicadas direto no
+// TagValueStore e avisadas aos listeners registrados na aquisição
+@SpringBootTest
+@AutoConfigureMockMvc
+class TagWebSocketHandlerTests {
+
+	@MockitoBean(reset = MockReset.NONE)
+	private TagAcquisitionService acquisition;
+
+	@MockitoBean
+	private AcquisitionScheduler scheduler;
+
+	@Autowired
+	private TagWebSocketHandler handler;
+
+	@Autowired
+	private TagRegistry registry;
+
+	@Autowired
+	private TagValueStore store;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void clientsReceiveOnlyTheTagsTheySubscribed() throws Exception {
+		BlockingQueue<WebSocketMessage<?>> sent = new LinkedBlockingQueue<>();
+		WebSocketSession session = mock(WebSocketSession.class);
+		when(session.getId()).thenReturn("ws-test");
+		when(session.isOpen()).thenReturn(true);
+		doAnswer(invocation -> sent.add(invocation.getArgument(0))).when(session).sendMessage(any());
+
+		Tag p3 = registry.getTag("clp4.p3");
+		Tag p4 = registry.getTag("clp4.p4");
+		publish(p3, 5);
+
+		handler.afterConnectionEstablished(session);
+		JsonNode catalog = text(sent);
+		assertEquals("catalog", catalog.path("type").asText());
+		assertEquals(registry.size(), catalog.path("tags").size());
+		assertEquals("clp4.p3", catalog.path("tags").path(p3.getId()).path("name").asText());
+
+		// Ao assinar, o valor atual vem logo depois da confirmação
+		handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"tags\":[\"clp4.p3\"]}"));
+		JsonNode subscribed = text(sent);
+		assertEquals("subscribed", subscribed.path("type").asText());
+		assertEquals(p3.getId(), subscribed.path("tags").path(0).asInt());
+		assertValue(binary(sent), p3, 5);
+
+		// Mudança de uma tag não assinada não gera frame
+		notify(publish(p4, 8), p4);
+		notify(publish(p3, 6), p3, p4);
+		ByteBuffer frame = binary(sent);
+		assertValue(frame, p3, 6);
+		assertNull(sent.poll(100, TimeUnit.MILLISECONDS));
+
+		handler.handleTextMessage(session, new TextMessage("{\"action\":\"unsubscribe\",\"tags\":[\"clp4.p3\"]}"));
+		assertEquals(0, text(sent).path("tags").size());
+		notify(publish(p3, 7), p3);
+		assertNull(sent.poll(100, TimeUnit.MILLISECONDS));
+
+		// Stream: todas as tags dele
+		handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"tags\":[\"clp4\"]}"));
+		assertEquals(registry.getTagsByStream("clp4").size(), text(sent).path("tags").size());
+		assertInstanceOf(BinaryMessage.class, sent.poll(2, TimeUnit.SECONDS));
+
+		handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"tags\":[\"nada\"]}"));
+		assertEquals("error", text(sent).path("type").asText());
+
+		handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+		notify(publish(p3, 9), p3);
+		assertNull(sent.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void readPublishedDuringTheSubscriptionIsSentOnce() throws Exception {
+		BlockingQueue<WebSocketMessage<?>> sent = new LinkedBlockingQueue<>();
+		WebSocketSession session = mock(WebSocketSession.class);
+		when(session.getId()).thenReturn("ws-race");
+		when(session.isOpen()).thenReturn(true);
+		doAnswer(invocation -> sent.add(invocation.getArgument(0))).when(session).sendMessage(any());
+
+		Tag p5 = registry.getTag("clp4.p5");
+		handler.afterConnectionEstablished(session);
+		assertEquals("catalog", text(sent).path("type").asText());
+
+		// Leitura já no store, mas cujo aviso aos listeners só chega depois da
+		// assinatura: vai no valor inicial e o aviso não a repete
+		TagSnapshot pending = publish(p5, 3);
+		handler.handleTextMessage(session, new TextMessage("{\"action\":\"subscribe\",\"tags\":[\"clp4.p5\"]}"));
+		assertEquals("subscribed", text(sent).path("type").asText());
+		assertValue(binary(sent), p5, 3);
+		notify(pending, p5);
+		assertNull(sent.poll(100, TimeUnit.MILLISECONDS));
+
+		notify(publish(p5, 4), p5);
+		assertValue(binary(sent), p5, 4);
+
+		handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+	}
+
+	// Valor da única tag de um frame binário
+	private static void assertValue(ByteBuffer frame, Tag tag, int value) {
+		assertEquals(TagBinaryCodec.MESSAGE_TAG_UPDATE, frame.get());
+		assertEquals(1, frame.getShort());
+		assertEquals(tag.getId(), frame.getShort());
+		frame.getLong();
+		assertEquals(1, frame.get());
+		assertEquals(TagBinaryCodec.TYPE_INTEGER, frame.get());
+		assertEquals(2, frame.getShort());
+		assertEquals(value, frame.getShort());
+		assertFalse(frame.hasRemaining());
+	}
+
+	private JsonNode text(BlockingQueue<WebSocketMessage<?>> sent) throws Exception {
+		WebSocketMessage<?> message = sent.poll(2, TimeUnit.SECONDS);
+		assertInstanceOf(TextMessage.class, message);
+		return objectMapper.readTree(((TextMessage) message).getPayload());
+	}
+
+	private static ByteBuffer binary(BlockingQueue<WebSocketMessage<?>> sent) throws Exception {
+		WebSocketMessage<?> message = sent.poll(2, TimeUnit.SECONDS);
+		assertNotNull(message);
+		assertInstanceOf(BinaryMessage.class, message);
+		return ((BinaryMessage) message).getPayload();
+	}
+
+	private TagSnapshot publish(Tag tag, int value) {
+		long now = System.currentTimeMillis();
+		return store.publish(new int[] { tag.getId() }, new Object[] { value }, new boolean[] { true }, now, now);
+	}
+
+	private void notify(TagSnapshot snapshot, Tag... changed) {
+		ArgumentCaptor<TagAcquisitionService.TagListener> listeners = ArgumentCaptor
+				.forClass(TagAcquisitionService.TagListener.class);
+		verify(acquisition, atLeastOnce()).addListener(listeners.capture());
+		for (TagAcquisitionService.TagListener listener : listeners.getAllValues()) {
+			listener.onTagsUpdated(List.of(changed), snapshot);
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.clpmonitor.history;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class DownsamplerTests {
+
+	@Test
+	void rollupTierAggregatesMatchRawBuckets() {
+		RollupTier tier = new RollupTier(1000, 16);
+		Downsampler.Buckets raw = new Downsampler.Buckets(0, 3999, 2000);
+		for (int i = 0; i < 40; i++) {
+			long ts = i * 100L;
+			tier.add(ts, i);
+			raw.add(ts, i);
+		}
+
+		Downsampler.Buckets fromTier = new Downsampler.Buckets(0, 3999, 2000);
+		tier.query(0, 3999, fromTier::addAggregate);
+
+		assertEquals(2, raw.filled());
+		long[] starts = new long[2];
+		double[] min = new double[2];
+		double[] max = new double[2];
+		double[] avg = new double[2];
+		double[] last = new double[2];
+		long[] count = new long[2];
+		fromTier.export(starts, min, max, avg, last, count);
+
+		assertArrayEquals(new long[] { 0, 2000 }, starts);
+		assertArrayEquals(new double[] { 0, 20 }, min);
+		assertArrayEquals(new double[] { 19, 39 }, max);
+		assertArrayEquals(new double[] { 9.5, 29.5 }, avg);
+		assertArrayEquals(new double[] { 19, 39 }, last);
+		assertArrayEquals(new long[] { 20, 20 }, count);
+	}
+
+	@Test
+	void lttbKeepsEndpointsAndPeak() {
+		long[] x = new long[100];
+		double[] y = new double[100];
+		for (int i = 0; i < x.length; i++) {
+			x[i] = i;
+		}
+		y[37] = 50;
+
+		int[] selected = Downsampler.lttb(x, y, 10);
+
+		assertEquals(10, selected.length);
+		assertEquals(0, selected[0]);
+		assertEquals(99, selected[9]);
+		boolean peak = false;
+		for (int i : selected) {
+			peak |= i == 37;
+		}
+		assertEquals(true, peak);
+		assertEquals(5, Downsampler.lttb(new long[5], new double[5], 10).length);
+	}
+}
@@ -0,0 +1,94 @@
+package com.example.clpmonitor.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.plc.S7Address;
+import com.example.clpmonitor.plc.S7DataType;
+
+class HistoryExportWriterTests {
+
+	private final List<Tag> tags = List.of(
+			new Tag(0, "clp1.nivel", "plc", "clp1", "fast", new S7Address(1, 0, 0, 2, S7DataType.INTEGER)),
+			new Tag(1, "clp1.nome", "plc", "clp1", "fast", new S7Address(1, 2, 0, 10, S7DataType.STRING)));
+
+	@Test
+	void csvWritesOneRowPerSample() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		HistoryExportWriter writer = HistoryExportWriter.csv(tags, out);
+		writer.begin();
+		writer.startTag(0);
+		writer.sample(1000, true, ByteBuffer.allocate(2).putShort((short) -7).flip());
+		writer.endTag();
+		writer.startTag(1);
+		writer.sample(2000, false, ByteBuffer.wrap("a,\"b\"".getBytes(StandardCharsets.UTF_8)));
+		writer.sample(3000, false, ByteBuffer.allocate(0));
+		writer.endTag();
+		writer.finish();
+
+		assertEquals("tag,timestamp,time,good,value\n"
+				+ "clp1.nivel,1000,1970-01-01T00:00:01Z,true,-7\n"
+				+ "clp1.nome,2000,1970-01-01T00:00:02Z,false,\"a,\"\"b\"\"\"\n"
+				+ "clp1.nome,3000,1970-01-01T00:00:03Z,false,\n", out.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void binaryWritesColumnarChunks() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		HistoryExportWriter writer = HistoryExportWriter.binary(tags, out);
+		writer.begin();
+		writer.startTag(0);
+		for (int i = 0; i < 5000; i++) {
+			writer.sample(i, i % 2 == 0, ByteBuffer.allocate(2).putShort((short) i).flip());
+		}
+		writer.endTag();
+		writer.startTag(1);
+		writer.sample(42, true, ByteBuffer.wrap("ok".getBytes(StandardCharsets.UTF_8)));
+		writer.endTag();
+		writer.finish();
+
+		ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+		assertEquals("CLPH", new String(new byte[] { in.get(), in.get(), in.get(), in.get() }, StandardCharsets.US_ASCII));
+		assertEquals(1, in.get());
+		assertEquals(2, in.getShort());
+		for (Tag tag : tags) {
+			byte[] name = new byte[in.getShort()];
+			in.get(name);
+			assertEquals(tag.getName(), new String(name, StandardCharsets.UTF_8));
+			in.get();
+		}
+
+		// 5000 amostras da primeira tag em dois blocos (4096 + 904)
+		int total = 0;
+		for (int expected : new int[] { 4096, 904 }) {
+			assertEquals(0, in.getShort());
+			int n = in.getInt();
+			assertEquals(expected, n);
+			assertEquals(total, in.getLong());
+			in.position(in.position() + (n - 1) * 8);
+			assertEquals(total % 2 == 0 ? 1 : 0, in.get());
+			in.position(in.position() + n - 1);
+			assertEquals(total, in.getShort());
+			in.position(in.position() + (n - 1) * 2);
+			total += n;
+		}
+
+		assertEquals(1, in.getShort());
+		assertEquals(1, in.getInt());
+		assertEquals(42, in.getLong());
+		assertEquals(1, in.get());
+		assertEquals(2, in.getShort());
+		assertEquals('o', in.get());
+		assertEquals('k', in.get());
+		assertEquals(-1, in.getShort());
+		assertEquals(0, in.remaining());
+	}
+}
@@ -0,0 +1,106 @@
+package com.example.clpmonitor.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.clpmonitor.model.HistorianStats;
+
+// H2 em memória faz o papel do MySQL
+class JdbcHistorianTests {
+
+	@TempDir
+	Path spillDir;
+
+	@Test
+	void samplesAreWrittenInBatches() throws Exception {
+		String url = "jdbc:h2:mem:batches;DB_CLOSE_DELAY=-1";
+		JdbcHistorian historian = new JdbcHistorian(url, "sa", "", "tag_history", 100, 50, 1000, 1000, spillDir);
+		historian.start();
+		for (int i = 0; i < 250; i++) {
+			historian.offer("clp4.p" + (i % 12), 1000 + i, true, i);
+		}
+		historian.offer("clp1.cores", 2000, true, new byte[] { 0, 1, 2, 3 });
+		historian.offer("clp4.p0", 2001, false, null);
+		historian.stop();
+
+		HistorianStats stats = historian.getStats();
+		assertEquals(252, stats.getWritten());
+		assertTrue(stats.getFlushes() >= 3);
+		assertEquals(0, stats.getSpilled());
+
+		assertEquals(252, count(url, "SELECT COUNT(*) FROM tag_history"));
+		assertEquals(1, count(url, "SELECT COUNT(*) FROM tag_history WHERE text_value = '00010203'"));
+		assertEquals(1, count(url, "SELECT COUNT(*) FROM tag_history WHERE good = FALSE AND num_value IS NULL"));
+	}
+
+	@Test
+	void samplesAreSpilledWhileDatabaseIsDownAndReplayedLater() throws Exception {
+		JdbcHistorian offline = new JdbcHistorian("jdbc:indisponivel:x", "sa", "", "tag_history", 100, 50, 60_000,
+				1000, spillDir);
+		offline.start();
+		for (int i = 0; i < 30; i++) {
+			offline.offer("clp4.p1", 1000 + i, true, (float) i);
+		}
+		offline.stop();
+		assertEquals(30, offline.getStats().getSpilled());
+		assertEquals(0, offline.getStats().getWritten());
+
+		String url = "jdbc:h2:mem:replay;DB_CLOSE_DELAY=-1";
+		JdbcHistorian online = new JdbcHistorian(url, "sa", "", "tag_history", 100, 50, 1000, 1000, spillDir);
+		online.start();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (online.getStats().getReplayed() < 30 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		online.stop();
+
+		assertEquals(30, online.getStats().getReplayed());
+		assertEquals(0, online.getStats().getSpillBytes());
+		assertEquals(30, count(url, "SELECT COUNT(*) FROM tag_history WHERE tag = 'clp4.p1'"));
+	}
+
+	@Test
+	void rowsRefusedByTheDatabaseAreSetAsideWithoutStallingTheBatch() throws Exception {
+		// Tabela já existente com a coluna de texto menor que um bloco
+		String url = "jdbc:h2:mem:rejected;DB_CLOSE_DELAY=-1";
+		try (Connection conn = DriverManager.getConnection(url, "sa", "");
+				Statement statement = conn.createStatement()) {
+			statement.execute("CREATE TABLE tag_history (tag VARCHAR(100) NOT NULL, ts BIGINT NOT NULL, "
+					+ "good BOOLEAN NOT NULL, num_value DOUBLE NULL, text_value VARCHAR(8) NULL)");
+		}
+
+		JdbcHistorian historian = new JdbcHistorian(url, "sa", "", "tag_history", 100, 50, 60_000, 1000, spillDir);
+		historian.start();
+		for (int i = 0; i < 20; i++) {
+			historian.offer("clp4.p0", 1000 + i, true, i);
+		}
+		historian.offer("clp1.cores", 2000, true, new byte[28]);
+		historian.offer("clp4.p0", 2001, true, 7);
+		historian.stop();
+
+		HistorianStats stats = historian.getStats();
+		assertEquals(1, stats.getRejected());
+		assertEquals(0, stats.getSpilled());
+		assertEquals(0, stats.getFailedFlushes());
+		assertEquals(21, count(url, "SELECT COUNT(*) FROM tag_history"));
+		assertTrue(spillDir.resolve("tag_history.rejected").toFile().length() > 0);
+	}
+
+	private static long count(String url, String sql) throws Exception {
+		try (Connection conn = DriverManager.getConnection(url, "sa", "");
+				Statement statement = conn.createStatement();
+				ResultSet rs = statement.executeQuery(sql)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+}
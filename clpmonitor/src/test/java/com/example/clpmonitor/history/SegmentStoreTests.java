@@ -0,0 +1,66 @@
+package com.example.clpmonitor.history;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.clpmonitor.plc.S7DataType;
+
+class SegmentStoreTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void samplesSurviveRolloverAndReopen() throws Exception {
+		// Segmentos de 4 KB com registros de 48 bytes: ~80 registros por segmento
+		SegmentStore store = new SegmentStore(dir, 28, 4096, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+		store.open();
+		for (int i = 0; i < 500; i++) {
+			store.append(1, 1000 + i, true, S7DataType.INTEGER, i);
+			store.append(2, 1000 + i, i % 10 != 0, S7DataType.FLOAT, i / 2f);
+		}
+		store.append(3, 1600, true, S7DataType.BLOCK, new byte[] { 3, 2, 1, 0 });
+		assertTrue(store.getSegmentCount() > 5);
+		store.close();
+
+		SegmentStore reopened = new SegmentStore(dir, 28, 4096, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+		reopened.open();
+		reopened.append(1, 1500, true, S7DataType.INTEGER, 500);
+
+		TagRingBuffer.Samples integers = reopened.read(1, S7DataType.INTEGER, 1100, 1500);
+		assertEquals(401, integers.size());
+		assertEquals(1100, integers.getTimestamps()[0]);
+		assertEquals(100, integers.getInts()[0]);
+		assertEquals(500, integers.getInts()[400]);
+
+		TagRingBuffer.Samples floats = reopened.read(2, S7DataType.FLOAT, 1010, 1011);
+		assertArrayEquals(new float[] { 5f, 5.5f }, floats.getFloats());
+		assertArrayEquals(new boolean[] { false, true }, floats.getGood());
+
+		TagRingBuffer.Samples blocks = reopened.read(3, S7DataType.BLOCK, 0, Long.MAX_VALUE);
+		assertArrayEquals(new byte[] { 3, 2, 1, 0 }, (byte[]) blocks.getObjects()[0]);
+	}
+
+	@Test
+	void oldestSegmentsAreDeletedBeyondMaxSize() throws Exception {
+		SegmentStore store = new SegmentStore(dir, 8, 4096, Long.MAX_VALUE, Long.MAX_VALUE, 3 * 4096);
+		store.open();
+		for (int i = 0; i < 2000; i++) {
+			store.append(1, 1000 + i, true, S7DataType.INTEGER, i);
+		}
+
+		assertEquals(3, store.getSegmentCount());
+		TagRingBuffer.Samples samples = store.read(1, S7DataType.INTEGER, 0, Long.MAX_VALUE);
+		assertEquals(2999, samples.getTimestamps()[samples.size() - 1]);
+		assertTrue(samples.getTimestamps()[0] > 1000);
+		assertNull(store.read(1, S7DataType.INTEGER, 0, Long.MAX_VALUE, samples.size() - 1));
+		assertEquals(samples.size(), store.read(1, S7DataType.INTEGER, 0, Long.MAX_VALUE, samples.size()).size());
+	}
+}
@@ -0,0 +1,32 @@
+package com.example.clpmonitor.history;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.clpmonitor.plc.S7DataType;
+
+class TagRingBufferTests {
+
+	@Test
+	void oldestSamplesAreOverwrittenAndRangeIsInclusive() {
+		TagRingBuffer buffer = new TagRingBuffer(S7DataType.INTEGER, 4);
+		for (int i = 1; i <= 6; i++) {
+			buffer.add(i * 100L, i, i != 5);
+		}
+
+		assertEquals(4, buffer.size());
+
+		TagRingBuffer.Samples all = buffer.query(0, Long.MAX_VALUE);
+		assertArrayEquals(new long[] { 300, 400, 500, 600 }, all.getTimestamps());
+		assertArrayEquals(new int[] { 3, 4, 5, 6 }, all.getInts());
+		assertArrayEquals(new boolean[] { true, true, false, true }, all.getGood());
+
+		TagRingBuffer.Samples range = buffer.query(400, 500);
+		assertArrayEquals(new long[] { 400, 500 }, range.getTimestamps());
+		assertArrayEquals(new int[] { 4, 5 }, range.getInts());
+
+		assertEquals(0, buffer.query(700, 800).size());
+	}
+}
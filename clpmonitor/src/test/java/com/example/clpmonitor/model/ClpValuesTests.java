@@ -0,0 +1,34 @@
+package com.example.clpmonitor.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ClpValuesTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void primitiveArraysAreWrittenAsJsonArrays() throws Exception {
+		assertEquals("[12,-3]", json(ClpValues.ofShorts(new short[] { 12, -3 })));
+		assertEquals("[1.5,20.25]", json(ClpValues.ofFloats(new float[] { 1.5f, 20.25f })));
+		assertEquals("\"AAEC\"", json(ClpValues.ofBytes(new byte[] { 0, 1, 2 }, true)));
+		assertEquals("42", json(ClpValues.ofInt(42)));
+	}
+
+	@Test
+	void nonFiniteFloatsAreWrittenAsNull() throws Exception {
+		assertEquals("[null,1.5,null,null]", json(ClpValues.ofFloats(
+				new float[] { Float.NaN, 1.5f, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY })));
+		assertEquals("null", json(ClpValues.ofFloat(Float.NaN)));
+		assertEquals("[7,null,2.5]", json(ClpValues.ofObjects(Arrays.asList(7, Float.NaN, 2.5f))));
+	}
+
+	private String json(ClpValues values) throws Exception {
+		return objectMapper.writeValueAsString(values);
+	}
+}
@@ -0,0 +1,66 @@
+package com.example.clpmonitor.model;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.clpmonitor.plc.S7Address;
+
+class TagTests {
+
+	@Test
+	void absoluteDeadbandIsMeasuredFromTheLastPublishedValue() {
+		Tag tag = new Tag(0, "clp4.p0", "expedicao", "clp4", "normal", S7Address.parse("DB9.DBW6"), 2, false);
+
+		assertTrue(tag.checkChanged(10, true));
+		assertFalse(tag.checkChanged(11, true));
+		assertFalse(tag.checkChanged(12, true));
+		// A referência continua 10: a deriva lenta acaba publicada
+		assertTrue(tag.checkChanged(13, true));
+		assertFalse(tag.checkChanged(11, true));
+		assertTrue(tag.checkChanged(10, true));
+	}
+
+	@Test
+	void percentDeadbandScalesWithTheValue() {
+		Tag tag = new Tag(0, "forno.temp", "estoque", "clp5", "fast", S7Address.parse("DB1.DBD0"), 10, true);
+
+		assertTrue(tag.checkChanged(200f, true));
+		assertFalse(tag.checkChanged(219.5f, true));
+		assertTrue(tag.checkChanged(221f, true));
+		assertFalse(tag.checkChanged(200f, true));
+		assertTrue(tag.checkChanged(198f, true));
+	}
+
+	@Test
+	void qualityChangesAndExactTypesIgnoreTheDeadband() {
+		Tag tag = new Tag(0, "clp4.p0", "expedicao", "clp4", "normal", S7Address.parse("DB9.DBW6"), 5, false);
+		assertTrue(tag.checkChanged(10, true));
+		assertTrue(tag.checkChanged(10, false));
+		assertFalse(tag.checkChanged(10, false));
+		assertTrue(tag.checkChanged(11, true));
+
+		tag.invalidatePublished();
+		assertTrue(tag.checkChanged(11, true));
+
+		Tag block = new Tag(1, "clp1.cores", "estoque", "clp1", "fast", S7Address.parse("DB9.DBB68[4]"), 5, false);
+		assertTrue(block.checkChanged(new byte[] { 1, 2, 3, 4 }, true));
+		assertFalse(block.checkChanged(new byte[] { 1, 2, 3, 4 }, true));
+		assertTrue(block.checkChanged(new byte[] { 1, 2, 3, 5 }, true));
+	}
+
+	@Test
+	void nonFiniteFloatsArePublishedOnlyWhenTheyChange() {
+		Tag tag = new Tag(0, "forno.temp", "estoque", "clp5", "fast", S7Address.parse("DB1.DBD0"), 10, true);
+
+		assertTrue(tag.checkChanged(200f, true));
+		assertTrue(tag.checkChanged(Float.NaN, true));
+		assertFalse(tag.checkChanged(Float.NaN, true));
+		assertTrue(tag.checkChanged(200f, true));
+		assertTrue(tag.checkChanged(Float.POSITIVE_INFINITY, true));
+		assertFalse(tag.checkChanged(Float.POSITIVE_INFINITY, true));
+		assertTrue(tag.checkChanged(Float.NEGATIVE_INFINITY, true));
+		assertTrue(tag.checkChanged(5f, true));
+	}
+}
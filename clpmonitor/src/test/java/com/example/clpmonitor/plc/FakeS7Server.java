@@ -0,0 +1,239 @@
+package com.example.clpmonitor.plc;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// CLP S7 simulado para os testes: responde ao handshake COTP, ao Setup
+// Communication e às funções Read Var / Write Var sobre DBs em memória.
+// Público para os testes do pool e da aquisição (pacote service).
+public class FakeS7Server implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final Map<Integer, byte[]> dbs = new ConcurrentHashMap<>();
+    private final int pduLength;
+    private final AtomicInteger jobs = new AtomicInteger();
+    private final AtomicInteger accepted = new AtomicInteger();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile int responseDelayMs = 0;
+    private volatile boolean rejectJobs;
+
+    public FakeS7Server(int pduLength) throws IOException {
+        this.pduLength = pduLength;
+        this.serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread(this::acceptLoop, "fake-s7-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public byte[] db(int number, int size) {
+        return dbs.computeIfAbsent(number, n -> new byte[size]);
+    }
+
+    public int getJobCount() {
+        return jobs.get();
+    }
+
+    // Conexões aceitas desde o início / ainda abertas
+    public int getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    // Derruba as conexões abertas, como um CLP reiniciado
+    public void dropConnections() throws IOException {
+        for (Socket socket : connections) {
+            socket.close();
+        }
+    }
+
+    // Recusa os jobs (Read/Write Var) com erro no cabeçalho S7, mantendo a conexão
+    public void setRejectJobs(boolean rejectJobs) {
+        this.rejectJobs = rejectJobs;
+    }
+
+    // Com atraso, cada job é respondido por uma thread própria e as respostas
+    // podem sair fora de ordem
+    void setResponseDelayMs(int responseDelayMs) {
+        this.responseDelayMs = responseDelayMs;
+    }
+
+    int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                accepted.incrementAndGet();
+                connections.add(socket);
+                Thread worker = new Thread(() -> serve(socket), "fake-s7-conn");
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            while (true) {
+                byte[] header = new byte[4];
+                in.readFully(header);
+                int length = ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+                byte[] frame = new byte[length];
+                System.arraycopy(header, 0, frame, 0, 4);
+                in.readFully(frame, 4, length - 4);
+                if (responseDelayMs == 0) {
+                    out.write(handle(frame));
+                    out.flush();
+                } else {
+                    respondLater(frame, out);
+                }
+            }
+        } catch (IOException e) {
+            // Cliente desconectou
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private void respondLater(byte[] frame, OutputStream out) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        int delay = 1 + (int) (Math.random() * responseDelayMs);
+        Thread worker = new Thread(() -> {
+            try {
+                Thread.sleep(delay);
+                byte[] response = handle(frame);
+                inFlight.decrementAndGet();
+                synchronized (out) {
+                    out.write(response);
+                    out.flush();
+                }
+            } catch (Exception e) {
+                // Cliente desconectou
+            }
+        });
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private byte[] handle(byte[] frame) {
+        if ((frame[5] & 0xFF) == 0xE0) {
+            return new byte[] { 0x03, 0x00, 0x00, 0x16, 0x11, (byte) 0xD0, 0x00, 0x01, 0x00, 0x01,
+                    0x00, (byte) 0xC0, 0x01, 0x0A, (byte) 0xC1, 0x02, 0x01, 0x00, (byte) 0xC2, 0x02, 0x01, 0x01 };
+        }
+
+        jobs.incrementAndGet();
+        int pduRef = ((frame[11] & 0xFF) << 8) | (frame[12] & 0xFF);
+        int function = frame[17] & 0xFF;
+
+        if (rejectJobs && function != 0xF0) {
+            return reject(pduRef);
+        }
+
+        return switch (function) {
+            case 0xF0 -> ack(pduRef, new byte[] { (byte) 0xF0, 0x00, 0x00, 0x08, 0x00, 0x08,
+                    (byte) (pduLength >> 8), (byte) pduLength }, new byte[0]);
+            case 0x04 -> readVar(frame, pduRef);
+            case 0x05 -> writeVar(frame, pduRef);
+            default -> throw new IllegalStateException("Função não suportada: " + function);
+        };
+    }
+
+    private byte[] readVar(byte[] frame, int pduRef) {
+        int count = frame[18] & 0xFF;
+        ByteBuffer data = ByteBuffer.allocate(pduLength);
+        for (int i = 0; i < count; i++) {
+            int item = 19 + (i * 12);
+            int size = ((frame[item + 4] & 0xFF) << 8) | (frame[item + 5] & 0xFF);
+            int db = ((frame[item + 6] & 0xFF) << 8) | (frame[item + 7] & 0xFF);
+            int address = ((frame[item + 9] & 0xFF) << 16) | ((frame[item + 10] & 0xFF) << 8) | (frame[item + 11] & 0xFF);
+            int offset = address >> 3;
+            byte[] memory = dbs.get(db);
+
+            if (memory == null || offset + size > memory.length) {
+                data.put((byte) 0x0A).put((byte) 0x00).putShort((short) 0);
+            } else if (frame[item + 3] == 0x01) {
+                // Transport size BIT: devolve só o bit pedido (0 ou 1)
+                data.put((byte) 0xFF).put((byte) 0x03).putShort((short) 1);
+                data.put((byte) ((memory[offset] >> (address & 0x07)) & 0x01));
+                if (i < count - 1) {
+                    data.put((byte) 0x00);
+                }
+            } else {
+                data.put((byte) 0xFF).put((byte) 0x04).putShort((short) (size << 3));
+                data.put(memory, offset, size);
+                if ((size % 2 == 1) && (i < count - 1)) {
+                    data.put((byte) 0x00);
+                }
+            }
+        }
+        byte[] payload = new byte[data.position()];
+        data.flip().get(payload);
+        return ack(pduRef, new byte[] { 0x04, (byte) count }, payload);
+    }
+
+    private byte[] writeVar(byte[] frame, int pduRef) {
+        int size = ((frame[23] & 0xFF) << 8) | (frame[24] & 0xFF);
+        int db = ((frame[25] & 0xFF) << 8) | (frame[26] & 0xFF);
+        int address = ((frame[28] & 0xFF) << 16) | ((frame[29] & 0xFF) << 8) | (frame[30] & 0xFF);
+        byte[] memory = dbs.get(db);
+        int offset = address >> 3;
+
+        byte returnCode;
+        if (memory == null || offset + size > memory.length) {
+            returnCode = 0x0A;
+        } else {
+            System.arraycopy(frame, 35, memory, offset, size);
+            returnCode = (byte) 0xFF;
+        }
+        return ack(pduRef, new byte[] { 0x05, 0x01 }, new byte[] { returnCode });
+    }
+
+    // Ack Data com classe/código de erro: job recusado pelo CLP
+    private byte[] reject(int pduRef) {
+        byte[] response = ack(pduRef, new byte[0], new byte[0]);
+        response[17] = (byte) 0x81;
+        response[18] = 0x04;
+        return response;
+    }
+
+    private byte[] ack(int pduRef, byte[] params, byte[] data) {
+        int length = 19 + params.length + data.length;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put((byte) 0x03).put((byte) 0x00).putShort((short) length);
+        buffer.put((byte) 0x02).put((byte) 0xF0).put((byte) 0x80);
+        buffer.put((byte) 0x32).put((byte) 0x03).putShort((short) 0).putShort((short) pduRef);
+        buffer.putShort((short) params.length).putShort((short) data.length);
+        buffer.put((byte) 0x00).put((byte) 0x00);
+        buffer.put(params).put(data);
+        return buffer.array();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnections();
+    }
+}
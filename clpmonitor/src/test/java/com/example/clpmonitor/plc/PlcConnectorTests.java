@@ -0,0 +1,248 @@
+package com.example.clpmonitor.plc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class PlcConnectorTests {
+
+	@Test
+	void readMultiPacksItemsIntoOneJob() throws Exception {
+		try (FakeS7Server server = new FakeS7Server(240)) {
+			byte[] db9 = server.db(9, 64);
+			for (int i = 0; i < 12; i++) {
+				db9[6 + (i * 2) + 1] = (byte) (i + 1);
+			}
+
+			PlcConnector plc = new PlcConnector("127.0.0.1", server.getPort());
+			plc.connect();
+			int jobsBefore = server.getJobCount();
+
+			List<S7ReadItem> items = new ArrayList<>();
+			for (int i = 6; i <= 28; i += 2) {
+				items.add(new S7ReadItem(9, i, 0, 2, "integer"));
+			}
+			items.add(new S7ReadItem(9, 62, 0, 1, "byte"));
+			items.add(new S7ReadItem(7, 0, 0, 2, "integer"));
+			plc.readMulti(items);
+
+			assertEquals(1, server.getJobCount() - jobsBefore);
+			for (int i = 0; i < 12; i++) {
+				assertTrue(items.get(i).isSuccess());
+				assertEquals(i + 1, items.get(i).getValue());
+			}
+			assertTrue(items.get(12).isSuccess());
+			assertFalse(items.get(13).isSuccess());
+			plc.disconnect();
+		}
+	}
+
+	@Test
+	void itemsLargerThanThePduAreReadInParts() throws Exception {
+		try (FakeS7Server server = new FakeS7Server(240)) {
+			byte[] db9 = server.db(9, 1200);
+			for (int i = 0; i < 1000; i++) {
+				db9[100 + i] = (byte) i;
+			}
+			db9[7] = 42;
+
+			S7ReadPlan plan = new S7ReadPlan(List.of(S7Address.parse("DB9.DBW6"), S7Address.parse("DB9.DBB100[1000]"),
+					S7Address.parse("DB7.DBB0[500]")), 16);
+
+			PlcConnector plc = new PlcConnector("127.0.0.1", server.getPort());
+			plc.connect();
+			plc.readPlan(plan);
+
+			assertEquals(42, plan.getValue(0));
+			assertTrue(plan.isSuccess(1));
+			byte[] block = (byte[]) plan.getValue(1);
+			assertEquals(1000, block.length);
+			for (int i = 0; i < 1000; i++) {
+				assertEquals((byte) i, block[i]);
+			}
+			// Partes de um DB inexistente: a tag inteira falha, as outras não
+			assertFalse(plan.isSuccess(2));
+			assertTrue(plan.getJobCount() > 1);
+
+			List<S7ReadItem> items = new ArrayList<>(List.of(new S7ReadItem(9, 100, 0, 1000, "block")));
+			plc.readMulti(items);
+			assertArrayEquals(block, (byte[]) items.get(0).getValue());
+			plc.disconnect();
+		}
+	}
+
+	@Test
+	void readPlanParsesSymbolicAddressesOnce() throws Exception {
+		try (FakeS7Server server = new FakeS7Server(240)) {
+			byte[] db9 = server.db(9, 100);
+			db9[7] = 42;
+			db9[10] = 0x08;
+			db9[68] = 3;
+
+			S7Address block = S7Address.parse("DB9.DBB68[28]");
+			assertEquals(S7DataType.BLOCK, block.getType());
+			assertEquals(28, block.getSize());
+			assertEquals("DB9.DBX10.3", S7Address.parse("db9.dbx10.3").toString());
+			assertThrows(IllegalArgumentException.class, () -> S7Address.parse("DB9.DBW6.1"));
+
+			S7ReadPlan plan = new S7ReadPlan(List.of(S7Address.parse("DB9.DBW6"), S7Address.parse("DB9.DBX10.3"),
+					block, S7Address.parse("DB7.DBB0")));
+
+			PlcConnector plc = new PlcConnector("127.0.0.1", server.getPort());
+			plc.connect();
+			for (int cycle = 0; cycle < 3; cycle++) {
+				db9[7] = (byte) (42 + cycle);
+				plc.readPlan(plan);
+
+				assertEquals(1, plan.getJobCount());
+				assertEquals(42 + cycle, plan.getValue(0));
+				assertEquals(true, plan.getValue(1));
+				assertEquals(3, ((byte[]) plan.getValue(2))[0]);
+				assertFalse(plan.isSuccess(3));
+			}
+			plc.disconnect();
+		}
+	}
+
+	@Test
+	void adjacentTagsAreMergedIntoBlockReads() throws Exception {
+		try (FakeS7Server server = new FakeS7Server(240)) {
+			byte[] db9 = server.db(9, 100);
+			for (int i = 0; i < 12; i++) {
+				db9[6 + (i * 2) + 1] = (byte) (i + 1);
+			}
+			db9[40] = 0x04;
+
+			List<S7Address> addresses = new ArrayList<>();
+			for (int i = 0; i < 12; i++) {
+				addresses.add(S7Address.parse("DB9.DBW" + (6 + (i * 2))));
+			}
+			addresses.add(S7Address.parse("DB9.DBX40.2"));
+			addresses.add(S7Address.parse("DB9.DBB68[28]"));
+			S7ReadPlan plan = new S7ReadPlan(addresses, 16);
+
+			PlcConnector plc = new PlcConnector("127.0.0.1", server.getPort());
+			plc.connect();
+			plc.readPlan(plan);
+
+			// DB9.6..30 e o bit em 40 formam um bloco; DB9.68 fica longe demais
+			assertEquals(2, plan.getReadCount());
+			assertEquals(1, plan.getJobCount());
+			for (int i = 0; i < 12; i++) {
+				assertEquals(i + 1, plan.getValue(i));
+			}
+			assertEquals(true, plan.getValue(12));
+			assertEquals(28, ((byte[]) plan.getValue(13)).length);
+			plc.disconnect();
+		}
+	}
+
+	@Test
+	void largeBlocksAreSplitIntoPduSizedJobs() throws Exception {
+		try (FakeS7Server server = new FakeS7Server(240)) {
+			byte[] db10 = server.db(10, 3000);
+
+			PlcConnector plc = new PlcConnector("127.0.0.1", server.getPort());
+			plc.connect();
+			assertEquals(240, plc.getPduLength());
+
+			byte[] block = new byte[2500];
+			for (int i = 0; i < block.length; i++) {
+				block[i] = (byte) (i * 7);
+			}
+			assertTrue(plc.writeBlock(10, 100, block.length, block));
+			assertArrayEquals(block, Arrays.copyOfRange(db10, 100, 2600));
+
+			int jobsBefore = server.getJobCount();
+			assertArrayEquals(block, plc.readBlock(10, 100, block.length));
+			assertEquals(12, server.getJobCount() - jobsBefore);
+			plc.disconnect();
+		}
+	}
+
+	@Test
+	void offsetsPastTheSixteenBitAddressAreRead() throws Exception {
+		try (FakeS7Server server = new FakeS7Server(240)) {
+			// Endereço em bits: a partir do byte 8192 o byte alto deixa de ser zero
+			byte[] db9 = server.db(9, 10000);
+			for (int i = 0; i < 500; i++) {
+				db9[8190 + i] = (byte) (i + 1);
+			}
+			db9[9001] = 42;
+			db9[9500] = 0x08;
+
+			PlcConnector plc = new PlcConnector("127.0.0.1", server.getPort());
+			plc.connect();
+
+			assertArrayEquals(Arrays.copyOfRange(db9, 8190, 8690), plc.readBlock(9, 8190, 500));
+			assertEquals(42, plc.readInt(9, 9000));
+			assertTrue(plc.readBit(9, 9500, 3));
+			assertFalse(plc.readBit(9, 9500, 2));
+			plc.disconnect();
+		}
+	}
+
+	@Test
+	void pipelinedJobsAreMatchedByPduReference() throws Exception {
+		try (FakeS7Server server = new FakeS7Server(240)) {
+			byte[] db10 = server.db(10, 3000);
+			for (int i = 0; i < db10.length; i++) {
+				db10[i] = (byte) (i / 3);
+			}
+			server.setResponseDelayMs(30);
+
+			PlcConnector plc = new PlcConnector("127.0.0.1", server.getPort());
+			plc.connect();
+			plc.enablePipelining();
+
+			assertArrayEquals(Arrays.copyOfRange(db10, 0, 3000), plc.readBlock(10, 0, 3000));
+			assertTrue(server.getMaxInFlight() > 1);
+			assertTrue(server.getMaxInFlight() <= plc.getMaxAmqCalling());
+			plc.disconnect();
+		}
+	}
+
+	@Test
+	void nioTransportMultiplexesManySessions() throws Exception {
+		try (FakeS7Server server = new FakeS7Server(480); S7NioTransport transport = new S7NioTransport(2)) {
+			byte[] db9 = server.db(9, 2000);
+			for (int i = 0; i < db9.length; i++) {
+				db9[i] = (byte) (i % 251);
+			}
+			server.setResponseDelayMs(10);
+
+			List<PlcConnector> plcs = new ArrayList<>();
+			List<CompletableFuture<Void>> connections = new ArrayList<>();
+			for (int i = 0; i < 50; i++) {
+				PlcConnector plc = new PlcConnector("127.0.0.1", server.getPort(), transport);
+				plcs.add(plc);
+				connections.add(plc.connectAsync());
+			}
+			CompletableFuture.allOf(connections.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+			List<CompletableFuture<byte[]>> reads = new ArrayList<>();
+			for (PlcConnector plc : plcs) {
+				reads.add(plc.readBlockAsync(9, 0, 2000));
+			}
+			for (CompletableFuture<byte[]> read : reads) {
+				assertArrayEquals(db9, read.get(10, TimeUnit.SECONDS));
+			}
+
+			assertEquals((byte) (1234 % 251), plcs.get(0).readByte(9, 1234));
+			for (PlcConnector plc : plcs) {
+				plc.disconnect();
+			}
+		}
+	}
+
+}
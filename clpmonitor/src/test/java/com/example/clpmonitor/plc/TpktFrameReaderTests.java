@@ -0,0 +1,118 @@
+package com.example.clpmonitor.plc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class TpktFrameReaderTests {
+
+	private static final byte[] FIRST = frame(0x11, 0x22, 0x33);
+	private static final byte[] SECOND = frame(0x44, 0x55, 0x66, 0x77, 0x01);
+
+	@Test
+	void frameSplitAcrossManyReadsIsReassembled() throws Exception {
+		// Cada read() devolve no máximo 2 bytes, como um TCP bem fragmentado
+		TpktFrameReader reader = new TpktFrameReader(new ChunkedInputStream(concat(FIRST, SECOND), 2, false));
+
+		assertArrayEquals(FIRST, reader.readFrame());
+		assertArrayEquals(SECOND, reader.readFrame());
+	}
+
+	@Test
+	void coalescedFramesAreReturnedOneAtATime() throws Exception {
+		TpktFrameReader reader = new TpktFrameReader(new ByteArrayInputStream(concat(FIRST, SECOND)));
+
+		assertArrayEquals(FIRST, reader.readFrame());
+		assertArrayEquals(SECOND, reader.readFrame());
+		assertThrows(EOFException.class, reader::readFrame);
+	}
+
+	@Test
+	void invalidHeadersFailWithoutWaitingForMoreData() {
+		byte[] badVersion = FIRST.clone();
+		badVersion[0] = 0x04;
+		IOException version = readFails(badVersion, true);
+		assertTrue(version.getMessage().startsWith("Versão TPKT inválida"));
+
+		// Comprimento menor que os próprios cabeçalhos
+		IOException length = readFails(new byte[] { 0x03, 0x00, 0x00, 0x04 }, true);
+		assertTrue(length.getMessage().startsWith("Comprimento TPKT inválido"));
+
+		// Conexão fechada no meio do telegrama
+		byte[] truncated = new byte[SECOND.length - 2];
+		System.arraycopy(SECOND, 0, truncated, 0, truncated.length);
+		assertTrue(readFails(truncated, false) instanceof EOFException);
+	}
+
+	// O erro precisa aparecer logo: com open, a conexão continua aberta depois
+	// dos dados e uma leitura a mais ficaria bloqueada
+	private static IOException readFails(byte[] data, boolean open) {
+		TpktFrameReader reader = new TpktFrameReader(new ChunkedInputStream(data, data.length, open));
+		return assertTimeoutPreemptively(Duration.ofSeconds(2), () -> assertThrows(IOException.class, reader::readFrame));
+	}
+
+	// TPKT + COTP DT + payload
+	private static byte[] frame(int... payload) {
+		int length = 7 + payload.length;
+		byte[] frame = new byte[length];
+		frame[0] = 0x03;
+		frame[2] = (byte) (length >> 8);
+		frame[3] = (byte) length;
+		frame[4] = 0x02;
+		frame[5] = (byte) 0xF0;
+		frame[6] = (byte) 0x80;
+		for (int i = 0; i < payload.length; i++) {
+			frame[7 + i] = (byte) payload[i];
+		}
+		return frame;
+	}
+
+	private static byte[] concat(byte[] a, byte[] b) {
+		byte[] joined = new byte[a.length + b.length];
+		System.arraycopy(a, 0, joined, 0, a.length);
+		System.arraycopy(b, 0, joined, a.length, b.length);
+		return joined;
+	}
+
+	// Entrega os dados em pedaços de no máximo chunk bytes por leitura. Com
+	// open, ao fim dos dados a leitura bloqueia como num socket ainda aberto.
+	private static class ChunkedInputStream extends InputStream {
+		private final ByteArrayInputStream data;
+		private final int chunk;
+		private final boolean open;
+
+		ChunkedInputStream(byte[] data, int chunk, boolean open) {
+			this.data = new ByteArrayInputStream(data);
+			this.chunk = chunk;
+			this.open = open;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] one = new byte[1];
+			return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			if (open && data.available() == 0) {
+				try {
+					Thread.sleep(Long.MAX_VALUE);
+				} catch (InterruptedException e) {
+					throw new InterruptedIOException();
+				}
+			}
+			return data.read(buffer, offset, Math.min(length, chunk));
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.clpmonitor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.clpmonitor.model.PollStats;
+
+class AcquisitionSchedulerTests {
+
+	private final AcquisitionScheduler scheduler = new AcquisitionScheduler();
+
+	@AfterEach
+	void shutdown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	void overrunningPollSkipsTheMissedCyclesInsteadOfQueueingThem() throws Exception {
+		List<Long> starts = new CopyOnWriteArrayList<>();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		CountDownLatch slowDone = new CountDownLatch(1);
+		long[] slowEnd = new long[1];
+
+		// O primeiro ciclo demora 4,6 períodos, como um CLP que parou de responder
+		PollStats slow = scheduler.schedule("clp1", "clp1/fast", 50, () -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			long start = System.nanoTime();
+			starts.add(start);
+			if (starts.size() == 1) {
+				Thread.sleep(230);
+				slowEnd[0] = System.nanoTime();
+				slowDone.countDown();
+			}
+			running.decrementAndGet();
+		});
+		PollStats other = scheduler.schedule("clp2", "clp2/fast", 50, () -> {
+		});
+
+		assertTrue(slowDone.await(2, TimeUnit.SECONDS));
+		// Durante o atraso do clp1, o clp2 continuou no seu ritmo
+		assertTrue(other.getCycles() >= 3, "ciclos do clp2: " + other.getCycles());
+
+		long deadline = System.currentTimeMillis() + 2000;
+		while (slow.getCycles() < 4 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(slow.getCycles() >= 4);
+
+		// Os ciclos perdidos foram contados e descartados. Nos 100 ms após o
+		// atraso cabem 2 ciclos (mais o atual, atrasado); executar os 4 perdidos
+		// em sequência daria 6 leituras
+		assertTrue(slow.getSkipped() >= 3, "ciclos descartados: " + slow.getSkipped());
+		assertEquals(1, slow.getOverruns());
+		assertEquals(1, maxRunning.get());
+		long burst = starts.stream()
+				.filter(start -> start >= slowEnd[0] && start - slowEnd[0] < TimeUnit.MILLISECONDS.toNanos(100))
+				.count();
+		assertTrue(burst <= 3, "leituras logo após o atraso: " + burst);
+	}
+}
@@ -0,0 +1,177 @@
+package com.example.clpmonitor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.bean.override.mockito.MockReset;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagSnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Aplicação completa sem leitura dos CLPs: a aquisição é simulada chamando
+// os listeners registrados, e os eventos são lidos da resposta do
+// /clp-data-stream como o navegador faria
+@SpringBootTest
+@AutoConfigureMockMvc
+class ClpSimulatorServiceTests {
+
+	@MockitoBean(reset = MockReset.NONE)
+	private TagAcquisitionService acquisition;
+
+	@MockitoBean
+	private AcquisitionScheduler scheduler;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ClpSimulatorService service;
+
+	@Autowired
+	private TagRegistry registry;
+
+	@Autowired
+	private TagValueStore store;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void keyframeIsFollowedByDeltasWithConsecutiveSequenceNumbers() throws Exception {
+		service.startSimulation();
+		publishClp4(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+
+		// Um novo cliente começa pelo estado atual
+		SseStream stream = connect("/clp-data-stream");
+		JsonNode keyframe = stream.next("clp4-data");
+		assertTrue(keyframe.path("keyframe").asBoolean());
+		assertEquals(4, keyframe.path("clpId").asInt());
+		assertEquals("[0,1,2,3,4,5,6,7,8,9,10,11]", keyframe.path("values").toString());
+		long seq = keyframe.path("seq").asLong();
+
+		publishClp4(0, 1, 2, 99, 4, 5, 6, 7, 8, 9, 10, 11);
+		JsonNode delta = stream.next("clp4-data");
+		assertFalse(delta.path("keyframe").asBoolean());
+		assertEquals(seq + 1, delta.path("seq").asLong());
+		assertEquals("[3]", delta.path("indexes").toString());
+		assertEquals("[99]", delta.path("values").toString());
+
+		// Sem mudança, nada é enviado
+		publishClp4(0, 1, 2, 99, 4, 5, 6, 7, 8, 9, 10, 11);
+		assertNull(stream.poll("clp4-data", 200));
+
+		// "Atualizar" força um keyframe mesmo sem mudança
+		service.startSimulation();
+		publishClp4(0, 1, 2, 99, 4, 5, 6, 7, 8, 9, 10, 11);
+		JsonNode forced = stream.next("clp4-data");
+		assertTrue(forced.path("keyframe").asBoolean());
+		assertEquals(seq + 2, forced.path("seq").asLong());
+		assertEquals("[0,1,2,99,4,5,6,7,8,9,10,11]", forced.path("values").toString());
+	}
+
+	@Test
+	void clientsOnlyReceiveTheStreamsOfTheirTopics() throws Exception {
+		service.startSimulation();
+		SseStream clp1 = connect("/clp-data-stream?topics=clp1");
+		SseStream p3 = connect("/clp-data-stream?topics=clp4.p3");
+
+		publishClp4(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+		assertEquals(4, p3.next("clp4-data").path("clpId").asInt());
+		assertNull(clp1.poll("clp4-data", 200));
+	}
+
+	@Test
+	void unknownTopicIsRejected() throws Exception {
+		mvc.perform(get("/clp-data-stream?topics=clp4,clp9.x")).andExpect(status().isBadRequest());
+	}
+
+	// Publica os valores das tags do stream clp4 no TagValueStore e avisa os
+	// listeners, como faria um ciclo de leitura
+	private void publishClp4(int... values) {
+		List<Tag> tags = registry.getTagsByStream("clp4");
+		int[] ids = new int[tags.size()];
+		Object[] boxed = new Object[tags.size()];
+		boolean[] good = new boolean[tags.size()];
+		for (int i = 0; i < tags.size(); i++) {
+			ids[i] = tags.get(i).getId();
+			boxed[i] = values[i];
+			good[i] = true;
+		}
+		long now = System.currentTimeMillis();
+		TagSnapshot snapshot = store.publish(ids, boxed, good, now, now);
+
+		ArgumentCaptor<TagAcquisitionService.TagListener> listeners = ArgumentCaptor
+				.forClass(TagAcquisitionService.TagListener.class);
+		verify(acquisition, atLeastOnce()).addListener(listeners.capture());
+		for (TagAcquisitionService.TagListener listener : listeners.getAllValues()) {
+			listener.onTagsUpdated(tags, snapshot);
+		}
+	}
+
+	private SseStream connect(String url) throws Exception {
+		return new SseStream(mvc.perform(get(url)).andExpect(request().asyncStarted()).andReturn().getResponse());
+	}
+
+	// Eventos SSE escritos até agora na resposta, consumidos em ordem
+	private class SseStream {
+		private final MockHttpServletResponse response;
+		private int consumed;
+
+		SseStream(MockHttpServletResponse response) {
+			this.response = response;
+		}
+
+		JsonNode next(String event) throws Exception {
+			JsonNode data = poll(event, 2000);
+			assertNotNull(data, "nenhum evento " + event);
+			return data;
+		}
+
+		// Próximo evento com o nome dado (os demais são descartados), ou null
+		JsonNode poll(String event, long timeoutMs) throws Exception {
+			long deadline = System.currentTimeMillis() + timeoutMs;
+			do {
+				String content = response.getContentAsString();
+				int end;
+				while ((end = content.indexOf("\n\n", consumed)) >= 0) {
+					String frame = content.substring(consumed, end);
+					consumed = end + 2;
+					String name = null;
+					String data = null;
+					for (String line : frame.split("\n")) {
+						if (line.startsWith("event:")) {
+							name = line.substring(6);
+						} else if (line.startsWith("data:")) {
+							data = line.substring(5);
+						}
+					}
+					if (event.equals(name)) {
+						return objectMapper.readTree(data);
+					}
+				}
+				Thread.sleep(10);
+			} while (System.currentTimeMillis() < deadline);
+			return null;
+		}
+	}
+}
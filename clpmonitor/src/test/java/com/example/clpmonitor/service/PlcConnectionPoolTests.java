@@ -0,0 +1,171 @@
+package com.example.clpmonitor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.clpmonitor.plc.FakeS7Server;
+
+// Pool sobre um CLP simulado; a manutenção (keepalive e remoção de ociosas) é
+// chamada direto pelo teste em vez de esperar o agendamento
+class PlcConnectionPoolTests {
+
+	private FakeS7Server server;
+	private PlcConnectionPool pool;
+
+	@BeforeEach
+	void startServer() throws Exception {
+		server = new FakeS7Server(240);
+		server.db(9, 16)[1] = 42;
+	}
+
+	@AfterEach
+	void shutdown() throws Exception {
+		if (pool != null) {
+			pool.shutdown();
+		}
+		server.close();
+	}
+
+	@Test
+	void sessionsPerPlcAreCapped() throws Exception {
+		pool = newPool(2, 60_000, 60_000);
+		CountDownLatch borrowed = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<Thread> holders = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			Thread holder = new Thread(() -> {
+				try {
+					pool.execute("127.0.0.1", server.getPort(), plc -> {
+						borrowed.countDown();
+						return release.await(5, TimeUnit.SECONDS);
+					});
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			});
+			holder.start();
+			holders.add(holder);
+		}
+		assertTrue(borrowed.await(5, TimeUnit.SECONDS));
+
+		Exception error = assertThrows(Exception.class, () -> read(pool));
+		assertTrue(error.getMessage().startsWith("Limite de 2 sessões"));
+
+		release.countDown();
+		for (Thread holder : holders) {
+			holder.join(5000);
+		}
+		assertEquals(42, read(pool));
+		assertEquals(2, server.getAcceptedCount());
+		assertEquals(2, idleSessions());
+	}
+
+	@Test
+	void idleSessionsAreClosed() throws Exception {
+		pool = newPool(2, 50, 60_000);
+		assertEquals(42, read(pool));
+		assertEquals(1, idleSessions());
+
+		Thread.sleep(100);
+		maintain();
+		assertEquals(0, idleSessions());
+		waitForConnections(0);
+	}
+
+	@Test
+	void onlyConnectionFailuresAreRetried() throws Exception {
+		pool = newPool(2, 60_000, 60_000);
+		AtomicInteger calls = new AtomicInteger();
+		PlcConnectionPool.PlcOperation<Integer> readInt = plc -> {
+			calls.incrementAndGet();
+			return plc.readInt(9, 0);
+		};
+		assertEquals(42, pool.execute("127.0.0.1", server.getPort(), readInt));
+
+		// CLP reiniciado: a sessão é descartada e a leitura repetida com outra
+		server.dropConnections();
+		calls.set(0);
+		assertEquals(42, pool.execute("127.0.0.1", server.getPort(), readInt));
+		assertEquals(2, calls.get());
+		assertEquals(2, server.getAcceptedCount());
+
+		// Escritas nunca são repetidas, mas a sessão perdida sai do pool
+		server.dropConnections();
+		calls.set(0);
+		assertThrows(Exception.class, () -> pool.executeOnce("127.0.0.1", server.getPort(), readInt));
+		assertEquals(1, calls.get());
+		assertEquals(0, idleSessions());
+
+		// Job recusado pelo CLP: erro da operação, a sessão continua no pool
+		server.setRejectJobs(true);
+		calls.set(0);
+		assertThrows(Exception.class, () -> pool.execute("127.0.0.1", server.getPort(), readInt));
+		assertEquals(1, calls.get());
+		assertEquals(3, server.getAcceptedCount());
+		assertEquals(1, idleSessions());
+	}
+
+	@Test
+	void keepaliveDiscardsOnlyLostSessions() throws Exception {
+		pool = newPool(2, 60_000, 0);
+		assertEquals(42, read(pool));
+
+		maintain();
+		assertEquals(1, idleSessions());
+
+		// O CLP responde, ainda que recusando o job: a sessão está viva
+		server.setRejectJobs(true);
+		maintain();
+		assertEquals(1, idleSessions());
+		assertEquals(1, server.getConnectionCount());
+
+		server.setRejectJobs(false);
+		server.dropConnections();
+		maintain();
+		assertEquals(0, idleSessions());
+		assertEquals(42, read(pool));
+		assertEquals(2, server.getAcceptedCount());
+	}
+
+	private PlcConnectionPool newPool(int maxSessions, long idleTimeoutMs, long keepaliveIntervalMs) {
+		PlcConnectionPool pool = new PlcConnectionPool();
+		ReflectionTestUtils.setField(pool, "maxSessionsPerPlc", maxSessions);
+		ReflectionTestUtils.setField(pool, "borrowTimeoutMs", 200L);
+		ReflectionTestUtils.setField(pool, "idleTimeoutMs", idleTimeoutMs);
+		ReflectionTestUtils.setField(pool, "keepaliveIntervalMs", keepaliveIntervalMs);
+		return pool;
+	}
+
+	private int read(PlcConnectionPool pool) throws Exception {
+		return pool.execute("127.0.0.1", server.getPort(), plc -> plc.readInt(9, 0));
+	}
+
+	private int idleSessions() {
+		return pool.getIdleSessions().getOrDefault("127.0.0.1:" + server.getPort(), 0);
+	}
+
+	private void maintain() {
+		ReflectionTestUtils.invokeMethod(pool, "maintain");
+	}
+
+	private void waitForConnections(int expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 3000;
+		while (server.getConnectionCount() != expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, server.getConnectionCount());
+	}
+}
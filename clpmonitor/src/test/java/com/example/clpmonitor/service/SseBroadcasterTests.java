@@ -0,0 +1,339 @@
+package com.example.clpmonitor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class SseBroadcasterTests {
+
+	private TestBroadcaster broadcaster;
+
+	@AfterEach
+	void shutdown() {
+		if (broadcaster != null) {
+			for (GateEmitter emitter : broadcaster.emitters) {
+				emitter.open();
+			}
+			broadcaster.shutdown();
+		}
+	}
+
+	@Test
+	void dropOldestDiscardsTheOldestQueuedFrame() throws Exception {
+		broadcaster = start(2, "drop-oldest");
+		GateEmitter client = register("10.0.0.1");
+
+		broadcaster.broadcast("a", 1);
+		assertEquals("a:1", client.next());
+		broadcaster.broadcast("a", 2);
+		broadcaster.broadcast("a", 3);
+		broadcaster.broadcast("a", 4);
+		client.open();
+
+		assertEquals("a:3", client.next());
+		assertEquals("a:4", client.next());
+		assertEquals(1, broadcaster.getClientStats().get(0).getDropped());
+	}
+
+	@Test
+	void coalesceLatestReplacesThePendingFrameOfTheSameEvent() throws Exception {
+		broadcaster = start(2, "coalesce-latest");
+		GateEmitter client = register("10.0.0.1");
+
+		broadcaster.broadcast("a", 1);
+		assertEquals("a:1", client.next());
+		broadcaster.broadcast("a", 2);
+		broadcaster.broadcast("b", 1);
+		broadcaster.broadcast("a", 3);
+		client.open();
+
+		assertEquals("b:1", client.next());
+		assertEquals("a:3", client.next());
+		assertEquals(1, broadcaster.getClientStats().get(0).getCoalesced());
+		assertEquals(0, broadcaster.getClientStats().get(0).getDropped());
+	}
+
+	@Test
+	void disconnectRemovesTheSlowClient() throws Exception {
+		broadcaster = start(1, "disconnect");
+		GateEmitter slow = register("10.0.0.1");
+		GateEmitter fast = register("10.0.0.2");
+		fast.open();
+
+		// O cliente rápido tira cada frame da fila antes do próximo envio
+		broadcaster.broadcast("a", 1);
+		assertEquals("a:1", slow.next());
+		assertEquals("a:1", fast.next());
+		broadcaster.broadcast("a", 2);
+		assertEquals("a:2", fast.next());
+		broadcaster.broadcast("a", 3);
+		assertEquals("a:3", fast.next());
+
+		assertEquals(1, broadcaster.getSubscriberCount());
+		assertEquals(1, broadcaster.getDisconnectedSlow());
+		assertNotNull(slow.completed.poll(2, TimeUnit.SECONDS));
+	}
+
+	// Deltas: positivos; o keyframe equivalente vai com o valor negativo
+	@Test
+	void lostDeltaIsReplacedByTheNextKeyframe() throws Exception {
+		broadcaster = start(1, "drop-oldest");
+		GateEmitter client = register("10.0.0.1");
+
+		delta("d", 1);
+		assertEquals("d:1", client.next());
+		delta("d", 2);
+		delta("d", 3);
+		client.open();
+
+		assertEquals("d:-3", client.next());
+		delta("d", 4);
+		assertEquals("d:4", client.next());
+	}
+
+	@Test
+	void deltaLostBehindAnotherEventResyncsTheNextFrame() throws Exception {
+		broadcaster = start(2, "drop-oldest");
+		GateEmitter client = register("10.0.0.1");
+
+		broadcaster.broadcast("x", 1);
+		assertEquals("x:1", client.next());
+		delta("d", 2);
+		broadcaster.broadcast("y", 1);
+		broadcaster.broadcast("y", 2);
+		client.open();
+		assertEquals("y:1", client.next());
+		assertEquals("y:2", client.next());
+
+		delta("d", 3);
+		assertEquals("d:-3", client.next());
+		delta("d", 4);
+		assertEquals("d:4", client.next());
+	}
+
+	@Test
+	void coalescedDeltaIsSentAsKeyframe() throws Exception {
+		broadcaster = start(2, "coalesce-latest");
+		GateEmitter client = register("10.0.0.1");
+
+		broadcaster.broadcast("x", 1);
+		assertEquals("x:1", client.next());
+		delta("d", 2);
+		broadcaster.broadcast("y", 1);
+		delta("d", 3);
+		client.open();
+
+		assertEquals("y:1", client.next());
+		assertEquals("d:-3", client.next());
+	}
+
+	@Test
+	void clientsOnlyReceiveTheEventsTheySubscribed() throws Exception {
+		broadcaster = start(8, "coalesce-latest");
+		broadcaster.register("10.0.0.1", Set.of("b"));
+		GateEmitter onlyB = broadcaster.emitters.get(0);
+		GateEmitter all = register("10.0.0.2");
+		onlyB.open();
+		all.open();
+
+		broadcaster.broadcast("a", 1);
+		broadcaster.broadcast("b", 1);
+		broadcaster.broadcast("c", 1);
+		broadcaster.broadcast("b", 2);
+
+		assertEquals("b:1", onlyB.next());
+		assertEquals("b:2", onlyB.next());
+		assertEquals("a:1", all.next());
+		assertEquals("b:1", all.next());
+		assertEquals("c:1", all.next());
+		assertEquals("b:2", all.next());
+		assertNull(onlyB.frames.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void idleClientsReceiveHeartbeats() throws Exception {
+		broadcaster = start(4, "coalesce-latest", 50, 60_000);
+		GateEmitter client = register("10.0.0.1");
+		client.open();
+
+		assertEquals(":hb", client.next());
+		assertEquals(":hb", client.next());
+		assertEquals(1, broadcaster.getSubscriberCount());
+	}
+
+	@Test
+	void stalledClientIsRemovedAndItsEmitterCompletedWithError() throws Exception {
+		broadcaster = start(4, "coalesce-latest", 50, 200);
+		GateEmitter stalled = register("10.0.0.1");
+
+		broadcaster.broadcast("a", 1);
+		assertEquals("a:1", stalled.next());
+
+		String completion = stalled.completed.poll(3, TimeUnit.SECONDS);
+		assertNotNull(completion);
+		assertTrue(completion.startsWith("error:"));
+		assertEquals(0, broadcaster.getSubscriberCount());
+		assertEquals(1, broadcaster.getDisconnectedStalled());
+
+		// A vaga do IP é liberada
+		register("10.0.0.1");
+		assertEquals(1, broadcaster.getSubscriberCount());
+	}
+
+	@Test
+	void connectionsOverTheLimitsAreRefused() {
+		broadcaster = start(4, "coalesce-latest");
+		ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 3);
+		ReflectionTestUtils.setField(broadcaster, "maxSubscribersPerIp", 2);
+
+		register("10.0.0.1");
+		register("10.0.0.1");
+		ResponseStatusException perIp = assertThrows(ResponseStatusException.class, () -> register("10.0.0.1"));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, perIp.getStatusCode());
+
+		register("10.0.0.2");
+		ResponseStatusException total = assertThrows(ResponseStatusException.class, () -> register("10.0.0.3"));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, total.getStatusCode());
+
+		assertEquals(3, broadcaster.getSubscriberCount());
+		assertEquals(2, broadcaster.getRejected());
+	}
+
+	private void delta(String event, int value) {
+		broadcaster.broadcast(event, value, () -> -value);
+	}
+
+	@Test
+	void eventIsSerializedOnceAndTheFrameSharedByAllClients() throws Exception {
+		broadcaster = start(4, "drop-oldest");
+		AtomicInteger encodes = new AtomicInteger();
+		ReflectionTestUtils.setField(broadcaster, "objectMapper", new ObjectMapper() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public String writeValueAsString(Object value) throws JsonProcessingException {
+				encodes.incrementAndGet();
+				return super.writeValueAsString(value);
+			}
+		});
+		List<GateEmitter> clients = List.of(register("10.0.0.1"), register("10.0.0.2"), register("10.0.0.3"));
+		for (GateEmitter client : clients) {
+			client.open();
+		}
+
+		broadcaster.broadcast("a", List.of(1, 2, 3));
+		Object shared = clients.get(0).payloads.poll(2, TimeUnit.SECONDS);
+		assertNotNull(shared);
+		for (GateEmitter client : clients.subList(1, clients.size())) {
+			assertSame(shared, client.payloads.poll(2, TimeUnit.SECONDS));
+		}
+		assertEquals(1, encodes.get());
+	}
+
+	private GateEmitter register(String ip) {
+		broadcaster.register(ip);
+		return broadcaster.emitters.get(broadcaster.emitters.size() - 1);
+	}
+
+	private static TestBroadcaster start(int capacity, String policy) {
+		return start(capacity, policy, 60_000, 60_000);
+	}
+
+	private static TestBroadcaster start(int capacity, String policy, long heartbeatMs, long stallMs) {
+		TestBroadcaster broadcaster = new TestBroadcaster();
+		ReflectionTestUtils.setField(broadcaster, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(broadcaster, "queueCapacity", capacity);
+		ReflectionTestUtils.setField(broadcaster, "overflowPolicyName", policy);
+		ReflectionTestUtils.setField(broadcaster, "heartbeatIntervalMs", heartbeatMs);
+		ReflectionTestUtils.setField(broadcaster, "stallTimeoutMs", stallMs);
+		ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 10);
+		ReflectionTestUtils.setField(broadcaster, "maxSubscribersPerIp", 10);
+		broadcaster.start();
+		return broadcaster;
+	}
+
+	private static class TestBroadcaster extends SseBroadcaster {
+		final List<GateEmitter> emitters = new CopyOnWriteArrayList<>();
+
+		@Override
+		SseEmitter newEmitter() {
+			GateEmitter emitter = new GateEmitter();
+			emitters.add(emitter);
+			return emitter;
+		}
+	}
+
+	// Emitter que registra os frames e só conclui cada escrita depois de
+	// open(), simulando um cliente que parou de ler
+	private static class GateEmitter extends SseEmitter {
+		final BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+		final BlockingQueue<Object> payloads = new LinkedBlockingQueue<>();
+		final BlockingQueue<String> completed = new LinkedBlockingQueue<>();
+		private final Semaphore gate = new Semaphore(0);
+
+		GateEmitter() {
+			super(0L);
+		}
+
+		void open() {
+			gate.release(Integer.MAX_VALUE / 2);
+		}
+
+		// Próximo frame que começou a ser escrito, como "evento:dados"
+		String next() throws InterruptedException {
+			String frame = frames.poll(2, TimeUnit.SECONDS);
+			assertNotNull(frame, "nenhum frame enviado");
+			return frame;
+		}
+
+		@Override
+		public void send(Set<DataWithMediaType> items) throws IOException {
+			for (DataWithMediaType item : items) {
+				payloads.add(item.getData());
+				String text = new String((byte[]) item.getData(), StandardCharsets.UTF_8).trim();
+				frames.add(text.startsWith(":") ? text
+						: text.replace("event:", "").replace("\ndata:", ":"));
+			}
+			try {
+				gate.acquire();
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException("escrita interrompida");
+			}
+		}
+
+		@Override
+		public void complete() {
+			completed.add("complete");
+		}
+
+		@Override
+		public void completeWithError(Throwable error) {
+			completed.add("error: " + error.getMessage());
+		}
+	}
+}
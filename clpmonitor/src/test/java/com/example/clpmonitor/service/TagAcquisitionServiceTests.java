@@ -0,0 +1,155 @@
+package com.example.clpmonitor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.clpmonitor.config.ClpProperties;
+import com.example.clpmonitor.model.PollStats;
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagSnapshot;
+import com.example.clpmonitor.plc.FakeS7Server;
+import com.example.clpmonitor.plc.S7Address;
+
+// Aquisição real (agendador, pool e planos de leitura) contra um CLP simulado
+class TagAcquisitionServiceTests {
+
+	private FakeS7Server server;
+	private AcquisitionScheduler scheduler;
+	private PlcConnectionPool pool;
+	private TagValueStore store;
+	private TagAcquisitionService acquisition;
+
+	private final Tag speed = new Tag(0, "linha.velocidade", "linha", "clp1", "fast", S7Address.parse("DB9.DBW0"));
+	private final Tag position = new Tag(1, "linha.posicao", "linha", "clp1", "fast", S7Address.parse("DB9.DBW2"));
+	private final Tag recipe = new Tag(2, "linha.receita", "linha", "clp1", "slow", S7Address.parse("DB9.DBW100"));
+
+	// Uma leitura de grupo avisada aos sample listeners
+	private record Sample(String scanClass, long nanos, int jobs, boolean good) {
+	}
+
+	private final List<Sample> samples = new CopyOnWriteArrayList<>();
+	private final List<List<Tag>> changes = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void start() throws Exception {
+		server = new FakeS7Server(240);
+		byte[] db9 = server.db(9, 128);
+		db9[1] = 10;
+		db9[3] = 20;
+		db9[101] = 30;
+
+		ClpProperties.Plc plc = new ClpProperties.Plc();
+		plc.setIp("127.0.0.1");
+		plc.setPort(server.getPort());
+		ClpProperties properties = new ClpProperties();
+		properties.setPlcs(Map.of("linha", plc));
+		properties.setScanClasses(Map.of("fast", 50L, "slow", 400L));
+
+		scheduler = new AcquisitionScheduler();
+		pool = new PlcConnectionPool();
+		ReflectionTestUtils.setField(pool, "maxSessionsPerPlc", 2);
+		ReflectionTestUtils.setField(pool, "borrowTimeoutMs", 1000L);
+		ReflectionTestUtils.setField(pool, "idleTimeoutMs", 60_000L);
+		ReflectionTestUtils.setField(pool, "keepaliveIntervalMs", 60_000L);
+		store = new TagValueStore();
+		ReflectionTestUtils.setField(store, "current", new TagSnapshot(3));
+
+		acquisition = new TagAcquisitionService();
+		ReflectionTestUtils.setField(acquisition, "scheduler", scheduler);
+		ReflectionTestUtils.setField(acquisition, "connectionPool", pool);
+		ReflectionTestUtils.setField(acquisition, "properties", properties);
+		ReflectionTestUtils.setField(acquisition, "store", store);
+		ReflectionTestUtils.setField(acquisition, "maxGapBytes", 16);
+
+		// Os grupos do mesmo CLP rodam em sequência na thread dele: os jobs
+		// contados pelo servidor até aqui são exatamente os desta leitura e
+		// das anteriores
+		acquisition.addSampleListener((tags, snapshot) -> samples.add(new Sample(tags.get(0).getScanClass(),
+				System.nanoTime(), server.getJobCount() - server.getAcceptedCount(), snapshot.isGood(tags.get(0).getId()))));
+		acquisition.addListener((tags, snapshot) -> changes.add(tags));
+	}
+
+	@AfterEach
+	void shutdown() throws Exception {
+		scheduler.shutdown();
+		pool.shutdown();
+		server.close();
+	}
+
+	@Test
+	void eachScanClassIsReadWithOneRequestPerCycleAtItsOwnRate() throws Exception {
+		acquisition.start(List.of(speed, position, recipe));
+		Thread.sleep(1000);
+
+		List<Sample> fast = samples.stream().filter(sample -> sample.scanClass().equals("fast")).toList();
+		List<Sample> slow = samples.stream().filter(sample -> sample.scanClass().equals("slow")).toList();
+		assertTrue(fast.size() >= 15 && fast.size() <= 22, "leituras fast: " + fast.size());
+		assertTrue(slow.size() >= 2 && slow.size() <= 4, "leituras slow: " + slow.size());
+		assertTrue(averageIntervalMs(fast) >= 40 && averageIntervalMs(fast) <= 65, "fast: " + averageIntervalMs(fast));
+		assertTrue(averageIntervalMs(slow) >= 350 && averageIntervalMs(slow) <= 450, "slow: " + averageIntervalMs(slow));
+
+		// Um único Read Var por ciclo: as duas tags fast (vizinhas) e a slow
+		List<Sample> all = List.copyOf(samples);
+		for (int i = 0; i < all.size(); i++) {
+			assertEquals(i + 1, all.get(i).jobs());
+		}
+
+		TagSnapshot snapshot = store.snapshot();
+		assertEquals(10, snapshot.getValue(speed.getId()));
+		assertEquals(20, snapshot.getValue(position.getId()));
+		assertEquals(30, snapshot.getValue(recipe.getId()));
+		// Valores parados: só a primeira leitura de cada grupo gera mudança
+		assertEquals(2, changes.size());
+
+		assertEquals(2, scheduler.getStats().size());
+		for (PollStats stats : scheduler.getStats()) {
+			assertEquals(0, stats.getFailures(), stats.getName());
+		}
+	}
+
+	@Test
+	void failedReadsKeepTheLastValueWithBadQuality() throws Exception {
+		acquisition.start(List.of(speed, position, recipe));
+		waitFor(() -> changes.size() == 2);
+
+		// CLP fora do ar: sessão derrubada e novas conexões recusadas
+		server.close();
+		waitFor(() -> changes.size() == 4);
+		Thread.sleep(200);
+
+		TagSnapshot snapshot = store.snapshot();
+		for (Tag tag : List.of(speed, position, recipe)) {
+			assertFalse(snapshot.isGood(tag.getId()));
+		}
+		assertEquals(10, snapshot.getValue(speed.getId()));
+		assertEquals(30, snapshot.getValue(recipe.getId()));
+		assertFalse(samples.get(samples.size() - 1).good());
+
+		// Cada grupo avisa a perda uma única vez, não a cada ciclo com falha
+		assertEquals(4, changes.size());
+		assertEquals(List.of(speed, position), changes.stream().filter(tags -> tags.contains(speed)).toList().get(1));
+	}
+
+	private static double averageIntervalMs(List<Sample> samples) {
+		return (samples.get(samples.size() - 1).nanos() - samples.get(0).nanos()) / 1e6 / (samples.size() - 1);
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 3000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(condition.getAsBoolean());
+	}
+}
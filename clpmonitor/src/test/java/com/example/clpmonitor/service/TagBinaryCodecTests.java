@@ -0,0 +1,84 @@
+package com.example.clpmonitor.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.clpmonitor.model.Tag;
+import com.example.clpmonitor.model.TagSnapshot;
+import com.example.clpmonitor.plc.S7Address;
+import com.example.clpmonitor.plc.S7DataType;
+
+class TagBinaryCodecTests {
+
+	private final Tag position = new Tag(1, "clp4.p0", "expedicao", "clp4", "normal", S7Address.parse("DB9.DBW6"));
+	private final Tag temperature = new Tag(2, "forno.temp", "estoque", "clp5", "fast", S7Address.parse("DB1.DBD0"));
+	private final Tag colors = new Tag(3, "clp1.cores", "estoque", "clp1", "fast", S7Address.parse("DB9.DBB68[4]"));
+
+	@Test
+	void frameCarriesOneRecordPerTagInBigEndian() {
+		TagSnapshot snapshot = new TagSnapshot(4).with(new int[] { 1, 2, 3 },
+				new Object[] { -2, 21.5f, new byte[] { 0, 1, 2, 3 } }, new boolean[] { true, true, true }, 999,
+				1_700_000_000_123L);
+
+		ByteBuffer frame = TagBinaryCodec.frame(List.of(TagBinaryCodec.encodeRecord(position, snapshot),
+				TagBinaryCodec.encodeRecord(temperature, snapshot), TagBinaryCodec.encodeRecord(colors, snapshot)));
+
+		assertEquals(TagBinaryCodec.MESSAGE_TAG_UPDATE, frame.get());
+		assertEquals(3, frame.getShort());
+
+		assertRecordHeader(frame, 1, TagBinaryCodec.TYPE_INTEGER, 2);
+		assertEquals(-2, frame.getShort());
+
+		assertRecordHeader(frame, 2, TagBinaryCodec.TYPE_FLOAT, 4);
+		assertEquals(21.5f, frame.getFloat());
+
+		assertRecordHeader(frame, 3, TagBinaryCodec.TYPE_BLOCK, 4);
+		byte[] block = new byte[4];
+		frame.get(block);
+		assertArrayEquals(new byte[] { 0, 1, 2, 3 }, block);
+
+		assertFalse(frame.hasRemaining());
+	}
+
+	@Test
+	void failedReadKeepsTheLastGoodValueWithBadQuality() {
+		TagSnapshot snapshot = new TagSnapshot(4)
+				.with(new int[] { 1 }, new Object[] { 7 }, new boolean[] { true }, 1000, 1000)
+				.with(new int[] { 1 }, new Object[] { null }, new boolean[] { false }, 2000, 2000);
+
+		ByteBuffer record = ByteBuffer.wrap(TagBinaryCodec.encodeRecord(position, snapshot));
+		assertEquals(1, record.getShort());
+		record.getLong();
+		assertEquals(0, record.get());
+		assertEquals(TagBinaryCodec.TYPE_INTEGER, record.get());
+		assertEquals(2, record.getShort());
+		assertEquals(7, record.getShort());
+
+		// Tag nunca lida: valor vazio
+		ByteBuffer empty = ByteBuffer.wrap(TagBinaryCodec.encodeRecord(temperature, snapshot));
+		empty.position(2 + 8 + 1 + 1);
+		assertEquals(0, empty.getShort());
+		assertFalse(empty.hasRemaining());
+	}
+
+	@Test
+	void typeCodesRoundTrip() {
+		for (S7DataType type : S7DataType.values()) {
+			assertEquals(type, TagBinaryCodec.typeOf(TagBinaryCodec.typeCode(type)));
+		}
+	}
+
+	private static void assertRecordHeader(ByteBuffer frame, int id, byte type, int length) {
+		assertEquals(id, frame.getShort());
+		assertEquals(1_700_000_000_123L, frame.getLong());
+		assertEquals(1, frame.get());
+		assertEquals(type, frame.get());
+		assertEquals(length, frame.getShort());
+	}
+}
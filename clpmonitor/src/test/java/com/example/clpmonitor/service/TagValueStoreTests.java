@@ -0,0 +1,110 @@
+package com.example.clpmonitor.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.clpmonitor.model.TagSnapshot;
+
+class TagValueStoreTests {
+
+	private static final int[] FAST = { 0, 1 };
+	private static final int[] SLOW = { 2, 3 };
+
+	private final TagValueStore store = new TagValueStore();
+
+	@BeforeEach
+	void init() {
+		TagRegistry registry = mock(TagRegistry.class);
+		when(registry.size()).thenReturn(4);
+		ReflectionTestUtils.setField(store, "registry", registry);
+		store.init();
+	}
+
+	@Test
+	void publishingOneGroupKeepsTheValuesOfTheOthers() {
+		TagSnapshot first = store.publish(FAST, new Object[] { 1, 2 }, new boolean[] { true, true }, 100, 110);
+		store.publish(SLOW, new Object[] { 3.5f, new byte[] { 4 } }, new boolean[] { true, true }, 200, 210);
+
+		TagSnapshot snapshot = store.snapshot();
+		assertEquals(1, snapshot.getValue(0));
+		assertEquals(2, snapshot.getValue(1));
+		assertEquals(3.5f, snapshot.getValue(2));
+		assertEquals(100, snapshot.getSourceTimestamp(1));
+		assertEquals(210, snapshot.getReceiveTimestamp(3));
+
+		// Quem já tinha o snapshot anterior continua vendo o estado dele
+		assertNull(first.getValue(2));
+		assertEquals(0, first.getReceiveTimestamp(2));
+	}
+
+	@Test
+	void failedReadKeepsTheLastValueWithBadQuality() {
+		store.publish(FAST, new Object[] { 1, 2 }, new boolean[] { true, true }, 100, 110);
+
+		// Item com erro: só a tag afetada fica ruim
+		TagSnapshot itemError = store.publish(FAST, new Object[] { 5, null }, new boolean[] { true, false }, 200, 210);
+		assertEquals(5, itemError.getValue(0));
+		assertEquals(2, itemError.getValue(1));
+		assertFalse(itemError.isGood(1));
+
+		// CLP fora do ar: o grupo todo fica ruim, com os últimos valores e horários
+		TagSnapshot failure = store.publishFailure(FAST);
+		assertEquals(5, failure.getValue(0));
+		assertEquals(2, failure.getValue(1));
+		assertFalse(failure.isGood(0));
+		assertFalse(failure.isGood(1));
+		assertEquals(210, failure.getReceiveTimestamp(0));
+		assertEquals(failure.getVersion(), failure.getChangeVersion(0));
+		assertEquals(itemError.getVersion(), failure.getChangeVersion(1));
+
+		TagSnapshot recovered = store.publish(FAST, new Object[] { 5, 2 }, new boolean[] { true, true }, 300, 310);
+		assertTrue(recovered.isGood(0));
+		assertEquals(recovered.getVersion(), recovered.getChangeVersion(0));
+	}
+
+	@Test
+	void versionIncreasesWithEveryPublication() throws Exception {
+		assertEquals(0, store.snapshot().getVersion());
+		TagSnapshot first = store.publish(FAST, new Object[] { 1, 2 }, new boolean[] { true, true }, 100, 110);
+		assertEquals(1, first.getVersion());
+		assertEquals(1, first.getLastChangeVersion());
+
+		// Leitura igual: nova versão, mas nenhuma mudança
+		TagSnapshot same = store.publish(FAST, new Object[] { 1, 2 }, new boolean[] { true, true }, 200, 210);
+		assertEquals(2, same.getVersion());
+		assertEquals(1, same.getLastChangeVersion());
+		assertEquals(1, same.getChangeVersion(0));
+
+		TagSnapshot failure = store.publishFailure(SLOW);
+		assertEquals(3, failure.getVersion());
+		assertEquals(1, failure.getLastChangeVersion());
+
+		// Publicações de vários CLPs ao mesmo tempo são serializadas: nenhuma se perde
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			int[] ids = t % 2 == 0 ? FAST : SLOW;
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 250; i++) {
+					store.publish(ids, new Object[] { i, i }, new boolean[] { true, true }, i, i);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(3 + 1000, store.snapshot().getVersion());
+	}
+}